@@ -0,0 +1,223 @@
+package com.example.sc2079_group25;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Saved arena layouts (obstacles plus robot pose), one small binary file per
+ * layout. A separate index file holds the name, size and timestamp of every
+ * layout so listing never has to open the layouts themselves.
+ *
+ * Every method reads or writes files, so call them off the main thread.
+ */
+public class ArenaLayoutStore {
+    private static final int MAGIC = 0x53434c31; // "SCL1"
+    private static final int INDEX_MAGIC = 0x53434931; // "SCI1"
+    private static final short VERSION = 1;
+    private static final String INDEX_FILE = "index.bin";
+    private static final String SUFFIX = ".layout";
+
+    public static class Entry {
+        public final long id;
+        public final String name;
+        public final int obstacleCount;
+        public final long savedAt;
+
+        Entry(long id, String name, int obstacleCount, long savedAt) {
+            this.id = id;
+            this.name = name;
+            this.obstacleCount = obstacleCount;
+            this.savedAt = savedAt;
+        }
+    }
+
+    public static class Layout {
+        public final String name;
+        public final float robotX, robotY, robotRotation;
+        public final List<ArenaView.Obstacle> obstacles;
+
+        public Layout(String name, float robotX, float robotY, float robotRotation, List<ArenaView.Obstacle> obstacles) {
+            this.name = name;
+            this.robotX = robotX;
+            this.robotY = robotY;
+            this.robotRotation = robotRotation;
+            this.obstacles = obstacles;
+        }
+    }
+
+    private final File dir;
+    // Newest last; loaded once and kept in memory
+    private final Map<Long, Entry> index = new LinkedHashMap<>();
+    private boolean indexLoaded = false;
+
+    public ArenaLayoutStore(File dir) {
+        this.dir = dir;
+    }
+
+    public synchronized List<Entry> list() throws IOException {
+        ensureIndex();
+        List<Entry> entries = new ArrayList<>(index.values());
+        Collections.reverse(entries);
+        return entries;
+    }
+
+    /** @throws IllegalArgumentException if a value does not fit the file format */
+    public synchronized Entry save(Layout layout) throws IOException {
+        validate(layout);
+        ensureIndex();
+        long id = System.currentTimeMillis();
+        while (index.containsKey(id)) id++;
+
+        File tmp = new File(dir, id + SUFFIX + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeUTF(layout.name);
+            out.writeFloat(layout.robotX);
+            out.writeFloat(layout.robotY);
+            out.writeShort((int) layout.robotRotation);
+            out.writeShort(layout.obstacles.size());
+            for (ArenaView.Obstacle o : layout.obstacles) {
+                out.writeByte(o.id);
+                out.writeByte((int) o.x);
+                out.writeByte((int) o.y);
+                out.writeByte(o.direction);
+                out.writeUTF(o.value);
+            }
+        }
+        if (!tmp.renameTo(layoutFile(id))) throw new IOException("Could not store layout " + id);
+
+        Entry e = new Entry(id, layout.name, layout.obstacles.size(), id);
+        index.put(id, e);
+        writeIndex();
+        return e;
+    }
+
+    /** Checks every value against the field it is written to, which would otherwise truncate it. */
+    static void validate(Layout layout) {
+        if (layout.name == null) throw new IllegalArgumentException("Layout has no name");
+        checkRange("Robot rotation", (int) layout.robotRotation, Short.MIN_VALUE, Short.MAX_VALUE);
+        checkRange("Obstacle count", layout.obstacles.size(), 0, 0xFFFF);
+        for (ArenaView.Obstacle o : layout.obstacles) {
+            checkRange("Obstacle id", o.id, 0, 0xFF);
+            checkRange("Obstacle " + o.id + " x", (int) o.x, 0, 0xFF);
+            checkRange("Obstacle " + o.id + " y", (int) o.y, 0, 0xFF);
+            checkRange("Obstacle " + o.id + " direction", o.direction, 0, 0xFF);
+            if (o.value == null) throw new IllegalArgumentException("Obstacle " + o.id + " has no value");
+        }
+    }
+
+    private static void checkRange(String what, int value, int min, int max) {
+        if (value < min || value > max) {
+            throw new IllegalArgumentException(what + " " + value + " out of range " + min + ".." + max);
+        }
+    }
+
+    public synchronized Layout load(long id) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(layoutFile(id))))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a layout file");
+            short version = in.readShort();
+            if (version != VERSION) throw new IOException("Unsupported layout version " + version);
+
+            String name = in.readUTF();
+            float rx = in.readFloat();
+            float ry = in.readFloat();
+            float rot = in.readShort();
+            int count = in.readUnsignedShort();
+            List<ArenaView.Obstacle> obstacles = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                ArenaView.Obstacle o = new ArenaView.Obstacle(in.readUnsignedByte(), in.readUnsignedByte(), in.readUnsignedByte());
+                o.direction = in.readUnsignedByte();
+                o.value = in.readUTF();
+                obstacles.add(o);
+            }
+            return new Layout(name, rx, ry, rot, obstacles);
+        }
+    }
+
+    public synchronized void delete(long id) throws IOException {
+        ensureIndex();
+        if (index.remove(id) == null) return;
+        layoutFile(id).delete();
+        writeIndex();
+    }
+
+    private File layoutFile(long id) {
+        return new File(dir, id + SUFFIX);
+    }
+
+    private void ensureIndex() throws IOException {
+        if (indexLoaded) return;
+        if (!dir.exists() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+
+        File f = new File(dir, INDEX_FILE);
+        if (f.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)))) {
+                if (in.readInt() != INDEX_MAGIC || in.readShort() != VERSION) throw new IOException("Bad index");
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    long id = in.readLong();
+                    String name = in.readUTF();
+                    int obstacleCount = in.readUnsignedShort();
+                    long savedAt = in.readLong();
+                    index.put(id, new Entry(id, name, obstacleCount, savedAt));
+                }
+            } catch (IOException e) {
+                index.clear();
+                rebuildIndex();
+            }
+        } else {
+            rebuildIndex();
+        }
+        indexLoaded = true;
+    }
+
+    /** Recovers the index from the layout files themselves, e.g. after a crash mid-write. */
+    private void rebuildIndex() throws IOException {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(SUFFIX));
+        if (files == null) return;
+        List<Long> ids = new ArrayList<>();
+        for (File file : files) {
+            try {
+                ids.add(Long.parseLong(file.getName().substring(0, file.getName().length() - SUFFIX.length())));
+            } catch (NumberFormatException ignored) {}
+        }
+        Collections.sort(ids);
+        for (long id : ids) {
+            try {
+                Layout l = load(id);
+                index.put(id, new Entry(id, l.name, l.obstacles.size(), id));
+            } catch (IOException ignored) {
+                // Skip unreadable layouts rather than losing the rest
+            }
+        }
+        writeIndex();
+    }
+
+    private void writeIndex() throws IOException {
+        File tmp = new File(dir, INDEX_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(index.size());
+            for (Entry e : index.values()) {
+                out.writeLong(e.id);
+                out.writeUTF(e.name);
+                out.writeShort(e.obstacleCount);
+                out.writeLong(e.savedAt);
+            }
+        }
+        if (!tmp.renameTo(new File(dir, INDEX_FILE))) throw new IOException("Could not write layout index");
+    }
+}
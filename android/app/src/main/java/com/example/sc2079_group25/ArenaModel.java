@@ -0,0 +1,171 @@
+package com.example.sc2079_group25;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Arena changes reported by one robot link, collected on the link's threads
+ * until the UI pulls them into that link's {@link ArenaView}. Only the latest
+ * value per item is kept, so a link that is not on screen costs no main-thread
+ * work until it is shown again.
+ */
+public class ArenaModel {
+    /** What {@link #applyTo} writes into; implemented by {@link ArenaView}. */
+    public interface Sink {
+        void clearMap();
+        void addObstacle(int id, float x, float y);
+        void updateObstacleValues(String[] valuesById);
+        void setPlannedPath(float[] pts, int n);
+        void appendPlannedPath(float[] pts, int n);
+        void updateRobot(float x, float y, float r);
+        /** {@code changed} marks the cells whose bits differ from the last call. See {@link MapBits}. */
+        void updateExploredMap(long[] explored, long[] obstacles, long[] changed);
+    }
+
+    private boolean cleared = false;
+    private boolean robotDirty = false;
+    private float robotX, robotY, robotRotation;
+    private final TargetAggregator targets = new TargetAggregator();
+    private final String[] targetScratch = new String[TargetAggregator.MAX_IDS]; // Main thread only
+    private final Map<Integer, float[]> added = new LinkedHashMap<>();
+    private String status;
+    private float[] pathPoints = new float[64];
+    private int pathCount = 0;
+    private boolean pathReplace = false;
+    // Latest explored map, kept whole so deltas have something to apply to
+    private final long[] mapExplored = new long[MapBits.WORDS];
+    private final long[] mapObstacles = new long[MapBits.WORDS];
+    private final long[] mapChanged = new long[MapBits.WORDS];
+    private boolean mapDirty = false;
+    private volatile long version = 0;
+
+    public synchronized void setRobot(float x, float y, float rotation) {
+        robotX = x;
+        robotY = y;
+        robotRotation = rotation;
+        robotDirty = true;
+        version++;
+    }
+
+    /** Returns false if the id is out of range. See {@link TargetAggregator#offer}. */
+    public synchronized boolean offerTarget(int id, int value, float confidence) {
+        if (!targets.offer(id, value, confidence)) return false;
+        version++;
+        return true;
+    }
+
+    public TargetAggregator getTargets() {
+        return targets;
+    }
+
+    /** Replaces the planned path; {@code n} points interleaved x, y. */
+    public synchronized void setPath(float[] pts, int n) {
+        pathCount = 0;
+        pathReplace = true;
+        appendPathLocked(pts, n);
+        version++;
+    }
+
+    public synchronized void appendPath(float[] pts, int n) {
+        appendPathLocked(pts, n);
+        version++;
+    }
+
+    private void appendPathLocked(float[] pts, int n) {
+        if (pathPoints.length < 2 * (pathCount + n)) {
+            pathPoints = Arrays.copyOf(pathPoints, Math.max(2 * (pathCount + n), pathPoints.length * 2));
+        }
+        System.arraycopy(pts, 0, pathPoints, 2 * pathCount, 2 * n);
+        pathCount += n;
+    }
+
+    /**
+     * Replaces the explored map, or with {@code delta} flips the bits set in
+     * {@code explored} and {@code obstacles}. Only cells that end up different
+     * are repainted.
+     */
+    public synchronized void updateMap(long[] explored, long[] obstacles, boolean delta) {
+        for (int w = 0; w < MapBits.WORDS; w++) {
+            long e = delta ? mapExplored[w] ^ explored[w] : explored[w];
+            long o = delta ? mapObstacles[w] ^ obstacles[w] : obstacles[w];
+            mapChanged[w] |= (e ^ mapExplored[w]) | (o ^ mapObstacles[w]);
+            mapExplored[w] = e;
+            mapObstacles[w] = o;
+        }
+        mapDirty = true;
+        version++;
+    }
+
+    public synchronized void addObstacle(int id, float x, float y) {
+        // A re-added obstacle starts without a value, as ArenaView.addObstacle does
+        targets.discard(id);
+        added.remove(id);
+        added.put(id, new float[] {x, y});
+        version++;
+    }
+
+    public synchronized void clear() {
+        targets.clear();
+        added.clear();
+        pathCount = 0;
+        pathReplace = false; // clearMap() drops the path too
+        robotDirty = false;
+        cleared = true;
+        for (int w = 0; w < MapBits.WORDS; w++) {
+            mapChanged[w] |= mapExplored[w] | mapObstacles[w];
+            mapExplored[w] = 0;
+            mapObstacles[w] = 0;
+        }
+        mapDirty = true;
+        version++;
+    }
+
+    public synchronized void setStatus(String status) {
+        this.status = status;
+        version++;
+    }
+
+    /** Changes whenever something new is pending; cheap to poll. */
+    public long getVersion() {
+        return version;
+    }
+
+    /** Applies and forgets everything pending. Main thread only. */
+    public synchronized boolean applyTo(Sink view) {
+        boolean any = cleared || robotDirty || targets.hasPending() || !added.isEmpty()
+                || pathReplace || pathCount > 0 || mapDirty;
+        if (cleared) view.clearMap();
+        for (Map.Entry<Integer, float[]> e : added.entrySet()) {
+            view.addObstacle(e.getKey(), e.getValue()[0], e.getValue()[1]);
+        }
+        // All target results of the frame go to the view as one change set
+        if (targets.drainInto(targetScratch) > 0) view.updateObstacleValues(targetScratch);
+        if (pathReplace) view.setPlannedPath(pathPoints, pathCount);
+        else if (pathCount > 0) view.appendPlannedPath(pathPoints, pathCount);
+        if (robotDirty) view.updateRobot(robotX, robotY, robotRotation);
+        if (mapDirty) {
+            view.updateExploredMap(mapExplored, mapObstacles, mapChanged);
+            Arrays.fill(mapChanged, 0);
+            mapDirty = false;
+        }
+        pathReplace = false;
+        pathCount = 0;
+        cleared = false;
+        robotDirty = false;
+        added.clear();
+        return any;
+    }
+
+    /** Capacity of the pending path buffer; it only grows to the largest frame. */
+    synchronized int getPathCapacity() {
+        return pathPoints.length / 2;
+    }
+
+    /** Latest status text since the last call, or null if none arrived. */
+    public synchronized String takeStatus() {
+        String s = status;
+        status = null;
+        return s;
+    }
+}
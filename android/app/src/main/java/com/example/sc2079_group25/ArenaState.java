@@ -0,0 +1,146 @@
+package com.example.sc2079_group25;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable snapshot of the arena: robot pose plus obstacles.
+ *
+ * Every change returns a new snapshot that shares whatever did not change:
+ * moving the robot reuses the obstacle list, and editing one obstacle copies
+ * only that obstacle and the list of references. Obstacles reachable from a
+ * snapshot are never modified afterwards.
+ */
+public final class ArenaState {
+    public static final ArenaState INITIAL = new ArenaState(1, 1, 0, Collections.emptyList(), 0, 0);
+
+    public final float robotX, robotY; // Center of 3x3 robot
+    public final float robotRotation;  // 0: N, 90: E, 180: S, 270: W
+    public final List<ArenaView.Obstacle> obstacles; // Unmodifiable
+    public final long version;
+    /** Bumped when the arena is reset or replaced, so per-run layers know to start over. */
+    public final long epoch;
+
+    private ArenaState(float robotX, float robotY, float robotRotation,
+                       List<ArenaView.Obstacle> obstacles, long version, long epoch) {
+        this.robotX = robotX;
+        this.robotY = robotY;
+        this.robotRotation = robotRotation;
+        this.obstacles = obstacles;
+        this.version = version;
+        this.epoch = epoch;
+    }
+
+    private ArenaState with(float x, float y, float r, List<ArenaView.Obstacle> obs) {
+        return new ArenaState(x, y, r, obs, version + 1, epoch);
+    }
+
+    public ArenaView.Obstacle find(int id) {
+        for (ArenaView.Obstacle o : obstacles) if (o.id == id) return o;
+        return null;
+    }
+
+    public ArenaView.Obstacle obstacleAt(int gx, int gy) {
+        for (ArenaView.Obstacle o : obstacles) if ((int) o.x == gx && (int) o.y == gy) return o;
+        return null;
+    }
+
+    public ArenaState withRobot(float x, float y, float r) {
+        if (x == robotX && y == robotY && r == robotRotation) return this;
+        return with(x, y, r, obstacles);
+    }
+
+    /** Moves one cell forward ({@code step} 1) or backward (-1), per {@link RobotSimulator}. */
+    public ArenaState moved(int step) {
+        return withRobot(RobotSimulator.movedX(robotX, robotRotation, step),
+                RobotSimulator.movedY(robotY, robotRotation, step), robotRotation);
+    }
+
+    /** A turn as the robot drives it: forward, rotate by {@code degrees}, forward. */
+    public ArenaState turned(int degrees) {
+        ArenaState s = moved(1);
+        s = s.withRobot(s.robotX, s.robotY, RobotSimulator.turned(s.robotRotation, degrees));
+        return s.moved(1);
+    }
+
+    public ArenaState withObstacles(List<ArenaView.Obstacle> obs) {
+        return with(robotX, robotY, robotRotation, Collections.unmodifiableList(new ArrayList<>(obs)));
+    }
+
+    /** Adds {@code o}, replacing any obstacle with the same id. */
+    public ArenaState withObstacle(ArenaView.Obstacle o) {
+        List<ArenaView.Obstacle> next = new ArrayList<>(obstacles.size() + 1);
+        for (ArenaView.Obstacle e : obstacles) if (e.id != o.id) next.add(e);
+        next.add(o);
+        return with(robotX, robotY, robotRotation, Collections.unmodifiableList(next));
+    }
+
+    public ArenaState withoutObstacle(int id) {
+        if (find(id) == null) return this;
+        List<ArenaView.Obstacle> next = new ArrayList<>(obstacles.size());
+        for (ArenaView.Obstacle e : obstacles) if (e.id != id) next.add(e);
+        return with(robotX, robotY, robotRotation, Collections.unmodifiableList(next));
+    }
+
+    public ArenaState withDirection(int id, int direction) {
+        ArenaView.Obstacle o = find(id);
+        if (o == null || o.direction == direction) return this;
+        ArenaView.Obstacle c = o.copy();
+        c.direction = direction;
+        return withObstacle(c);
+    }
+
+    public ArenaState withValue(int id, String value) {
+        ArenaView.Obstacle o = find(id);
+        if (o == null || value.equals(o.value)) return this;
+        return replaced(o, value);
+    }
+
+    /** Applies values indexed by obstacle id (null = unchanged); one new snapshot for the batch. */
+    public ArenaState withValues(String[] valuesById) {
+        List<ArenaView.Obstacle> next = null;
+        for (int i = 0; i < obstacles.size(); i++) {
+            ArenaView.Obstacle o = obstacles.get(i);
+            if (o.id < 0 || o.id >= valuesById.length) continue;
+            String v = valuesById[o.id];
+            if (v == null || v.equals(o.value)) continue;
+            if (next == null) next = new ArrayList<>(obstacles);
+            ArenaView.Obstacle c = o.copy();
+            c.value = v;
+            next.set(i, c);
+        }
+        if (next == null) return this;
+        return with(robotX, robotY, robotRotation, Collections.unmodifiableList(next));
+    }
+
+    private ArenaState replaced(ArenaView.Obstacle o, String value) {
+        List<ArenaView.Obstacle> next = new ArrayList<>(obstacles);
+        ArenaView.Obstacle c = o.copy();
+        c.value = value;
+        next.set(next.indexOf(o), c);
+        return with(robotX, robotY, robotRotation, Collections.unmodifiableList(next));
+    }
+
+    /** A fresh arena: no obstacles, robot at the start, new epoch. */
+    public ArenaState cleared() {
+        return new ArenaState(INITIAL.robotX, INITIAL.robotY, INITIAL.robotRotation,
+                Collections.emptyList(), version + 1, epoch + 1);
+    }
+
+    /** Replaces the whole arena, e.g. with a stored layout; starts a new epoch. */
+    public ArenaState replacedBy(List<ArenaView.Obstacle> obs, float x, float y, float r) {
+        List<ArenaView.Obstacle> copy = new ArrayList<>(obs.size());
+        for (ArenaView.Obstacle o : obs) copy.add(o.copy());
+        return new ArenaState(RobotSimulator.constrain(x), RobotSimulator.constrain(y), r,
+                Collections.unmodifiableList(copy), version + 1, epoch + 1);
+    }
+
+    /** Resets {@code sim} to this snapshot's pose and obstacles, e.g. to dry-run a route. */
+    public RobotSimulator loadInto(RobotSimulator sim) {
+        sim.reset(robotX, robotY, robotRotation);
+        sim.clearObstacles();
+        for (ArenaView.Obstacle o : obstacles) sim.addObstacle((int) o.x, (int) o.y);
+        return sim;
+    }
+}
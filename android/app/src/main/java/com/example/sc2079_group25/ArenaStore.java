@@ -0,0 +1,131 @@
+package com.example.sc2079_group25;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Holds the current {@link ArenaState}. Producers on any thread (telemetry,
+ * touch, undo) publish new snapshots with a compare-and-set; readers such as
+ * the renderer just take {@link #get()} without locking.
+ *
+ * Undo history stores obstacle lists from past snapshots. They are immutable,
+ * so saving a step costs one reference instead of a deep copy.
+ */
+public class ArenaStore {
+    public interface Listener {
+        /**
+         * Called on a publishing thread, one call at a time, with versions in
+         * increasing order. States published while another thread is
+         * delivering may be skipped in favour of the latest. Must not publish.
+         */
+        void onStateChanged(ArenaState state);
+    }
+
+    private final AtomicReference<ArenaState> state = new AtomicReference<>(ArenaState.INITIAL);
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Object notifyLock = new Object();
+    private long notifiedVersion = ArenaState.INITIAL.version; // Guarded by notifyLock
+
+    // Oldest steps are dropped beyond this, so hours of edits do not pile up
+    static final int MAX_UNDO = 200;
+
+    // Guarded by this; only undoable edits take the lock
+    private final Deque<List<ArenaView.Obstacle>> undo = new ArrayDeque<>();
+    private final Deque<List<ArenaView.Obstacle>> redo = new ArrayDeque<>();
+
+    public ArenaState get() {
+        return state.get();
+    }
+
+    public void addListener(Listener l) {
+        listeners.addIfAbsent(l);
+    }
+
+    public void removeListener(Listener l) {
+        listeners.remove(l);
+    }
+
+    /** Publishes {@code f(current)}; retried if another producer got in first. */
+    public ArenaState update(UnaryOperator<ArenaState> f) {
+        ArenaState prev, next;
+        do {
+            prev = state.get();
+            next = f.apply(prev);
+        } while (next != prev && !state.compareAndSet(prev, next));
+        if (next != prev) notifyListeners();
+        return next;
+    }
+
+    /** Like {@link #update}, but the obstacles before the change become an undo step. */
+    public synchronized ArenaState edit(UnaryOperator<ArenaState> f) {
+        ArenaState prev, next;
+        do {
+            prev = state.get();
+            next = f.apply(prev);
+        } while (next != prev && !state.compareAndSet(prev, next));
+        if (next != prev) {
+            checkpoint(prev);
+            notifyListeners();
+        }
+        return next;
+    }
+
+    /** Records {@code s}'s obstacles as an undo step without changing anything. */
+    public synchronized void checkpoint(ArenaState s) {
+        pushUndo(s.obstacles);
+        redo.clear();
+    }
+
+    private void pushUndo(List<ArenaView.Obstacle> obstacles) {
+        undo.push(obstacles);
+        if (undo.size() > MAX_UNDO) undo.removeLast();
+    }
+
+    public synchronized int getUndoDepth() {
+        return undo.size();
+    }
+
+    public synchronized boolean undo() {
+        if (undo.isEmpty()) return false;
+        List<ArenaView.Obstacle> target = undo.pop();
+        ArenaState prev = swapObstacles(target);
+        redo.push(prev.obstacles);
+        return true;
+    }
+
+    public synchronized boolean redo() {
+        if (redo.isEmpty()) return false;
+        List<ArenaView.Obstacle> target = redo.pop();
+        ArenaState prev = swapObstacles(target);
+        pushUndo(prev.obstacles);
+        return true;
+    }
+
+    private ArenaState swapObstacles(List<ArenaView.Obstacle> obstacles) {
+        ArenaState prev, next;
+        do {
+            prev = state.get();
+            next = prev.withObstacles(obstacles);
+        } while (!state.compareAndSet(prev, next));
+        notifyListeners();
+        return prev;
+    }
+
+    /**
+     * Delivers the current state rather than the one this thread published:
+     * two producers can finish their CAS in one order and get here in the
+     * other, and the loser must not hand listeners an older snapshot.
+     */
+    private void notifyListeners() {
+        synchronized (notifyLock) {
+            ArenaState s = state.get();
+            if (s.version <= notifiedVersion) return; // Already delivered by a later producer
+            notifiedVersion = s.version;
+            for (Listener l : listeners) l.onStateChanged(s);
+        }
+    }
+}
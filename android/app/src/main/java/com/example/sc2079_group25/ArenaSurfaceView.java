@@ -0,0 +1,122 @@
+package com.example.sc2079_group25;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.graphics.Canvas;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.view.Choreographer;
+import android.view.MotionEvent;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Draws an {@link ArenaView} on its own render thread instead of the UI thread.
+ *
+ * The wrapped view is never attached to the window; it is sized to the surface
+ * and used as the drawing and touch engine. Frames are paced by a Choreographer
+ * on the render thread and only requested when the arena changed, so an idle
+ * arena costs no frames at all.
+ */
+public class ArenaSurfaceView extends SurfaceView implements SurfaceHolder.Callback, Choreographer.FrameCallback {
+    private final ArenaView engine;
+    private final AtomicBoolean dirty = new AtomicBoolean(true);
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final Runnable schedule = this::scheduleFrame;
+
+    private HandlerThread thread;
+    private volatile Handler handler;
+    private volatile boolean hasSurface = false;
+    private Choreographer choreographer; // Render thread only
+
+    public ArenaSurfaceView(Context context, ArenaView engine) {
+        super(context);
+        this.engine = engine;
+        setLayoutParams(engine.getLayoutParams());
+        setContentDescription(engine.getContentDescription());
+        getHolder().addCallback(this);
+    }
+
+    public ArenaView getEngine() {
+        return engine;
+    }
+
+    @Override
+    public void surfaceCreated(SurfaceHolder holder) {
+        thread = new HandlerThread("ArenaRender");
+        thread.start();
+        // A requestRender() that raced the last surfaceDestroyed() may have left this set
+        scheduled.set(false);
+        handler = new Handler(thread.getLooper());
+        hasSurface = true;
+        engine.setRedrawHook(this::requestRender);
+    }
+
+    @Override
+    public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+        // A frame drawn mid-layout is followed by this one, sized to the new surface
+        engine.measure(MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY),
+                MeasureSpec.makeMeasureSpec(height, MeasureSpec.EXACTLY));
+        engine.layout(0, 0, width, height);
+        requestRender();
+    }
+
+    @Override
+    public void surfaceDestroyed(SurfaceHolder holder) {
+        engine.setRedrawHook(null);
+        hasSurface = false;
+        Handler h = handler;
+        handler = null;
+        // Drop a pending frame callback, then wait so nothing draws into a dead surface
+        if (h != null) h.post(() -> {
+            if (choreographer != null) choreographer.removeFrameCallback(this);
+        });
+        thread.quitSafely();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+        choreographer = null;
+        scheduled.set(false);
+    }
+
+    /** Marks the arena dirty; at most one frame is queued however often this is called. */
+    public void requestRender() {
+        dirty.set(true);
+        Handler h = handler;
+        if (h != null && scheduled.compareAndSet(false, true) && !h.post(schedule)) {
+            scheduled.set(false); // The looper quit under us; surfaceCreated() starts afresh
+        }
+    }
+
+    private void scheduleFrame() {
+        if (choreographer == null) choreographer = Choreographer.getInstance();
+        choreographer.postFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        scheduled.set(false);
+        if (!hasSurface || !dirty.getAndSet(false)) return;
+        SurfaceHolder holder = getHolder();
+        Canvas canvas = holder.lockCanvas();
+        if (canvas == null) return;
+        try {
+            engine.draw(canvas); // Takes the engine's render lock and times itself into its FrameStats
+        } finally {
+            holder.unlockCanvasAndPost(canvas);
+        }
+    }
+
+    @SuppressLint("ClickableViewAccessibility")
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        boolean handled = engine.dispatchTouchEvent(event); // Serialised with drawing by the engine
+        requestRender();
+        return handled;
+    }
+}
@@ -2,7 +2,6 @@ package com.example.sc2079_group25;
 
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
@@ -14,11 +13,10 @@ import android.view.View;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Stack;
 
-public class ArenaView extends View {
+public class ArenaView extends View implements ArenaModel.Sink {
 
     private final Paint arenaPaint = new Paint();
     private final Paint gridPaint = new Paint();
@@ -27,19 +25,28 @@ public class ArenaView extends View {
     private final Paint robotPaint = new Paint();
     private final Paint labelPaint = new Paint();
     private final Paint facePaint = new Paint();
+    private final Paint posePaint = new Paint();
 
-    private Bitmap carUpBitmap, carDownBitmap, carLeftBitmap, carRightBitmap;
+    // Sprites decode in the background; the robot is a plain square until they arrive
+    private final Runnable spritesReady = this::requestRedraw;
 
     private final int gridCountX = 20;
     private final int gridCountY = 20;
 
-    private float robotX = 1, robotY = 1; // Center of 3x3 robot
-    private float robotRotation = 0; // 0: N, 90: E, 180: S, 270: W
-    
-    private List<Obstacle> obstacles = new ArrayList<>();
-    
-    private final Stack<List<Obstacle>> undoStack = new Stack<>();
-    private final Stack<List<Obstacle>> redoStack = new Stack<>();
+    // Robot pose and obstacles; safe to update from any thread
+    private final ArenaStore store = new ArenaStore();
+    private final PathLayer pathLayer = new PathLayer(); // Guarded by renderLock
+    private final CoverageLayer coverageLayer = new CoverageLayer(gridCountX, gridCountY);
+    private final MapLayer mapLayer = new MapLayer(gridCountX, gridCountY);
+    private long pathEpoch = 0;
+    private final ViewingPoses viewingPoses = new ViewingPoses(); // Kept in step with the store
+    private volatile boolean showViewingPoses = false;
+
+    // Held while drawing and while touch or path changes mutate view-side state,
+    // so a render thread can draw this view while the UI thread handles input
+    private final Object renderLock = new Object();
+    private final FrameStats frameStats = new FrameStats();
+    private volatile Runnable redrawHook;
 
     private float dragCurrentX, dragCurrentY;
     private int draggingId = -1;
@@ -55,6 +62,7 @@ public class ArenaView extends View {
     private final float labelPadding = 40f;
     private final float bankPadding = 60f;
 
+    /** Obstacles held by an {@link ArenaState} are shared between snapshots: copy() before changing one. */
     public static class Obstacle {
         public int id;
         public String value;
@@ -93,6 +101,12 @@ public class ArenaView extends View {
     }
 
     private void init() {
+        store.addListener(state -> {
+            coverageLayer.track(state.epoch, state.robotX, state.robotY);
+            viewingPoses.sync(state);
+            requestRedraw();
+        });
+
         arenaPaint.setColor(Color.BLACK);
         arenaPaint.setStyle(Paint.Style.STROKE);
         arenaPaint.setStrokeWidth(2f);
@@ -119,10 +133,11 @@ public class ArenaView extends View {
         facePaint.setColor(Color.RED);
         facePaint.setStyle(Paint.Style.FILL);
 
-        carUpBitmap = BitmapFactory.decodeResource(getResources(), R.drawable.car_up);
-        carDownBitmap = BitmapFactory.decodeResource(getResources(), R.drawable.car_down);
-        carLeftBitmap = BitmapFactory.decodeResource(getResources(), R.drawable.car_left);
-        carRightBitmap = BitmapFactory.decodeResource(getResources(), R.drawable.car_right);
+        posePaint.setColor(Color.BLUE);
+        posePaint.setStyle(Paint.Style.STROKE);
+        posePaint.setStrokeWidth(3f);
+
+        RobotSprites.get(getResources(), RobotSprites.UP, spritesReady);
     }
 
     private void calculateLayout() {
@@ -141,109 +156,191 @@ public class ArenaView extends View {
         bankItemWidth = viewWidth / 10f;
     }
 
-    private void saveState() {
-        List<Obstacle> state = new ArrayList<>();
-        for (Obstacle o : obstacles) state.add(o.copy());
-        undoStack.push(state);
-        redoStack.clear();
+    /**
+     * Routes redraw requests to {@code hook} instead of invalidating this view,
+     * for hosts that draw it on their own surface. Null restores the default.
+     */
+    public void setRedrawHook(Runnable hook) {
+        redrawHook = hook;
+        requestRedraw();
+    }
+
+    private void requestRedraw() {
+        Runnable hook = redrawHook;
+        if (hook != null) hook.run();
+        else postInvalidateOnAnimation();
+    }
+
+    /** Image-capture poses for the obstacles in the current snapshot. */
+    public ViewingPoses getViewingPoses() {
+        return viewingPoses;
+    }
+
+    /** Marks each obstacle's best viewing pose on the grid. */
+    public void setShowViewingPoses(boolean show) {
+        showViewingPoses = show;
+        requestRedraw();
+    }
+
+    public boolean isShowingViewingPoses() {
+        return showViewingPoses;
+    }
+
+    public FrameStats getFrameStats() {
+        return frameStats;
+    }
+
+    public ArenaStore getStore() {
+        return store;
+    }
+
+    public ArenaState getState() {
+        return store.get();
     }
 
+    /** Current obstacles; an unmodifiable snapshot. */
     public List<Obstacle> getObstacles() {
-        return obstacles;
+        return store.get().obstacles;
     }
 
     public void revert() {
-        if (undoStack.isEmpty()) return;
-        List<Obstacle> current = new ArrayList<>();
-        for (Obstacle o : obstacles) current.add(o.copy());
-        redoStack.push(current);
-        obstacles = undoStack.pop();
-        invalidate();
+        store.undo();
     }
 
     public void deRevert() {
-        if (redoStack.isEmpty()) return;
-        List<Obstacle> current = new ArrayList<>();
-        for (Obstacle o : obstacles) current.add(o.copy());
-        undoStack.push(current);
-        obstacles = redoStack.pop();
-        invalidate();
+        store.redo();
+    }
+
+    public float getRobotX() { return store.get().robotX; }
+    public float getRobotY() { return store.get().robotY; }
+    public float getRobotRotation() { return store.get().robotRotation; }
+
+    /** Replaces the whole arena, e.g. with a stored layout. Undoable like any other edit. */
+    public void applyLayout(List<Obstacle> newObstacles, float x, float y, float r) {
+        store.edit(st -> st.replacedBy(newObstacles, x, y, r));
     }
 
     public void updateRobot(float x, float y, float r) {
-        this.robotX = x;
-        this.robotY = y;
-        this.robotRotation = r;
-        invalidate();
+        store.update(st -> st.withRobot(x, y, r));
     }
 
     public void moveRobotForward() {
-        if (robotRotation == 0) robotY++;
-        else if (robotRotation == 90) robotX++;
-        else if (robotRotation == 180) robotY--;
-        else if (robotRotation == 270) robotX--;
-        constrainRobot();
-        invalidate();
+        store.update(st -> st.moved(1));
     }
 
     public void moveRobotBackward() {
-        if (robotRotation == 0) robotY--;
-        else if (robotRotation == 90) robotX--;
-        else if (robotRotation == 180) robotY++;
-        else if (robotRotation == 270) robotX++;
-        constrainRobot();
-        invalidate();
+        store.update(st -> st.moved(-1));
     }
 
     public void turnRobotLeft() {
-        moveRobotForward();
-        robotRotation = (robotRotation - 90 + 360) % 360;
-        moveRobotForward();
+        store.update(st -> st.turned(-90));
     }
 
     public void turnRobotRight() {
-        moveRobotForward();
-        robotRotation = (robotRotation + 90) % 360;
-        moveRobotForward();
+        store.update(st -> st.turned(90));
     }
 
-    private void constrainRobot() {
-        if (robotX < 1) robotX = 1;
-        if (robotX > 18) robotX = 18;
-        if (robotY < 1) robotY = 1;
-        if (robotY > 18) robotY = 18;
+    public void updateObstacleValue(int id, String value) {
+        store.update(st -> st.withValue(id, value));
     }
 
-    public void updateObstacleValue(int id, String value) {
-        for (Obstacle o : obstacles) {
-            if (o.id == id) {
-                o.value = value;
-                invalidate();
-                return;
-            }
-        }
+    /**
+     * Applies a batch of values indexed by obstacle id as one snapshot.
+     * Consumed entries are reset to null so the array can be reused.
+     */
+    public void updateObstacleValues(String[] valuesById) {
+        store.update(st -> st.withValues(valuesById));
+        Arrays.fill(valuesById, null);
     }
 
     public void addObstacle(int id, float x, float y) {
-        saveState();
-        obstacles.removeIf(o -> o.id == id);
-        obstacles.add(new Obstacle(id, x, y));
-        invalidate();
+        store.edit(st -> st.withObstacle(new Obstacle(id, x, y)));
+    }
+
+    /**
+     * Replaces the planner's route with {@code n} points, interleaved x, y in
+     * grid cells. The route belongs to the current arena epoch. Safe from any
+     * thread; the path is swapped under the render lock and drawn on the render thread.
+     */
+    public void setPlannedPath(float[] pts, int n) {
+        synchronized (renderLock) {
+            pathEpoch = store.get().epoch;
+            pathLayer.set(pts, n);
+        }
+        requestRedraw();
+    }
+
+    public void appendPlannedPath(float[] pts, int n) {
+        synchronized (renderLock) {
+            syncPathEpoch(store.get());
+            pathLayer.append(pts, n);
+        }
+        requestRedraw();
+    }
+
+    /** A reset or replaced arena drops the route drawn for the previous one. */
+    private void syncPathEpoch(ArenaState st) {
+        if (st.epoch != pathEpoch) {
+            pathEpoch = st.epoch;
+            pathLayer.clear();
+        }
+    }
+
+    /** Fraction of the arena the robot's footprint has covered since the last reset. */
+    public float getCoverage() {
+        return coverageLayer.getCoverage();
+    }
+
+    /**
+     * Takes the robot's explored map. It is telemetry rather than part of the
+     * arena state, so it is not undoable and survives a local reset.
+     */
+    public void updateExploredMap(long[] explored, long[] obstacles, long[] changed) {
+        mapLayer.update(explored, obstacles, changed);
+        requestRedraw();
+    }
+
+    /** Fraction of the arena the robot reports as explored. */
+    public float getExplored() {
+        return mapLayer.getExplored();
+    }
+
+    public void clearPlannedPath() {
+        synchronized (renderLock) {
+            pathLayer.clear();
+        }
+        requestRedraw();
     }
 
     public void clearMap() {
-        saveState();
-        obstacles.clear();
-        robotX = 1;
-        robotY = 1;
-        robotRotation = 0;
-        invalidate();
+        store.edit(ArenaState::cleared);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        synchronized (renderLock) {
+            pathLayer.release();
+            coverageLayer.release();
+            mapLayer.release();
+        }
     }
 
     @Override
     protected void onDraw(@NonNull Canvas canvas) {
         super.onDraw(canvas);
+        long start = System.nanoTime();
+        synchronized (renderLock) {
+            drawArena(canvas);
+        }
+        frameStats.record(System.nanoTime() - start);
+    }
+
+    private void drawArena(Canvas canvas) {
         calculateLayout();
+        ArenaState st = store.get(); // One consistent snapshot per frame
+        List<Obstacle> obstacles = st.obstacles;
+        syncPathEpoch(st);
 
         // Bank
         for (int i = 0; i < 10; i++) {
@@ -254,6 +351,10 @@ public class ArenaView extends View {
             drawObstacle(canvas, bx, bankY, cellWidth, cellHeight, String.valueOf(i), 0, (draggingId == i));
         }
 
+        // Coverage heatmap, under the grid lines and everything else
+        coverageLayer.draw(canvas, startX, startY, sideLength, sideLength);
+        mapLayer.draw(canvas, startX, startY, sideLength, sideLength);
+
         // Grid
         for (int i = 0; i <= gridCountX; i++) {
             float x = startX + i * cellWidth;
@@ -281,6 +382,13 @@ public class ArenaView extends View {
             drawObstacle(canvas, ox, oy, cellWidth, cellHeight, display, obs.direction, false);
         }
 
+        if (showViewingPoses) {
+            for (Obstacle obs : obstacles) drawViewingPose(canvas, viewingPoses.best(obs.id));
+        }
+
+        // Planned path; the layer only re-renders when the path changes
+        pathLayer.draw(canvas, getWidth(), getHeight(), startX, startY, cellWidth, cellHeight, gridCountY);
+
         // Dragging
         if (draggingId != -1) {
             String display = draggingValue.equals("none") ? String.valueOf(draggingId) : draggingValue;
@@ -288,13 +396,24 @@ public class ArenaView extends View {
         }
 
         // Robot (3x3)
-        if (robotX >= 0 && robotY >= 0) {
-            float rx = startX + (robotX + 0.5f) * cellWidth;
-            float ry = startY + (gridCountY - 1 - robotY + 0.5f) * cellHeight;
-            drawRobot(canvas, rx, ry, robotRotation, cellWidth);
+        if (st.robotX >= 0 && st.robotY >= 0) {
+            float rx = startX + (st.robotX + 0.5f) * cellWidth;
+            float ry = startY + (gridCountY - 1 - st.robotY + 0.5f) * cellHeight;
+            drawRobot(canvas, rx, ry, st.robotRotation, cellWidth);
         }
     }
 
+    /** A ring at the pose's centre cell with a tick pointing where the camera looks. */
+    private void drawViewingPose(Canvas canvas, ViewingPoses.Pose pose) {
+        if (pose == null) return;
+        float cx = startX + (pose.x + 0.5f) * cellWidth;
+        float cy = startY + (gridCountY - 1 - pose.y + 0.5f) * cellHeight;
+        float r = cellWidth * 0.35f;
+        canvas.drawCircle(cx, cy, r, posePaint);
+        double a = Math.toRadians(pose.rotation); // 0 points up the screen
+        canvas.drawLine(cx, cy, cx + (float) Math.sin(a) * r * 2, cy - (float) Math.cos(a) * r * 2, posePaint);
+    }
+
     private void drawObstacle(Canvas canvas, float x, float y, float w, float h, String label, int dir, boolean isDragging) {
         canvas.drawRect(x, y, x + w, y + h, obstaclePaint);
         canvas.drawText(label, x + w/2, y + h/2 + 7f, textPaint);
@@ -322,28 +441,31 @@ public class ArenaView extends View {
         canvas.save();
         canvas.translate(x, y);
 
-        Bitmap robotBitmap;
+        int facing;
         int rot = (int) rotation;
         switch(rot) {
             case 90:
-                robotBitmap = carRightBitmap;
+                facing = RobotSprites.RIGHT;
                 break;
             case 180:
-                robotBitmap = carDownBitmap;
+                facing = RobotSprites.DOWN;
                 break;
             case 270:
-                robotBitmap = carLeftBitmap;
+                facing = RobotSprites.LEFT;
                 break;
             case 0:
             default:
-                robotBitmap = carUpBitmap;
+                facing = RobotSprites.UP;
                 break;
         }
 
+        Bitmap robotBitmap = RobotSprites.get(getResources(), facing, spritesReady);
+        float bodySize = cellW * 3.0f;
         if (robotBitmap != null) {
-            float bodySize = cellW * 3.0f;
             Rect destRect = new Rect((int)(-bodySize/2), (int)(-bodySize/2), (int)(bodySize/2), (int)(bodySize/2));
             canvas.drawBitmap(robotBitmap, null, destRect, null);
+        } else {
+            canvas.drawRect(-bodySize / 2, -bodySize / 2, bodySize / 2, bodySize / 2, robotPaint);
         }
 
         canvas.restore();
@@ -351,9 +473,16 @@ public class ArenaView extends View {
 
     @Override
     public boolean onTouchEvent(MotionEvent event) {
+        synchronized (renderLock) {
+            return handleTouch(event);
+        }
+    }
+
+    private boolean handleTouch(MotionEvent event) {
         calculateLayout();
         float x = event.getX();
         float y = event.getY();
+        ArenaState st = store.get();
 
         switch (event.getAction()) {
             case MotionEvent.ACTION_DOWN:
@@ -367,9 +496,7 @@ public class ArenaView extends View {
                 if (y >= bankY && y <= bankY + cellHeight) {
                     int id = (int) (x / bankItemWidth);
                     if (id >= 0 && id < 10) {
-                        boolean alreadyPlaced = false;
-                        for (Obstacle o : obstacles) if (o.id == id) { alreadyPlaced = true; break; }
-                        if (!alreadyPlaced) {
+                        if (st.find(id) == null) {
                             draggingId = id;
                             draggingDirection = 0;
                             draggingValue = "none";
@@ -377,7 +504,7 @@ public class ArenaView extends View {
                             dragCurrentX = x;
                             dragCurrentY = y;
                             movedEnough = true; 
-                            invalidate();
+                            requestRedraw();
                             return true;
                         }
                     }
@@ -387,12 +514,8 @@ public class ArenaView extends View {
                 if (x >= startX && x <= startX + sideLength && y >= startY && y <= startY + sideLength) {
                     int gx = (int) ((x - startX) / cellWidth);
                     int gy = (gridCountY - 1) - (int) ((y - startY) / cellHeight);
-                    for (Obstacle o : obstacles) {
-                        if ((int)o.x == gx && (int)o.y == gy) {
-                            clickedObstacle = o;
-                            return true;
-                        }
-                    }
+                    clickedObstacle = st.obstacleAt(gx, gy);
+                    if (clickedObstacle != null) return true;
                 }
                 break;
 
@@ -401,13 +524,13 @@ public class ArenaView extends View {
                     float dx = x - touchStartX;
                     float dy = y - touchStartY;
                     if (Math.sqrt(dx*dx + dy*dy) > cellWidth / 3f) {
-                        saveState();
                         movedEnough = true;
                         draggingId = clickedObstacle.id;
                         draggingDirection = clickedObstacle.direction;
                         draggingValue = clickedObstacle.value;
                         isDraggingFromGrid = true;
-                        obstacles.remove(clickedObstacle);
+                        int id = clickedObstacle.id;
+                        store.edit(s -> s.withoutObstacle(id));
                         // No need to set clickedObstacle to null yet, but it's effectively being dragged
                     }
                 }
@@ -415,7 +538,7 @@ public class ArenaView extends View {
                 if (draggingId != -1) {
                     dragCurrentX = x;
                     dragCurrentY = y;
-                    invalidate();
+                    requestRedraw();
                     return true;
                 }
                 break;
@@ -426,20 +549,16 @@ public class ArenaView extends View {
                         int gx = (int) ((x - startX) / cellWidth);
                         int gy = (gridCountY - 1) - (int) ((y - startY) / cellHeight);
 
-                        boolean overlap = (gx >= robotX - 1 && gx <= robotX + 1 && gy >= robotY - 1 && gy <= robotY + 1);
-                        for (Obstacle o : obstacles) {
-                            if ((int) o.x == gx && (int) o.y == gy) {
-                                overlap = true;
-                                break;
-                            }
-                        }
-                        
+                        boolean overlap = (gx >= st.robotX - 1 && gx <= st.robotX + 1 && gy >= st.robotY - 1 && gy <= st.robotY + 1)
+                                || st.obstacleAt(gx, gy) != null;
+
                         if (!overlap) {
-                            if (!isDraggingFromGrid) saveState();
                             Obstacle newObs = new Obstacle(draggingId, gx, gy);
                             newObs.direction = draggingDirection;
                             newObs.value = draggingValue;
-                            obstacles.add(newObs);
+                            // Picking it up from the grid was already the undo step
+                            if (isDraggingFromGrid) store.update(s -> s.withObstacle(newObs));
+                            else store.edit(s -> s.withObstacle(newObs));
                         }
                     } else {
                         // Dragged out of grid
@@ -451,14 +570,15 @@ public class ArenaView extends View {
                     }
                     draggingId = -1;
                     clickedObstacle = null;
-                    invalidate();
+                    requestRedraw();
                     return true;
                 } else if (clickedObstacle != null) {
                     // It was a simple click
-                    saveState();
-                    clickedObstacle.direction = (clickedObstacle.direction + 1) % 4;
+                    int id = clickedObstacle.id;
+                    int direction = (clickedObstacle.direction + 1) % 4;
+                    store.edit(s -> s.withDirection(id, direction));
                     clickedObstacle = null;
-                    invalidate();
+                    requestRedraw();
                     return true;
                 }
                 break;
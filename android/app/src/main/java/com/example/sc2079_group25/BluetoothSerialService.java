@@ -11,128 +11,162 @@ import android.content.pm.PackageManager;
 import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
-import android.util.Log;
 
 import androidx.core.app.ActivityCompat;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.Method;
-import java.nio.charset.StandardCharsets;
-
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bluetooth SPP front end for {@link SerialConnection}. Supplies RFCOMM
+ * connectors and fans connection events out through {@link EventFanout}, so
+ * each listener receives them on the executor it registered with.
+ */
 public class BluetoothSerialService {
     private static final String TAG = "BtSerialService";
     private static final String NAME_SECURE = "BluetoothSerialServiceSecure";
+    private static final int RAW_TAP_BYTES = 4096;
+    private static final long RAW_SAMPLE_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    private static final long PROBE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(2);
+    private static final double BULK_PER_SECOND = 2;
+    private static final double BULK_BURST = 3;
 
-    private final Handler mainHandler = new Handler(Looper.getMainLooper());
-    private final BluetoothEventListener listener;
+    private final EventFanout listeners = new EventFanout();
     private final Context appContext;
     private final SharedPreferences prefs;
-
-    private ConnectThread connectThread;
-    private ConnectedThread connectedThread;
-    private AcceptThread acceptThread;
-
-    private volatile int state = BtConstants.STATE_NONE;
+    private final SerialConnection connection;
+    private final DeviceInfoCache infoCache;
+    private final RawTap rawTap = new RawTap(RAW_TAP_BYTES, RAW_SAMPLE_NANOS);
+    private final CommandEncoder encoder = new CommandEncoder(); // Guarded by itself
+    private final AtomicLong rxBytes = new AtomicLong();
+    private volatile SessionRecorder recorder;
+    private volatile boolean listenOnLinkDown = true;
+
+    // Keepalive probes, off until setHeartbeat(); the schedule is confined to the event loop
+    private final LinkQuality quality = new LinkQuality(PROBE_TIMEOUT_NANOS);
+    private volatile long heartbeatNanos = 0;
+    private volatile long staleNanos = 0;
+    private ScheduledFuture<?> heartbeat;
+
+    // Non-critical traffic, throttled by link quality
+    private final SendRateController bulkRate = new SendRateController(BULK_PER_SECOND, BULK_BURST, System.nanoTime());
+    private final Object bulkLock = new Object();
+    private String pendingBulk; // Guarded by bulkLock
+    private SentListener pendingBulkSent;
 
     public BluetoothSerialService(Context context, BluetoothEventListener listener) {
+        this(context, listener, new Handler(Looper.getMainLooper())::post);
+    }
+
+    /** Listener events are handed to {@code deliver}; use a direct executor to handle them off the main thread. */
+    public BluetoothSerialService(Context context, BluetoothEventListener listener, Executor deliver) {
         this.appContext = context.getApplicationContext();
-        this.listener = listener;
+        listeners.add(listener, deliver);
         this.prefs = appContext.getSharedPreferences(BtConstants.PREFS_NAME, Context.MODE_PRIVATE);
+        this.infoCache = DeviceInfoCache.getInstance(appContext);
+        this.connection = new SerialConnection(new ConnectionCallback());
     }
 
-    public synchronized int getState() { return state; }
+    /**
+     * Adds a listener that gets every event on {@code executor}: a direct
+     * executor for the reader thread, a {@link SerialExecutor} for a
+     * background worker, or a main-thread Handler's post for UI work.
+     */
+    public void addListener(BluetoothEventListener listener, Executor executor) {
+        listeners.add(listener, executor);
+    }
 
-    private void updateState(int newState, String detail) {
-        state = newState;
-        mainHandler.post(() -> listener.onConnectionStateChanged(newState, detail));
+    public void removeListener(BluetoothEventListener listener) {
+        listeners.remove(listener);
     }
 
-    public synchronized void connect(BluetoothDevice device) {
-        // Cancel any thread attempting to make a connection
-        if (state == BtConstants.STATE_CONNECTING) {
-            if (connectThread != null) {
-                connectThread.cancel();
-                connectThread = null;
-            }
-        }
+    public int getState() { return connection.getState(); }
+
+    /**
+     * Sends "PING,&lt;seq&gt;" every {@code periodMs} while connected and expects
+     * "PONG,&lt;seq&gt;" back. A link that has sent nothing at all for
+     * {@code staleMs} is dropped and, if outbound, reconnected. 0 turns it off.
+     */
+    public void setHeartbeat(long periodMs, long staleMs) {
+        BtExecutors.eventLoop().execute(() -> {
+            heartbeatNanos = TimeUnit.MILLISECONDS.toNanos(periodMs);
+            staleNanos = TimeUnit.MILLISECONDS.toNanos(staleMs);
+            stopHeartbeat();
+            if (periodMs > 0 && connection.getState() == BtConstants.STATE_CONNECTED) startHeartbeat();
+        });
+    }
 
-        // Cancel any thread currently running a connection
-        if (connectedThread != null) {
-            connectedThread.cancel();
-            connectedThread = null;
-        }
+    public boolean isHeartbeatOn() {
+        return heartbeatNanos > 0;
+    }
 
-        updateState(BtConstants.STATE_CONNECTING, "Connecting to " + safeDeviceName(device));
+    public LinkQuality getLinkQuality() {
+        return quality;
+    }
 
-        connectThread = new ConnectThread(device);
-        connectThread.start();
+    private void startHeartbeat() {
+        quality.reset(System.nanoTime());
+        heartbeat = BtExecutors.eventLoop().scheduleAtFixedRate(this::probe,
+                heartbeatNanos, heartbeatNanos, TimeUnit.NANOSECONDS);
     }
 
-    private synchronized void connected(BluetoothSocket socket, BluetoothDevice device) {
-        // Cancel the thread that completed the connection
-        if (connectThread != null) {
-            connectThread.cancel();
-            connectThread = null;
+    private void stopHeartbeat() {
+        if (heartbeat != null) {
+            heartbeat.cancel(false);
+            heartbeat = null;
         }
+    }
 
-        // Cancel any thread currently running a connection
-        if (connectedThread != null) {
-            connectedThread.cancel();
-            connectedThread = null;
+    /** Event loop; the write itself goes to the IO pool, as a congested socket can block. */
+    private void probe() {
+        long now = System.nanoTime();
+        quality.expire(now);
+        bulkRate.setQuality(quality.score(), now);
+        if (quality.isStale(now, staleNanos)) {
+            stopHeartbeat();
+            connection.dropLink("Nothing received for " + TimeUnit.NANOSECONDS.toMillis(staleNanos) + " ms");
+            return;
         }
+        String ping = LinkQuality.PING + quality.nextProbe(now);
+        BtExecutors.io().execute(() -> writeLine(ping));
+    }
 
-        // Cancel the accept thread because we're now connected
-        if (acceptThread != null) {
-            acceptThread.cancel();
-            acceptThread = null;
-        }
+    /** Records every line, state change and error from now on; null stops recording. */
+    public void setRecorder(SessionRecorder recorder) {
+        this.recorder = recorder;
+    }
 
-        updateState(BtConstants.STATE_CONNECTED, "Connected to " + safeDeviceName(device));
+    /** Raw bytes as read from the link; off unless the raw pane is enabled. */
+    public RawTap getRawTap() {
+        return rawTap;
+    }
 
-        try {
-            connectedThread = new ConnectedThread(socket);
-            connectedThread.start();
-        } catch (IOException e) {
-            Log.e(TAG, "ConnectedThread initiation failed", e);
-            postError("Failed to start data thread", e);
-            disconnect();
-        }
+    /** Bytes read from the device, line endings and unparsed data included. */
+    public long getRxBytes() {
+        return rxBytes.get();
     }
 
-    public synchronized void startListening() {
-        if (connectedThread != null) {
-            connectedThread.cancel();
-            connectedThread = null;
-        }
-        if (connectThread != null) {
-            connectThread.cancel();
-            connectThread = null;
-        }
+    /** Only one link can own the SPP server socket; others just stay down when their peer leaves. */
+    public void setListenOnLinkDown(boolean listen) {
+        listenOnLinkDown = listen;
+    }
 
-        if (acceptThread == null) {
-            acceptThread = new AcceptThread();
-            acceptThread.start();
-        }
-        updateState(BtConstants.STATE_LISTENING, "Waiting for device...");
+    public void connect(BluetoothDevice device) {
+        connection.open(() -> new DeviceAttempt(device), "Connecting to " + safeDeviceName(device));
     }
 
-    public synchronized void disconnect() {
-        if (connectThread != null) {
-            connectThread.cancel();
-            connectThread = null;
-        }
-        if (connectedThread != null) {
-            connectedThread.cancel();
-            connectedThread = null;
-        }
-        if (acceptThread != null) {
-            acceptThread.cancel();
-            acceptThread = null;
-        }
-        updateState(BtConstants.STATE_NONE, "Disconnected");
+    public void startListening() {
+        connection.listen(AcceptAttempt::new, "Waiting for device...");
+    }
+
+    public void disconnect() {
+        connection.close();
     }
 
     public void reconnect() {
@@ -153,26 +187,111 @@ public class BluetoothSerialService {
         }
     }
 
-    public void writeLine(String text) {
-        ConnectedThread r;
-        synchronized (this) {
-            if (state != BtConstants.STATE_CONNECTED || connectedThread == null) return;
-            r = connectedThread;
+    public boolean isReconnecting() {
+        return connection.isReconnecting();
+    }
+
+    /** Time from link loss to the restored connection for the last auto-reconnect, or -1. */
+    public long getLastReconnectMillis() {
+        return connection.getLastReconnectMillis();
+    }
+
+    public int getReconnectCount() {
+        return connection.getReconnectCount();
+    }
+
+    /**
+     * Sends {@code text} with a CRLF ending. Fixed commands go out as cached
+     * bytes and anything else is encoded into a reused buffer, so steady-state
+     * sends do not allocate. Returns the number of bytes written, or 0 if
+     * nothing was.
+     */
+    public int writeLine(String text) {
+        if (connection.getState() != BtConstants.STATE_CONNECTED) return 0;
+        if (BtLog.isLoggable(BtLog.DEBUG)) BtLog.d(TAG, "Writing: {}", text.trim());
+        int n;
+        byte[] fixed = CommandEncoder.constant(text);
+        if (fixed != null) {
+            n = connection.write(fixed, 0, fixed.length) ? fixed.length : 0;
+        } else {
+            synchronized (encoder) {
+                n = encoder.encode(text);
+                if (!connection.write(encoder.buffer(), 0, n)) n = 0;
+            }
         }
-        if (!text.endsWith("\r\n")) {
-            if (text.endsWith("\n")) text = text.substring(0, text.length() - 1) + "\r\n";
-            else text = text + "\r\n";
+        if (n > 0) {
+            SessionRecorder r = recorder;
+            if (r != null) r.recordTx(text.trim());
         }
-        Log.d(TAG, "Writing: " + text.replace("\r", "[R]").replace("\n", "[N]"));
-        r.write(text.getBytes(StandardCharsets.UTF_8));
+        return n;
+    }
+
+    /** Told when a deferrable line has actually been written. */
+    public interface SentListener {
+        /** Called on an IO pool thread with the number of bytes written. */
+        void onSent(String line, int bytes);
+    }
+
+    /**
+     * For traffic that can wait, such as bulk obstacle uploads or status polls.
+     * Writes right away if the rate controller allows; otherwise holds the line
+     * until it does, a newer line replacing a held one. The write itself runs on
+     * the IO pool, never on the caller's thread. {@code onSent} (may be null)
+     * hears about lines that were written; a replaced line is never written.
+     * Returns false if the line was held.
+     */
+    public boolean writeLineDeferrable(String text, SentListener onSent) {
+        synchronized (bulkLock) {
+            long now = System.nanoTime();
+            if (pendingBulk != null || !bulkRate.tryAcquire(now)) {
+                if (pendingBulk == null) scheduleBulk(bulkRate.nanosUntilAvailable(now));
+                pendingBulk = text;
+                pendingBulkSent = onSent;
+                return false;
+            }
+        }
+        writeLater(text, onSent);
+        return true;
+    }
+
+    private void writeLater(String text, SentListener onSent) {
+        BtExecutors.io().execute(() -> {
+            int n = writeLine(text);
+            if (n > 0 && onSent != null) onSent.onSent(text, n);
+        });
+    }
+
+    private void scheduleBulk(long delayNanos) {
+        BtExecutors.eventLoop().schedule(this::flushBulk, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void flushBulk() {
+        String text;
+        SentListener onSent;
+        synchronized (bulkLock) {
+            long now = System.nanoTime();
+            if (!bulkRate.tryAcquire(now)) {
+                scheduleBulk(bulkRate.nanosUntilAvailable(now));
+                return;
+            }
+            text = pendingBulk;
+            onSent = pendingBulkSent;
+            pendingBulk = null;
+            pendingBulkSent = null;
+        }
+        if (text != null) writeLater(text, onSent);
     }
 
     private void postLine(String line) {
-        mainHandler.post(() -> listener.onLineReceived(line));
+        SessionRecorder r = recorder;
+        if (r != null) r.recordRx(line);
+        listeners.onLineReceived(line);
     }
 
     private void postError(String msg, Throwable t) {
-        mainHandler.post(() -> listener.onError(msg, t));
+        SessionRecorder r = recorder;
+        if (r != null) r.recordError(msg);
+        listeners.onError(msg, t);
     }
 
     private boolean hasConnectPermission() {
@@ -181,93 +300,143 @@ public class BluetoothSerialService {
                 == PackageManager.PERMISSION_GRANTED;
     }
 
+    /** Non-blocking; shows the address until the cache has resolved the name. */
     private String safeDeviceName(BluetoothDevice device) {
-        if (device == null) return "Unknown device";
-        try {
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S && !hasConnectPermission()) {
-                return device.getAddress();
+        return infoCache.displayName(device);
+    }
+
+    private void saveLastDevice(BluetoothDevice device, int strategy) {
+        prefs.edit()
+                .putString(BtConstants.KEY_LAST_DEVICE, device.getAddress())
+                .putInt(BtConstants.KEY_STRATEGY_PREFIX + device.getAddress(), strategy)
+                .apply();
+    }
+
+    /** Strategies to try for a device, starting with the one that last succeeded. */
+    private int[] strategyOrder(BluetoothDevice device) {
+        int preferred = prefs.getInt(BtConstants.KEY_STRATEGY_PREFIX + device.getAddress(),
+                BtConstants.STRATEGY_SECURE);
+        int[] order = {BtConstants.STRATEGY_SECURE, BtConstants.STRATEGY_INSECURE, BtConstants.STRATEGY_FALLBACK};
+        for (int i = order.length - 1; i > 0; i--) {
+            if (order[i] == preferred) {
+                System.arraycopy(order, 0, order, 1, i);
+                order[0] = preferred;
+                break;
             }
-            String name = device.getName();
-            return (name != null && !name.isEmpty()) ? name : device.getAddress();
-        } catch (SecurityException e) {
-            return device.getAddress();
         }
+        return order;
     }
 
-    private void saveLastDevice(BluetoothDevice device) {
-        prefs.edit().putString(BtConstants.KEY_LAST_DEVICE, device.getAddress()).apply();
-    }
+    private class ConnectionCallback implements SerialConnection.Callback {
+        @Override
+        public void onStateChanged(int state, String detail) {
+            stopHeartbeat();
+            if (state == BtConstants.STATE_CONNECTED && heartbeatNanos > 0) startHeartbeat();
+            SessionRecorder r = recorder;
+            if (r != null) r.recordState(state, detail);
+            listeners.onConnectionStateChanged(state, detail);
+        }
 
-    private class AcceptThread extends Thread {
-        private final BluetoothServerSocket serverSocket;
+        @Override
+        public void onRawData(byte[] buffer, int length) {
+            BtLog.d(TAG, "Read {} bytes from device", length);
+            rxBytes.addAndGet(length);
+            rawTap.offer(buffer, length);
+        }
 
-        public AcceptThread() {
-            BluetoothServerSocket tmp = null;
-            try {
-                BluetoothAdapter adapter = BluetoothAdapter.getDefaultAdapter();
-                if (hasConnectPermission()) {
-                    tmp = adapter.listenUsingRfcommWithServiceRecord(NAME_SECURE, BtConstants.SPP_UUID);
+        @Override
+        public void onLine(String line) {
+            if (heartbeatNanos > 0) {
+                long now = System.nanoTime();
+                int seq = LinkQuality.parsePong(line);
+                if (seq >= 0) {
+                    quality.onPong(seq, now);
+                    return; // Replies to our own probes are not shown or recorded
                 }
-            } catch (IOException | SecurityException e) {
-                Log.e(TAG, "Socket listen() failed", e);
+                quality.onHeard(now);
             }
-            serverSocket = tmp;
+            postLine(line);
         }
 
-        public void run() {
-            setName("AcceptThread");
-            BluetoothSocket socket = null;
+        @Override
+        public void onError(String message, Throwable t) {
+            BtLog.e(TAG, message, t);
+            postError(message, t);
+        }
 
-            while (state != BtConstants.STATE_CONNECTED && serverSocket != null) {
-                try {
-                    socket = serverSocket.accept();
-                } catch (IOException e) {
-                    Log.e(TAG, "Socket accept() failed", e);
-                    break;
-                }
+        @Override
+        public void onLinkDown() {
+            // Nothing to reconnect to: wait for the device to connect to us instead
+            if (listenOnLinkDown) startListening();
+        }
+    }
 
-                if (socket != null) {
-                    synchronized (BluetoothSerialService.this) {
-                        switch (state) {
-                            case BtConstants.STATE_LISTENING:
-                            case BtConstants.STATE_CONNECTING:
-                                connected(socket, socket.getRemoteDevice());
-                                break;
-                            case BtConstants.STATE_NONE:
-                            case BtConstants.STATE_CONNECTED:
-                                try {
-                                    socket.close();
-                                } catch (IOException e) {
-                                    Log.e(TAG, "Could not close unwanted socket", e);
-                                }
-                                break;
-                        }
-                    }
-                }
+    private static class SocketTransport implements SerialConnection.Transport {
+        private final BluetoothSocket socket;
+        private final String peerName;
+
+        SocketTransport(BluetoothSocket socket, String peerName) {
+            this.socket = socket;
+            this.peerName = peerName;
+        }
+
+        @Override public InputStream getInputStream() throws IOException { return socket.getInputStream(); }
+        @Override public OutputStream getOutputStream() throws IOException { return socket.getOutputStream(); }
+        @Override public String getPeerName() { return peerName; }
+        @Override public void close() throws IOException { socket.close(); }
+    }
+
+    private class AcceptAttempt implements SerialConnection.Attempt {
+        private volatile BluetoothServerSocket serverSocket;
+        private volatile boolean cancelled = false;
+
+        @Override
+        public SerialConnection.Transport connect() throws IOException {
+            if (!hasConnectPermission()) throw new IOException("Missing BLUETOOTH_CONNECT permission");
+            BluetoothAdapter adapter = BluetoothAdapter.getDefaultAdapter();
+            if (adapter == null) throw new IOException("Bluetooth not supported");
+            try {
+                serverSocket = adapter.listenUsingRfcommWithServiceRecord(NAME_SECURE, BtConstants.SPP_UUID);
+            } catch (SecurityException e) {
+                throw new IOException("Socket listen() failed", e);
+            }
+            if (cancelled) {
+                cancel();
+                throw new IOException("Listen cancelled");
+            }
+
+            try {
+                BluetoothSocket socket = serverSocket.accept();
+                return new SocketTransport(socket, infoCache.resolveName(socket.getRemoteDevice()));
+            } finally {
+                // One peer at a time: stop advertising once accepted
+                cancel();
             }
         }
 
+        @Override
         public void cancel() {
+            cancelled = true;
             try {
-                if (serverSocket != null) serverSocket.close();
+                BluetoothServerSocket s = serverSocket;
+                if (s != null) s.close();
             } catch (IOException e) {
-                Log.e(TAG, "ServerSocket close() failed", e);
+                BtLog.e(TAG, "ServerSocket close() failed", e);
             }
         }
     }
 
-    private class ConnectThread extends Thread {
+    private class DeviceAttempt implements SerialConnection.Attempt {
         private final BluetoothDevice device;
-        private BluetoothSocket socket;
+        private volatile BluetoothSocket socket;
+        private volatile boolean cancelled = false;
 
-        ConnectThread(BluetoothDevice device) {
+        DeviceAttempt(BluetoothDevice device) {
             this.device = device;
         }
 
         @Override
-        public void run() {
-            setName("ConnectThread-" + device.getAddress());
-
+        public SerialConnection.Transport connect() throws IOException {
             BluetoothAdapter adapter = BluetoothAdapter.getDefaultAdapter();
             if (adapter != null) {
                 try {
@@ -275,128 +444,50 @@ public class BluetoothSerialService {
                 } catch (SecurityException ignored) {}
             }
 
-            try {
+            Exception lastError = null;
+            for (int strategy : strategyOrder(device)) {
+                if (cancelled) break;
                 try {
-                    Log.d(TAG, "Attempting Secure RFCOMM connection...");
-                    socket = device.createRfcommSocketToServiceRecord(BtConstants.SPP_UUID);
+                    socket = openSocket(strategy);
                     socket.connect();
-                } catch (IOException e) {
-                    Log.w(TAG, "Secure connect failed, trying insecure...", e);
+                    saveLastDevice(device, strategy);
+                    return new SocketTransport(socket, infoCache.resolveName(device));
+                } catch (Exception e) {
+                    BtLog.w(TAG, "Connect strategy {} failed", strategy, e);
+                    lastError = e;
                     try {
-                        socket = device.createInsecureRfcommSocketToServiceRecord(BtConstants.SPP_UUID);
-                        socket.connect();
-                    } catch (IOException e2) {
-                        Log.w(TAG, "Insecure failed, trying fallback...", e2);
-                        Method m = device.getClass().getMethod("createRfcommSocket", int.class);
-                        socket = (BluetoothSocket) m.invoke(device, 1);
-                        socket.connect();
-                    }
-                }
-
-                saveLastDevice(device);
-
-                synchronized (BluetoothSerialService.this) {
-                    connectThread = null;
-                }
-                connected(socket, device);
-
-            } catch (Exception e) {
-                Log.e(TAG, "Connect failed", e);
-                postError("Connection failed: " + e.getMessage(), e);
-                try {
-                    if (socket != null) socket.close();
-                } catch (IOException ignored) {}
-                
-                synchronized (BluetoothSerialService.this) {
-                    connectThread = null;
-                    updateState(BtConstants.STATE_NONE, "Connection failed");
+                        if (socket != null) socket.close();
+                    } catch (IOException ignored) {}
+                    socket = null;
                 }
             }
+            if (cancelled) throw new IOException("Connect cancelled");
+            throw new IOException(lastError != null ? lastError.getMessage() : "unknown", lastError);
         }
 
-        void cancel() {
-            try { if (socket != null) socket.close(); } catch (IOException ignored) {}
-        }
-    }
-
-    private class ConnectedThread extends Thread {
-        private final BluetoothSocket socket;
-        private final InputStream in;
-        private final OutputStream out;
-        private final ByteArrayOutputStream lineBuffer = new ByteArrayOutputStream();
-
-        ConnectedThread(BluetoothSocket socket) throws IOException {
-            this.socket = socket;
-            this.in = socket.getInputStream();
-            this.out = socket.getOutputStream();
-        }
-
-        @Override
-        public void run() {
-            setName("ConnectedThread");
-            byte[] buffer = new byte[1024];
-
-            try {
-                Log.d(TAG, "ConnectedThread started, waiting for data...");
-                while (state == BtConstants.STATE_CONNECTED) {
-                    int n = in.read(buffer);
-                    if (n == -1) {
-                        Log.d(TAG, "InputStream.read() returned -1 (EOF)");
-                        break;
-                    }
-
-                    Log.d(TAG, "Read " + n + " bytes from device");
-                    String rawData = new String(buffer, 0, n, StandardCharsets.UTF_8);
-                    postLine(rawData.replace("\r", "[R]").replace("\n", "[N]"));
-
-                    for (int i = 0; i < n; i++) {
-                        byte b = buffer[i];
-                        if (b == '\n' || b == '\r') {
-                            if (lineBuffer.size() > 0) {
-                                byte[] bytes = lineBuffer.toByteArray();
-                                String line = new String(bytes, StandardCharsets.UTF_8).trim();
-                                if (!line.isEmpty()) {
-                                    postLine("MSG: " + line);
-                                }
-                                lineBuffer.reset();
-                            }
-                        } else {
-                            lineBuffer.write(b);
-                        }
-                    }
-                }
-            } catch (IOException e) {
-                if (state == BtConstants.STATE_CONNECTED) {
-                    Log.e(TAG, "ConnectedThread IOException during read", e);
-                    postError("Connection lost: " + e.getMessage(), e);
-                }
-            } finally {
-                Log.d(TAG, "ConnectedThread exiting");
-                
-                synchronized (BluetoothSerialService.this) {
-                    if (state == BtConstants.STATE_CONNECTED) {
-                        // Unexpected disconnection
-                        mainHandler.post(BluetoothSerialService.this::startListening);
-                    } else {
-                        // Expected disconnection (manual)
-                        cancel();
-                    }
-                }
+        private BluetoothSocket openSocket(int strategy) throws IOException, ReflectiveOperationException {
+            switch (strategy) {
+                case BtConstants.STRATEGY_INSECURE:
+                    BtLog.d(TAG, "Attempting Insecure RFCOMM connection...");
+                    return device.createInsecureRfcommSocketToServiceRecord(BtConstants.SPP_UUID);
+                case BtConstants.STRATEGY_FALLBACK:
+                    BtLog.d(TAG, "Attempting fallback RFCOMM channel 1...");
+                    Method m = device.getClass().getMethod("createRfcommSocket", int.class);
+                    return (BluetoothSocket) m.invoke(device, 1);
+                case BtConstants.STRATEGY_SECURE:
+                default:
+                    BtLog.d(TAG, "Attempting Secure RFCOMM connection...");
+                    return device.createRfcommSocketToServiceRecord(BtConstants.SPP_UUID);
             }
         }
 
-        void write(byte[] bytes) {
+        @Override
+        public void cancel() {
+            cancelled = true;
             try {
-                out.write(bytes);
-                out.flush();
-            } catch (IOException e) {
-                Log.e(TAG, "Error during write", e);
-                postError("Send failed", e);
-            }
-        }
-
-        void cancel() {
-            try { socket.close(); } catch (IOException ignored) {}
+                BluetoothSocket s = socket;
+                if (s != null) s.close();
+            } catch (IOException ignored) {}
         }
     }
 }
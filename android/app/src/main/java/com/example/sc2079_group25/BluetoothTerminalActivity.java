@@ -8,14 +8,23 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.content.pm.PackageManager;
+import android.graphics.Color;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.view.Choreographer;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewStub;
 import android.widget.Button;
 import android.widget.EditText;
 import android.widget.FrameLayout;
 import android.widget.ImageButton;
+import android.widget.LinearLayout;
 import android.widget.ScrollView;
 import android.widget.TextView;
 import android.widget.Toast;
@@ -36,26 +45,110 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
-public class BluetoothTerminalActivity extends AppCompatActivity implements BluetoothEventListener {
+public class BluetoothTerminalActivity extends AppCompatActivity implements LinkManager.Listener {
+
+    private static final String TAG = "BluetoothTerminal";
+    private static final String TRACE_FIRST_FRAME = "timeToFirstFrame";
+    private static final int MAX_SESSIONS = 20;
+    // Typed into the send box; handled locally instead of being sent to the robot
+    private static final String CMD_DUMP_LOG = "/dumplog";
+    // "/script f every 150 for 3000; tr" runs a timed script; see CommandScheduler.Script
+    private static final String CMD_SCRIPT = "/script ";
+    private static final String CMD_PAUSE = "/pause";
+    private static final String CMD_ABORT = "/abort";
+    // "/find [tx|rx|state|error] [type:TARGET] [text]" searches the whole terminal history
+    private static final String CMD_FIND = "/find";
+    private static final int FIND_SHOWN = 200;
+    private static final long RAW_REFRESH_MS = 250;
+    // Probe once a second; a link silent for 3 s is dropped and reconnected
+    private static final long HEARTBEAT_MS = 1000;
+    private static final long HEARTBEAT_STALE_MS = 3000;
+    private static final String[] RAW_MODE_LABELS = {"Raw: Off", "Raw: Sampled", "Raw: Hex"};
 
     private BluetoothAdapter btAdapter;
-    private BluetoothSerialService serial;
+    private LinkManager links;
 
     private DeviceListAdapter deviceAdapter;
+    private DeviceInfoCache deviceInfoCache;
 
-    private TextView txtConnState, txtTerminal, txtRobotStatus;
+    private TextView txtConnState, txtTerminal, txtRobotStatus, txtRaw, txtArenaTitle;
+    private ViewGroup arenaContainer;
     private EditText edtSend;
-    private ScrollView scrollTerminal;
+    private ScrollView scrollTerminal, scrollRaw;
+    private Button btnRawMode;
     private ArenaView arenaView;
 
     private TabLayout tabLayout;
-    private View layoutBluetooth, layoutGrid;
+    private View layoutBluetooth;
+    private View layoutGrid; // Null until the Grid tab is first opened
+    private ViewStub stubGrid;
 
     private boolean pendingStartDiscovery = false;
     private AlertDialog scanDialog;
 
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private SessionRecorder recorder;
+    private SessionReplayer replayer;
+    private RobotLink replayLink; // Replays never feed a live link
+    private ArenaLayoutStore layoutStore;
+
+    // Arena renderer: false draws on the UI thread, true on a SurfaceView render thread
+    private boolean renderThread = false;
+    private final Map<ArenaView, ArenaSurfaceView> surfaces = new HashMap<>();
+
+    // Run clock: ticks on display frames while a run is going, one text update per tenth
+    private TextView txtRunClock;
+    private RobotLink runLink;
+
+    // Timed scripts go to the link that was active when they started
+    private volatile RobotLink scriptLink;
+    private final CommandScheduler scheduler = new CommandScheduler(
+            cmd -> {
+                RobotLink l = scriptLink;
+                if (l != null) l.send(cmd);
+            },
+            report -> links.postTerminal("[Script] " + report));
+    private long runTenthsShown = -1;
+    private final Choreographer.FrameCallback runClock = new Choreographer.FrameCallback() {
+        @Override public void doFrame(long frameTimeNanos) {
+            RunTimeline t = runLink.getTimeline();
+            showRunClock(t.elapsedNanos(System.nanoTime()));
+            if (t.isRunning()) Choreographer.getInstance().postFrameCallback(this);
+        }
+    };
+
+    // Renders the raw tap while its pane is on screen; not posted otherwise
+    private int rawMode = RawTap.MODE_OFF;
+    private long rawVersionShown = -1;
+    private final Runnable rawRefresh = new Runnable() {
+        @Override public void run() {
+            RawTap tap = links.getActive().getService().getRawTap();
+            if (tap.getVersion() != rawVersionShown) {
+                rawVersionShown = tap.getVersion();
+                txtRaw.setText(tap.render());
+                scrollRaw.post(() -> scrollRaw.fullScroll(ScrollView.FOCUS_DOWN));
+            }
+            mainHandler.postDelayed(this, RAW_REFRESH_MS);
+        }
+    };
+
+    private final StringBuilder frameText = new StringBuilder();
+    private final TerminalHistory history = new TerminalHistory();
+    private final TerminalWindow terminalWindow = new TerminalWindow(); // The view keeps the tail; history keeps it all
+    private String connStateShown = "";
+
     private final ActivityResultLauncher<Intent> enableBtLauncher =
             registerForActivityResult(new ActivityResultContracts.StartActivityForResult(), result -> {
                 if (btAdapter != null && btAdapter.isEnabled()) {
@@ -75,10 +168,19 @@ public class BluetoothTerminalActivity extends AppCompatActivity implements Blue
 
             if (BluetoothDevice.ACTION_FOUND.equals(action)) {
                 BluetoothDevice device = intent.getParcelableExtra(BluetoothDevice.EXTRA_DEVICE);
-                if (device != null) deviceAdapter.upsert(device);
+                short rssi = intent.getShortExtra(BluetoothDevice.EXTRA_RSSI, Short.MIN_VALUE);
+                if (device != null) {
+                    deviceInfoCache.onSighting(device, intent.getStringExtra(BluetoothDevice.EXTRA_NAME), rssi);
+                    deviceAdapter.upsert(device, rssi);
+                }
+
+            } else if (BluetoothDevice.ACTION_NAME_CHANGED.equals(action)
+                    || BluetoothDevice.ACTION_BOND_STATE_CHANGED.equals(action)) {
+                BluetoothDevice device = intent.getParcelableExtra(BluetoothDevice.EXTRA_DEVICE);
+                if (device != null) deviceInfoCache.invalidate(device);
 
             } else if (BluetoothAdapter.ACTION_DISCOVERY_FINISHED.equals(action)) {
-                appendTerminal("[Scan] Discovery finished");
+                appendTerminal("[Scan] Discovery finished (" + deviceInfoCache.statsSummary() + ")");
                 if (scanDialog != null && scanDialog.isShowing()) {
                     scanDialog.setTitle("Select Device (Scan finished)");
                 }
@@ -88,7 +190,11 @@ public class BluetoothTerminalActivity extends AppCompatActivity implements Blue
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        // Critical phase: only what the Bluetooth tab needs for its first frame.
+        // The Grid tab, Bluetooth prompts, paired devices and recording come later.
+        Trace.beginSection("onCreate");
         super.onCreate(savedInstanceState);
+        BtLog.init(this);
         setContentView(R.layout.system_ui);
 
         Toolbar toolbar = findViewById(R.id.toolbar);
@@ -96,69 +202,159 @@ public class BluetoothTerminalActivity extends AppCompatActivity implements Blue
 
         tabLayout = findViewById(R.id.tabLayout);
         layoutBluetooth = findViewById(R.id.layoutBluetooth);
-        layoutGrid = findViewById(R.id.layoutGrid);
+        stubGrid = findViewById(R.id.stubGrid);
 
         txtConnState = findViewById(R.id.txtConnState);
         txtTerminal = findViewById(R.id.txtTerminal);
-        txtRobotStatus = findViewById(R.id.txtRobotStatus);
         edtSend = findViewById(R.id.edtSend);
         scrollTerminal = findViewById(R.id.scrollTerminal);
-        arenaView = findViewById(R.id.arenaView);
+        txtRaw = findViewById(R.id.txtRaw);
+        scrollRaw = findViewById(R.id.scrollRaw);
+        btnRawMode = findViewById(R.id.btnRawMode);
 
         Button btnScan = findViewById(R.id.btnScan);
         Button btnSend = findViewById(R.id.btnSend);
         Button btnDisconnect = findViewById(R.id.btnDisconnect);
         Button btnReconnect = findViewById(R.id.btnReconnect);
-        Button btnUndo = findViewById(R.id.btnUndo);
-        Button btnRedo = findViewById(R.id.btnRedo);
-        Button btnReset = findViewById(R.id.btnReset);
-        Button btnSendObs = findViewById(R.id.btnSendObs);
-        Button btnTask1 = findViewById(R.id.btnTask1);
-        Button btnTask2 = findViewById(R.id.btnTask2);
+        Button btnReplay = findViewById(R.id.btnReplay);
+        Button btnLinks = findViewById(R.id.btnLinks);
 
-        // Robot control buttons
-        ImageButton btnForward = findViewById(R.id.btnForward);
-        ImageButton btnReverse = findViewById(R.id.btnReverse);
-        ImageButton btnLeft = findViewById(R.id.btnLeft);
-        ImageButton btnRight = findViewById(R.id.btnRight);
+        deviceInfoCache = DeviceInfoCache.getInstance(this);
 
         RecyclerView recycler = findViewById(R.id.recyclerDevices);
         recycler.setLayoutManager(new LinearLayoutManager(this));
         deviceAdapter = new DeviceListAdapter(this, this::onDeviceSelected);
+        deviceAdapter.setKnownRobotAddress(getSharedPreferences(BtConstants.PREFS_NAME, MODE_PRIVATE)
+                .getString(BtConstants.KEY_LAST_DEVICE, null));
         recycler.setAdapter(deviceAdapter);
 
         btAdapter = BluetoothAdapter.getDefaultAdapter();
         if (btAdapter == null) {
             Toast.makeText(this, "Bluetooth not supported", Toast.LENGTH_LONG).show();
             finish();
+            Trace.endSection();
             return;
         }
 
-        serial = new BluetoothSerialService(this, this);
+        links = new LinkManager(this, this);
+        links.addLink(); // Its arena view arrives with the Grid tab; the model holds changes until then
 
         btnScan.setOnClickListener(v -> {
             pendingStartDiscovery = true;
             startScanFlow();
         });
 
-        btnDisconnect.setOnClickListener(v -> serial.disconnect());
+        btnDisconnect.setOnClickListener(v -> links.getActive().getService().disconnect());
 
         btnReconnect.setOnClickListener(v -> {
             if (!hasConnectPermission()) {
                 requestBtPermissions();
                 return;
             }
-            serial.reconnect();
+            links.getActive().getService().reconnect();
         });
 
+        btnReplay.setOnClickListener(v -> showReplayDialog());
+
+        btnRawMode.setOnClickListener(v -> setRawMode((rawMode + 1) % RAW_MODE_LABELS.length));
+        btnLinks.setOnClickListener(v -> showLinksDialog());
+
         btnSend.setOnClickListener(v -> {
             String text = edtSend.getText().toString();
             if (text.trim().isEmpty()) return;
 
+            if (text.trim().equals(CMD_DUMP_LOG)) {
+                dumpLog();
+                edtSend.setText("");
+                return;
+            }
+            if (handleScriptCommand(text.trim())) {
+                edtSend.setText("");
+                return;
+            }
+            if (text.trim().equals(CMD_FIND) || text.trim().startsWith(CMD_FIND + " ")) {
+                findInHistory(text.trim().substring(CMD_FIND.length()).trim());
+                edtSend.setText("");
+                return;
+            }
             sendBluetoothCommand(text);
             edtSend.setText("");
         });
 
+
+        tabLayout.addOnTabSelectedListener(new TabLayout.OnTabSelectedListener() {
+            @Override
+            public void onTabSelected(TabLayout.Tab tab) {
+                if (tab.getPosition() == 0) {
+                    layoutBluetooth.setVisibility(View.VISIBLE);
+                    if (layoutGrid != null) layoutGrid.setVisibility(View.GONE);
+                    updateRawRefresh();
+                } else {
+                    layoutBluetooth.setVisibility(View.GONE);
+                    ensureGrid().setVisibility(View.VISIBLE);
+                    updateRawRefresh();
+                }
+            }
+
+            @Override
+            public void onTabUnselected(TabLayout.Tab tab) {
+            }
+
+            @Override
+            public void onTabReselected(TabLayout.Tab tab) {
+            }
+        });
+
+        // Deferred phase: runs once the first frame is on screen
+        Trace.beginAsyncSection(TRACE_FIRST_FRAME, 0);
+        Choreographer.getInstance().postFrameCallback(t -> mainHandler.post(this::onFirstFrame));
+        Trace.endSection();
+    }
+
+    private void onFirstFrame() {
+        Trace.endAsyncSection(TRACE_FIRST_FRAME, 0);
+        if (isDestroyed()) return;
+        BtLog.i(TAG, "First frame {} ms after process start",
+                SystemClock.uptimeMillis() - Process.getStartUptimeMillis());
+
+        Trace.beginSection("startup.deferred");
+        RobotSprites.prefetch(getResources()); // Ready before the Grid tab is opened
+        layoutStore = new ArenaLayoutStore(new File(getFilesDir(), "layouts"));
+        startRecording();
+        ensureBluetoothEnabled();
+        preloadPairedDevices();
+        Trace.endSection();
+        reportFullyDrawn();
+    }
+
+    /** Inflates the Grid tab the first time it is needed. */
+    private View ensureGrid() {
+        if (layoutGrid != null) return layoutGrid;
+        Trace.beginSection("inflateGrid");
+        layoutGrid = stubGrid.inflate();
+        stubGrid = null;
+
+        txtRobotStatus = findViewById(R.id.txtRobotStatus);
+        txtRunClock = findViewById(R.id.txtRunClock);
+        arenaView = findViewById(R.id.arenaView);
+        arenaContainer = findViewById(R.id.arenaContainer);
+        txtArenaTitle = findViewById(R.id.txtArenaTitle);
+
+        Button btnUndo = findViewById(R.id.btnUndo);
+        Button btnRedo = findViewById(R.id.btnRedo);
+        Button btnReset = findViewById(R.id.btnReset);
+        Button btnSaveLayout = findViewById(R.id.btnSaveLayout);
+        Button btnLoadLayout = findViewById(R.id.btnLoadLayout);
+        Button btnSendObs = findViewById(R.id.btnSendObs);
+        Button btnTask1 = findViewById(R.id.btnTask1);
+        Button btnTask2 = findViewById(R.id.btnTask2);
+
+        // Robot control buttons
+        ImageButton btnForward = findViewById(R.id.btnForward);
+        ImageButton btnReverse = findViewById(R.id.btnReverse);
+        ImageButton btnLeft = findViewById(R.id.btnLeft);
+        ImageButton btnRight = findViewById(R.id.btnRight);
+
         btnUndo.setOnClickListener(v -> arenaView.revert());
         btnRedo.setOnClickListener(v -> arenaView.deRevert());
         btnReset.setOnClickListener(v -> {
@@ -167,50 +363,24 @@ public class BluetoothTerminalActivity extends AppCompatActivity implements Blue
             Toast.makeText(this, "Arena reset", Toast.LENGTH_SHORT).show();
         });
 
-        btnSendObs.setOnClickListener(v -> {
-            try {
-                JSONObject root = new JSONObject();
-                root.put("cat", "obstacles");
-                
-                JSONArray obsArray = new JSONArray();
-                for (ArenaView.Obstacle obs : arenaView.getObstacles()) {
-                    JSONObject obsJson = new JSONObject();
-                    obsJson.put("x", (int) obs.x);
-                    obsJson.put("y", (int) obs.y);
-                    obsJson.put("id", obs.id);
-                    
-                    int d = 0; // N=0, E=2, S=4, W=6 based on common 8-dir models, or just 0,1,2,3
-                    // The current code uses 0=N, 1=E, 2=S, 3=W. Let's keep that or map to degrees.
-                    // Assuming target wants a specific mapping for direction:
-                    int dirValue = 0;
-                    if (obs.direction == 1) dirValue = 1; // E
-                    else if (obs.direction == 2) dirValue = 2; // S
-                    else if (obs.direction == 3) dirValue = 3; // W
-                    
-                    obsJson.put("d", dirValue);
-                    obsArray.put(obsJson);
-                }
-                root.put("value", obsArray);
-                
-                String jsonStr = root.toString();
-                sendBluetoothCommand(jsonStr);
-                Toast.makeText(this, "Obstacles sent (JSON)", Toast.LENGTH_SHORT).show();
-                
-            } catch (JSONException e) {
-                Toast.makeText(this, "Error creating JSON", Toast.LENGTH_SHORT).show();
-            }
-        });
+        btnSaveLayout.setOnClickListener(v -> showSaveLayoutDialog());
+        btnLoadLayout.setOnClickListener(v -> showLoadLayoutDialog());
+
+        btnSendObs.setOnClickListener(v -> sendObstacles());
 
         btnTask1.setOnClickListener(v -> {
-            sendBluetoothCommand("Task1:Start");
+            startRun(RobotCommands.TASK1_START);
             Toast.makeText(this, "Task 1 started", Toast.LENGTH_SHORT).show();
         });
 
         btnTask2.setOnClickListener(v -> {
-            sendBluetoothCommand("Task2:Start");
+            startRun(RobotCommands.TASK2_START);
             Toast.makeText(this, "Task 2 started", Toast.LENGTH_SHORT).show();
         });
 
+        // Tap the run clock to end the run and get its breakdown
+        txtRunClock.setOnClickListener(v -> stopRun());
+
         // Control button listeners with LOCAL UI update first
         btnForward.setOnClickListener(v -> {
             arenaView.moveRobotForward();
@@ -229,38 +399,62 @@ public class BluetoothTerminalActivity extends AppCompatActivity implements Blue
             sendBluetoothCommand(RobotCommands.TURN_RIGHT);
         });
 
-        tabLayout.addOnTabSelectedListener(new TabLayout.OnTabSelectedListener() {
-            @Override
-            public void onTabSelected(TabLayout.Tab tab) {
-                if (tab.getPosition() == 0) {
-                    layoutBluetooth.setVisibility(View.VISIBLE);
-                    layoutGrid.setVisibility(View.GONE);
-                } else {
-                    layoutBluetooth.setVisibility(View.GONE);
-                    layoutGrid.setVisibility(View.VISIBLE);
-                }
-            }
+        links.getLinks().get(0).setView(arenaView);
+        showActiveArenas();
+        Trace.endSection();
+        return layoutGrid;
+    }
 
-            @Override
-            public void onTabUnselected(TabLayout.Tab tab) {
+    private void sendObstacles() {
+        try {
+            JSONObject root = new JSONObject();
+            root.put("cat", "obstacles");
+            
+            JSONArray obsArray = new JSONArray();
+            for (ArenaView.Obstacle obs : arenaView.getObstacles()) {
+                JSONObject obsJson = new JSONObject();
+                obsJson.put("x", (int) obs.x);
+                obsJson.put("y", (int) obs.y);
+                obsJson.put("id", obs.id);
+                
+                int d = 0; // N=0, E=2, S=4, W=6 based on common 8-dir models, or just 0,1,2,3
+                // The current code uses 0=N, 1=E, 2=S, 3=W. Let's keep that or map to degrees.
+                // Assuming target wants a specific mapping for direction:
+                int dirValue = 0;
+                if (obs.direction == 1) dirValue = 1; // E
+                else if (obs.direction == 2) dirValue = 2; // S
+                else if (obs.direction == 3) dirValue = 3; // W
+                
+                obsJson.put("d", dirValue);
+                obsArray.put(obsJson);
             }
-
-            @Override
-            public void onTabReselected(TabLayout.Tab tab) {
+            root.put("value", obsArray);
+            
+            String jsonStr = root.toString();
+            // A bulk upload can wait for a degraded link; movement commands cannot
+            RobotLink link = links.getActive();
+            if (link.getState() != BtConstants.STATE_CONNECTED) {
+                Toast.makeText(this, "Not connected to a device", Toast.LENGTH_SHORT).show();
+                return;
             }
-        });
-
-        ensureBluetoothEnabled();
-        preloadPairedDevices();
+            // Logged once it has actually been written; a queued upload may be superseded
+            String prefix = link.prefix();
+            boolean now = link.sendDeferrable(jsonStr, (line, bytes) -> links.postTerminal(prefix + "[TX] " + line));
+            Toast.makeText(this, now ? "Sending obstacles (JSON)" : "Obstacles queued; link is degraded",
+                    Toast.LENGTH_SHORT).show();
+            
+        } catch (JSONException e) {
+            Toast.makeText(this, "Error creating JSON", Toast.LENGTH_SHORT).show();
+        }
     }
 
     private void sendBluetoothCommand(String cmd) {
-        if (serial.getState() != BtConstants.STATE_CONNECTED) {
+        RobotLink link = links.getActive();
+        if (!link.send(cmd)) {
             Toast.makeText(this, "Not connected to a device", Toast.LENGTH_SHORT).show();
             return;
         }
-        serial.writeLine(cmd);
-        appendTerminal("[TX] " + cmd);
+        appendTerminal(link.prefix() + "[TX] " + cmd);
     }
 
     @Override
@@ -269,12 +463,17 @@ public class BluetoothTerminalActivity extends AppCompatActivity implements Blue
         IntentFilter f = new IntentFilter();
         f.addAction(BluetoothDevice.ACTION_FOUND);
         f.addAction(BluetoothAdapter.ACTION_DISCOVERY_FINISHED);
+        f.addAction(BluetoothDevice.ACTION_NAME_CHANGED);
+        f.addAction(BluetoothDevice.ACTION_BOND_STATE_CHANGED);
         registerReceiver(discoveryReceiver, f);
+        updateRawRefresh();
     }
 
     @Override
     protected void onStop() {
         super.onStop();
+        if (recorder != null) recorder.flush();
+        mainHandler.removeCallbacks(rawRefresh);
         try {
             unregisterReceiver(discoveryReceiver);
         } catch (Exception ignored) {}
@@ -289,6 +488,321 @@ public class BluetoothTerminalActivity extends AppCompatActivity implements Blue
         } catch (SecurityException ignored) {}
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        Choreographer.getInstance().removeFrameCallback(runClock);
+        scheduler.abort();
+        if (replayer != null) replayer.cancel();
+        if (deviceAdapter != null) deviceAdapter.release();
+        if (links != null) {
+            links.getLinks().get(0).getService().setRecorder(null);
+            links.release();
+        }
+        if (recorder != null) recorder.close();
+    }
+
+    private File sessionsDir() {
+        File dir = new File(getFilesDir(), "sessions");
+        if (!dir.exists()) dir.mkdirs();
+        return dir;
+    }
+
+    private void startRecording() {
+        pruneSessions(MAX_SESSIONS - 1);
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        try {
+            recorder = new SessionRecorder(new File(sessionsDir(), "session-" + stamp + ".bin"));
+            // Recordings cover the first link only, so they replay as a single robot
+            links.getLinks().get(0).getService().setRecorder(recorder);
+        } catch (IOException e) {
+            appendTerminal("[Error] Session recording disabled: " + e.getMessage());
+        }
+    }
+
+    private void pruneSessions(int keep) {
+        File[] files = sessionsDir().listFiles((dir, name) -> name.endsWith(".bin"));
+        if (files == null || files.length <= keep) return;
+        Arrays.sort(files, (a, b) -> b.getName().compareTo(a.getName()));
+        for (int i = keep; i < files.length; i++) files[i].delete();
+    }
+
+    private void setRawMode(int mode) {
+        rawMode = mode;
+        for (RobotLink l : links.getLinks()) l.getService().getRawTap().setMode(mode);
+        btnRawMode.setText(RAW_MODE_LABELS[mode]);
+        scrollRaw.setVisibility(mode == RawTap.MODE_OFF ? View.GONE : View.VISIBLE);
+        if (mode == RawTap.MODE_OFF) txtRaw.setText("");
+        rawVersionShown = -1;
+        updateRawRefresh();
+    }
+
+    /** Polls the raw tap only while the raw pane is actually visible. */
+    private void updateRawRefresh() {
+        mainHandler.removeCallbacks(rawRefresh);
+        if (links != null && rawMode != RawTap.MODE_OFF
+                && layoutBluetooth.getVisibility() == View.VISIBLE) {
+            mainHandler.post(rawRefresh);
+        }
+    }
+
+    private void startRun(String command) {
+        if (runLink != null && runLink.getTimeline().isRunning()) stopRun();
+        runLink = links.getActive();
+        // Stamped before sending so the start is not delayed by the write
+        runLink.getTimeline().start(command, System.nanoTime());
+        sendBluetoothCommand(command);
+        runTenthsShown = -1;
+        Choreographer.getInstance().removeFrameCallback(runClock);
+        Choreographer.getInstance().postFrameCallback(runClock);
+    }
+
+    private void stopRun() {
+        if (runLink == null || !runLink.getTimeline().isRunning()) return;
+        RunTimeline t = runLink.getTimeline();
+        t.stop(System.nanoTime());
+        showRunClock(t.elapsedNanos(0));
+        appendTerminal("[Run] " + runLink.prefix() + t.breakdown());
+
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        RunTimeline.Snapshot events = t.snapshot();
+        BtExecutors.io().execute(() -> {
+            File file = new File(sessionsDir(), "run-" + stamp + ".csv");
+            try {
+                events.export(file);
+                links.postTerminal("[Run] Timeline written to " + file.getAbsolutePath());
+            } catch (IOException e) {
+                links.postTerminal("[Error] Timeline export failed: " + e.getMessage());
+            }
+        });
+    }
+
+    private void showRunClock(long nanos) {
+        long tenths = nanos / 100_000_000L;
+        if (tenths == runTenthsShown) return;
+        runTenthsShown = tenths;
+        txtRunClock.setText(String.format(Locale.US, "Run %02d:%02d.%d",
+                tenths / 600, (tenths / 10) % 60, tenths % 10));
+    }
+
+    /** Returns false if {@code text} is not a script command. */
+    private boolean handleScriptCommand(String text) {
+        if (text.startsWith(CMD_SCRIPT)) {
+            CommandScheduler.Script script;
+            try {
+                script = CommandScheduler.Script.parse(text.substring(CMD_SCRIPT.length()));
+            } catch (IllegalArgumentException e) {
+                appendTerminal("[Script] " + e.getMessage());
+                return true;
+            }
+            RobotLink link = links.getActive();
+            if (link.getState() != BtConstants.STATE_CONNECTED) {
+                Toast.makeText(this, "Not connected to a device", Toast.LENGTH_SHORT).show();
+                return true;
+            }
+            scriptLink = link;
+            scheduler.start(script);
+            appendTerminal(String.format(Locale.US, "%s[Script] %d commands over %.2f s",
+                    link.prefix(), script.size(), script.durationNanos() / 1e9));
+            return true;
+        }
+        if (text.equals(CMD_PAUSE)) {
+            if (!scheduler.isRunning()) return true;
+            if (scheduler.isPaused()) scheduler.resume();
+            else scheduler.pause();
+            appendTerminal(scheduler.isPaused() ? "[Script] Paused" : "[Script] Resumed");
+            return true;
+        }
+        if (text.equals(CMD_ABORT)) {
+            scheduler.abort();
+            return true;
+        }
+        return false;
+    }
+
+    /** The search runs on the IO pool; only the result dialog touches the main thread. */
+    private void findInHistory(String query) {
+        int tag = TerminalHistory.TAG_ANY;
+        String type = null;
+        StringBuilder text = new StringBuilder();
+        for (String word : query.split("\\s+")) {
+            if (word.isEmpty()) continue;
+            // A tag name only counts before the search text starts
+            int t = text.length() == 0 ? TerminalHistory.tagNamed(word) : TerminalHistory.TAG_ANY;
+            if (t != TerminalHistory.TAG_ANY && tag == TerminalHistory.TAG_ANY) tag = t;
+            else if (word.startsWith("type:") && type == null) type = word.substring("type:".length());
+            else text.append(text.length() == 0 ? "" : " ").append(word);
+        }
+        int findTag = tag;
+        String findType = type;
+        BtExecutors.io().execute(() -> {
+            TerminalHistory.Result r = history.search(findTag, findType, text.toString(), FIND_SHOWN);
+            mainHandler.post(() -> {
+                if (isDestroyed()) return;
+                String title = String.format(Locale.US, "%d of %d lines (%.1f ms)%s",
+                        r.total, history.size(), r.nanos / 1e6, r.total > r.lines.length ? ", latest shown" : "");
+                if (r.total == 0) {
+                    Toast.makeText(this, title, Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                new AlertDialog.Builder(this)
+                        .setTitle(title)
+                        .setItems(r.lines, null)
+                        .setNegativeButton("Close", null)
+                        .show();
+            });
+        });
+    }
+
+    private void dumpLog() {
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        File file = new File(sessionsDir(), "log-" + stamp + ".txt");
+        try {
+            int n = BtLog.dump(file);
+            appendTerminal("[Log] " + n + " records written to " + file.getAbsolutePath());
+        } catch (IOException e) {
+            appendTerminal("[Error] Log dump failed: " + e.getMessage());
+        }
+    }
+
+    private void showReplayDialog() {
+        File[] files = sessionsDir().listFiles((dir, name) -> name.endsWith(".bin"));
+        if (files != null && recorder != null) {
+            files = Arrays.stream(files).filter(f -> !f.equals(recorder.getFile())).toArray(File[]::new);
+        }
+        if (files == null || files.length == 0) {
+            Toast.makeText(this, "No recorded sessions", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        // Newest first
+        Arrays.sort(files, (a, b) -> b.getName().compareTo(a.getName()));
+        File[] sessions = files;
+        String[] names = new String[sessions.length];
+        for (int i = 0; i < sessions.length; i++) names[i] = sessions[i].getName();
+
+        new AlertDialog.Builder(this)
+                .setTitle("Replay session")
+                .setItems(names, (d, which) -> showReplaySpeedDialog(sessions[which]))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void showReplaySpeedDialog(File session) {
+        String[] labels = {"1x", "4x", "16x", "Max"};
+        float[] speeds = {1f, 4f, 16f, SessionReplayer.SPEED_MAX};
+        new AlertDialog.Builder(this)
+                .setTitle("Replay speed")
+                .setItems(labels, (d, which) -> startReplay(session, speeds[which]))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void startReplay(File session, float speed) {
+        if (replayer != null) replayer.cancel();
+        if (replayLink != null && links.getLinks().contains(replayLink)) {
+            surfaces.remove(replayLink.getView());
+            links.removeLink(replayLink);
+        }
+        // A link of its own: a live link's dispatcher, counters and arena belong to its reader thread
+        RobotLink link = links.addLink();
+        link.setView(newArenaView());
+        link.getService().getRawTap().setMode(rawMode);
+        links.setActive(links.size() - 1);
+        replayLink = link;
+        showActiveArenas();
+        appendTerminal("[Replay] " + session.getName() + " on " + link.getLabel());
+        replayer = new SessionReplayer(session, link, Runnable::run);
+        replayer.start(speed, (events, elapsedNanos) ->
+                links.postTerminal("[Replay] " + events + " events in " + (elapsedNanos / 1_000_000L) + " ms"));
+    }
+
+    private void showSaveLayoutDialog() {
+        EditText input = new EditText(this);
+        input.setHint("Layout name");
+        new AlertDialog.Builder(this)
+                .setTitle("Save layout")
+                .setView(input)
+                .setPositiveButton("Save", (d, which) -> {
+                    String name = input.getText().toString().trim();
+                    if (name.isEmpty()) name = "Layout " + new SimpleDateFormat("MM-dd HH:mm", Locale.US).format(new Date());
+                    ArenaLayoutStore.Layout layout = new ArenaLayoutStore.Layout(name, arenaView.getRobotX(),
+                            arenaView.getRobotY(), arenaView.getRobotRotation(), arenaView.getObstacles());
+                    BtExecutors.io().execute(() -> {
+                        String result;
+                        try {
+                            layoutStore.save(layout);
+                            result = "Layout saved";
+                        } catch (IOException | IllegalArgumentException e) {
+                            result = "Save failed: " + e.getMessage();
+                        }
+                        String text = result;
+                        mainHandler.post(() -> {
+                            if (!isDestroyed()) Toast.makeText(this, text, Toast.LENGTH_SHORT).show();
+                        });
+                    });
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void showLoadLayoutDialog() {
+        BtExecutors.io().execute(() -> {
+            List<ArenaLayoutStore.Entry> entries;
+            try {
+                entries = layoutStore.list();
+            } catch (IOException e) {
+                mainHandler.post(() -> {
+                    if (!isDestroyed()) Toast.makeText(this, "Cannot read layouts: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                });
+                return;
+            }
+            mainHandler.post(() -> {
+                if (!isDestroyed()) showLoadLayoutDialog(entries);
+            });
+        });
+    }
+
+    private void showLoadLayoutDialog(List<ArenaLayoutStore.Entry> entries) {
+        if (entries.isEmpty()) {
+            Toast.makeText(this, "No saved layouts", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        String[] names = new String[entries.size()];
+        for (int i = 0; i < names.length; i++) {
+            ArenaLayoutStore.Entry e = entries.get(i);
+            names[i] = e.name + " (" + e.obstacleCount + " obs)";
+        }
+
+        int[] selected = {0};
+        new AlertDialog.Builder(this)
+                .setTitle("Load layout")
+                .setSingleChoiceItems(names, 0, (d, which) -> selected[0] = which)
+                .setPositiveButton("Load", (d, which) -> loadLayout(entries.get(selected[0]), false))
+                .setNeutralButton("Load & Send", (d, which) -> loadLayout(entries.get(selected[0]), true))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void loadLayout(ArenaLayoutStore.Entry entry, boolean upload) {
+        BtExecutors.io().execute(() -> {
+            ArenaLayoutStore.Layout layout;
+            try {
+                layout = layoutStore.load(entry.id);
+            } catch (IOException e) {
+                mainHandler.post(() -> {
+                    if (!isDestroyed()) Toast.makeText(this, "Load failed: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                });
+                return;
+            }
+            mainHandler.post(() -> {
+                if (isDestroyed()) return;
+                arenaView.applyLayout(layout.obstacles, layout.robotX, layout.robotY, layout.robotRotation);
+                if (upload) sendObstacles();
+                else Toast.makeText(this, "Loaded " + layout.name, Toast.LENGTH_SHORT).show();
+            });
+        });
+    }
+
     private void ensureBluetoothEnabled() {
         if (!btAdapter.isEnabled()) {
             Intent intent = new Intent(BluetoothAdapter.ACTION_REQUEST_ENABLE);
@@ -296,15 +810,25 @@ public class BluetoothTerminalActivity extends AppCompatActivity implements Blue
         }
     }
 
+    /** getBondedDevices() is a binder call, so the query runs off the main thread. */
     private void preloadPairedDevices() {
-        if (btAdapter == null || !btAdapter.isEnabled() || !hasConnectPermission()) return;
+        if (btAdapter == null || !hasConnectPermission()) return;
 
-        try {
-            Set<BluetoothDevice> bonded = btAdapter.getBondedDevices();
-            if (bonded != null) {
-                for (BluetoothDevice d : bonded) deviceAdapter.upsert(d);
+        BtExecutors.io().execute(() -> {
+            List<BluetoothDevice> bonded;
+            try {
+                if (!btAdapter.isEnabled()) return;
+                Set<BluetoothDevice> set = btAdapter.getBondedDevices();
+                if (set == null) return;
+                bonded = new ArrayList<>(set);
+            } catch (SecurityException e) {
+                return;
             }
-        } catch (SecurityException ignored) {}
+            mainHandler.post(() -> {
+                if (isDestroyed()) return;
+                for (BluetoothDevice d : bonded) deviceAdapter.upsertBonded(d);
+            });
+        });
     }
 
     private void startScanFlow() {
@@ -374,14 +898,21 @@ public class BluetoothTerminalActivity extends AppCompatActivity implements Blue
         try {
             if (btAdapter != null && btAdapter.isDiscovering()) btAdapter.cancelDiscovery();
         } catch (SecurityException ignored) {}
-        serial.connect(device);
+        links.getActive().getService().connect(device);
     }
 
     private void appendTerminal(String line) {
-        txtTerminal.append(line + "\n");
+        history.append(line);
+        appendToTerminal(line + "\n");
         scrollTerminal.post(() -> scrollTerminal.fullScroll(ScrollView.FOCUS_DOWN));
     }
 
+    private void appendToTerminal(CharSequence text) {
+        txtTerminal.append(text);
+        int cut = terminalWindow.onAppended(text, txtTerminal.getText());
+        if (cut > 0) txtTerminal.getEditableText().delete(0, cut);
+    }
+
     private boolean hasScanPermission() {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
             return ActivityCompat.checkSelfPermission(this, Manifest.permission.BLUETOOTH_SCAN)
@@ -428,119 +959,144 @@ public class BluetoothTerminalActivity extends AppCompatActivity implements Blue
     }
 
     @Override
-    public void onConnectionStateChanged(int state, String detail) {
-        String s;
-        if (state == BtConstants.STATE_CONNECTED) s = "Connected";
-        else if (state == BtConstants.STATE_CONNECTING) s = "Connecting";
-        else if (state == BtConstants.STATE_LISTENING) s = "Listening (Waiting for device)";
-        else s = "Not connected";
-
-        txtConnState.setText(s + " - " + detail);
-        appendTerminal("[State] " + s);
-    }
-
-    @Override
-    public void onLineReceived(String line) {
-        appendTerminal("[RX] " + line);
-        
-        // Handle "TARGET, <id>, <Value>" protocol
-        if (line.startsWith("TARGET,")) {
-            try {
-                String[] parts = line.split(",");
-                if (parts.length >= 3) {
-                    int id = Integer.parseInt(parts[1].trim());
-                    String value = parts[2].trim();
-                    
-                    // New restriction: Only accept first two characters and must be Digit
-                    if (value.length() >= 2) {
-                        String firstTwo = value.substring(0, 2);
-                        if (Character.isDigit(firstTwo.charAt(0)) && Character.isDigit(firstTwo.charAt(1))) {
-                            arenaView.updateObstacleValue(id, firstTwo);
-                        } else {
-                            appendTerminal("[Error] First two characters must be digits: " + firstTwo);
-                        }
-                    } else {
-                        appendTerminal("[Error] Target value too short (need at least 2 digits): " + value);
-                    }
-                }
-            } catch (Exception e) {
-                appendTerminal("[Error] Failed to parse target update: " + line);
-            }
+    public void onFrame() {
+        if (layoutGrid == null) {
+            drainTerminalFrame();
+            updateConnState();
             return;
         }
+        drainTerminalFrame();
 
-        // Handle "ROBOT, <x>, <y>, <direction>" protocol
-        if (line.startsWith("ROBOT,")) {
-            try {
-                String[] parts = line.split(",");
-                if (parts.length >= 4) {
-                    float rx = Float.parseFloat(parts[1].trim());
-                    float ry = Float.parseFloat(parts[2].trim());
-                    String dirStr = parts[3].trim().toUpperCase();
-                    float rotation = 0;
-                    if (dirStr.equals("E")) rotation = 90;
-                    else if (dirStr.equals("S")) rotation = 180;
-                    else if (dirStr.equals("W")) rotation = 270;
-                    
-                    arenaView.updateRobot(rx, ry, rotation);
-                }
-            } catch (Exception e) {
-                appendTerminal("[Error] Failed to parse robot update: " + line);
-            }
-            return;
-        }
+        // Links that are not on screen keep their changes in their model until shown
+        RobotLink active = links.getActive();
+        active.getModel().applyTo(active.getView());
+        RobotLink partner = links.getSplitPartner();
+        if (partner != null) partner.getModel().applyTo(partner.getView());
 
-        tryParseRobotData(line);
+        String status = active.getModel().takeStatus();
+        if (status != null) txtRobotStatus.setText(status);
+        updateConnState();
     }
 
-    private void tryParseRobotData(String line) {
-        if (line == null) return;
-
-        try {
-            // Find start of any JSON object in the line
-            int start = line.indexOf("{");
-            if (start == -1) return;
-            int end = line.lastIndexOf("}");
-            if (end == -1 || end < start) return;
-
-            String jsonStr = line.substring(start, end + 1);
-            JSONObject json = new JSONObject(jsonStr);
-
-            // Handle Status
-            if (json.has("status")) {
-                txtRobotStatus.setText(json.getString("status"));
-            }
+    private void drainTerminalFrame() {
+        frameText.setLength(0);
+        if (links.drainTerminal(frameText, history) > 0) {
+            appendToTerminal(frameText);
+            scrollTerminal.post(() -> scrollTerminal.fullScroll(ScrollView.FOCUS_DOWN));
+        }
+    }
 
-            // Handle Robot Position: {"robot": {"x": 10, "y": 5, "r": 90}}
-            if (json.has("robot")) {
-                JSONObject robot = json.getJSONObject("robot");
-                float x = (float) robot.getDouble("x");
-                float y = (float) robot.getDouble("y");
-                float r = (float) robot.getDouble("r");
-                arenaView.updateRobot(x, y, r);
-            }
+    private void updateConnState() {
+        RobotLink active = links.getActive();
+        String s = active.prefix() + RobotLink.stateName(active.getState()) + " - " + active.getDetail();
+        BluetoothSerialService service = active.getService();
+        if (service.isHeartbeatOn() && active.getState() == BtConstants.STATE_CONNECTED) {
+            s += "\n" + service.getLinkQuality().summary();
+        }
+        if (links.size() > 1) s += "\n" + links.throughputSummary();
+        if (!s.equals(connStateShown)) {
+            connStateShown = s;
+            txtConnState.setText(s);
+        }
+    }
 
-            // Handle Obstacle: {"obstacle": {"id": 1, "x": 8, "y": 8}}
-            if (json.has("obstacle")) {
-                JSONObject obs = json.getJSONObject("obstacle");
-                int id = obs.getInt("id");
-                float ox = (float) obs.getDouble("x");
-                float oy = (float) obs.getDouble("y");
-                arenaView.addObstacle(id, ox, oy);
-            }
+    private void showLinksDialog() {
+        List<RobotLink> all = links.getLinks();
+        List<String> items = new ArrayList<>();
+        for (RobotLink l : all) {
+            String mark = l == links.getActive() ? "\u25B6 " : "";
+            items.add(mark + l.getLabel() + ": " + RobotLink.stateName(l.getState()) + " " + l.getDetail());
+        }
+        int addAt = items.size();
+        items.add("Add link");
+        boolean canRemove = links.getActive() != all.get(0);
+        if (all.size() > 1) items.add(links.isSplit() ? "Single view" : "Split view");
+        if (canRemove) items.add("Remove " + links.getActive().getLabel());
+        ArenaView shown = links.getActive().getView();
+        int posesAt = shown != null ? items.size() : -1;
+        if (shown != null) items.add("Viewing poses: " + (shown.isShowingViewingPoses() ? "shown" : "hidden"));
+        BluetoothSerialService activeService = links.getActive().getService();
+        int heartbeatAt = items.size();
+        items.add("Heartbeat: " + (activeService.isHeartbeatOn() ? "on (" + activeService.getLinkQuality().summary() + ")" : "off"));
+        int rendererAt = items.size();
+        items.add("Renderer: " + (renderThread ? "render thread" : "UI thread")
+                + (shown != null ? " (" + shown.getFrameStats().summary() + ")" : ""));
+
+        new AlertDialog.Builder(this)
+                .setTitle("Links (" + links.throughputSummary() + ")")
+                .setItems(items.toArray(new String[0]), (d, which) -> {
+                    if (which < addAt) {
+                        links.setActive(which);
+                    } else if (which == addAt) {
+                        RobotLink link = links.addLink();
+                        link.setView(newArenaView());
+                        link.getService().getRawTap().setMode(rawMode);
+                        links.setActive(links.size() - 1);
+                        appendTerminal("[Links] Added " + link.getLabel() + "; scan to connect it");
+                    } else if (which == posesAt) {
+                        shown.setShowViewingPoses(!shown.isShowingViewingPoses());
+                    } else if (which == heartbeatAt) {
+                        boolean on = !activeService.isHeartbeatOn();
+                        activeService.setHeartbeat(on ? HEARTBEAT_MS : 0, HEARTBEAT_STALE_MS);
+                        appendTerminal(links.getActive().prefix() + "[Link] Heartbeat " + (on ? "on" : "off"));
+                    } else if (which == rendererAt) {
+                        renderThread = !renderThread;
+                        appendTerminal("[Arena] Drawing on the " + (renderThread ? "render" : "UI") + " thread");
+                    } else if (which == addAt + 1 && all.size() > 1) {
+                        links.setSplit(!links.isSplit());
+                    } else {
+                        surfaces.remove(links.getActive().getView());
+                        links.removeLink(links.getActive());
+                    }
+                    showActiveArenas();
+                })
+                .show();
+    }
 
-            // Handle Map Clear: {"clear": true}
-            if (json.has("clear") && json.getBoolean("clear")) {
-                arenaView.clearMap();
-            }
+    private ArenaView newArenaView() {
+        ArenaView v = new ArenaView(this);
+        v.setLayoutParams(new LinearLayout.LayoutParams(0, ViewGroup.LayoutParams.MATCH_PARENT, 1f));
+        v.setBackgroundColor(Color.WHITE);
+        v.setClickable(true);
+        v.setFocusable(true);
+        v.setContentDescription("Exploration arena map");
+        return v;
+    }
 
-        } catch (JSONException ignored) {
-            // Not a valid JSON or doesn't match expected pattern
+    /** The view to attach for {@code v}: itself, or its render-thread surface. */
+    private View arenaHost(ArenaView v) {
+        if (!renderThread) return v;
+        ArenaSurfaceView surface = surfaces.get(v);
+        if (surface == null) {
+            surface = new ArenaSurfaceView(this, v);
+            surfaces.put(v, surface);
         }
+        return surface;
     }
 
-    @Override
-    public void onError(String message, Throwable t) {
-        appendTerminal("[Error] " + message);
+    /** Attaches the arena view(s) of the links on screen; detached views cost nothing to update. */
+    private void showActiveArenas() {
+        if (layoutGrid == null) {
+            updateConnState(); // Shown when the Grid tab is first opened
+            return;
+        }
+        RobotLink active = links.getActive();
+        RobotLink partner = links.getSplitPartner();
+        arenaContainer.removeAllViews();
+        arenaContainer.addView(arenaHost(active.getView()));
+        if (partner != null) arenaContainer.addView(arenaHost(partner.getView()));
+        arenaView = active.getView();
+
+        active.getModel().applyTo(active.getView());
+        if (partner != null) partner.getModel().applyTo(partner.getView());
+        if (links.size() > 1) {
+            String title = "Exploration Arena - " + active.getLabel();
+            if (partner != null) title += " | " + partner.getLabel();
+            txtArenaTitle.setText(title);
+        } else {
+            txtArenaTitle.setText("Exploration Arena");
+        }
+        rawVersionShown = -1;
+        updateConnState();
     }
 }
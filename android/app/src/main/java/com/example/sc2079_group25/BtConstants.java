@@ -16,4 +16,11 @@ public final class BtConstants {
 
     public static final String PREFS_NAME = "BT_TERMINAL_PREFS";
     public static final String KEY_LAST_DEVICE = "last_device_addr";
+    // Suffixed with the device address, e.g. "connect_strategy_AA:BB:CC:DD:EE:FF"
+    public static final String KEY_STRATEGY_PREFIX = "connect_strategy_";
+
+    // RFCOMM socket strategies, in default try order
+    public static final int STRATEGY_SECURE = 0;
+    public static final int STRATEGY_INSECURE = 1;
+    public static final int STRATEGY_FALLBACK = 2;
 }
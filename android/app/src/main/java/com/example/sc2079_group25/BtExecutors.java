@@ -0,0 +1,38 @@
+package com.example.sc2079_group25;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Process-wide executors shared by every {@link SerialConnection}, so adding
+ * links costs one reader thread each rather than a full set of role threads.
+ */
+public final class BtExecutors {
+    private BtExecutors() {}
+
+    private static final ScheduledExecutorService EVENT_LOOP =
+            Executors.newSingleThreadScheduledExecutor(named("BtEventLoop"));
+
+    // Blocking connect/accept/read calls; idle threads are reclaimed after 60 s
+    private static final ExecutorService IO = Executors.newCachedThreadPool(named("BtIo"));
+
+    public static ScheduledExecutorService eventLoop() {
+        return EVENT_LOOP;
+    }
+
+    public static ExecutorService io() {
+        return IO;
+    }
+
+    static ThreadFactory named(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.sc2079_group25;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.util.Log;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Logging for the Bluetooth and arena code.
+ *
+ * The level check happens before any formatting, and messages use "{}"
+ * placeholders with fixed-arity overloads so a disabled call allocates
+ * nothing (primitive arguments are not even boxed). Enabled records also go
+ * into a lock-free in-memory ring that can be dumped to a file after a run.
+ */
+public final class BtLog {
+    private BtLog() {}
+
+    public static final int VERBOSE = Log.VERBOSE;
+    public static final int DEBUG = Log.DEBUG;
+    public static final int INFO = Log.INFO;
+    public static final int WARN = Log.WARN;
+    public static final int ERROR = Log.ERROR;
+    public static final int OFF = Integer.MAX_VALUE;
+
+    private static final int RING_SIZE = 4096; // Power of two
+    private static final String[] LEVEL_NAMES = {"?", "?", "V", "D", "I", "W", "E"};
+
+    private static volatile int minLevel = INFO;
+    private static volatile boolean logcat = true;
+
+    private static final AtomicLong cursor = new AtomicLong();
+    private static final AtomicReferenceArray<Record> ring = new AtomicReferenceArray<>(RING_SIZE);
+    private static final long originNanos = System.nanoTime();
+
+    private static final class Record {
+        final long seq;
+        final long nanos;
+        final int level;
+        final String tag;
+        final String message;
+        final Throwable error;
+
+        Record(long seq, long nanos, int level, String tag, String message, Throwable error) {
+            this.seq = seq;
+            this.nanos = nanos;
+            this.level = level;
+            this.tag = tag;
+            this.message = message;
+            this.error = error;
+        }
+    }
+
+    /** Debug builds log from DEBUG up, release builds from INFO up. */
+    public static void init(Context context) {
+        boolean debuggable = (context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+        minLevel = debuggable ? DEBUG : INFO;
+    }
+
+    public static void setLevel(int level) {
+        minLevel = level;
+    }
+
+    /** Keeps records in the ring only, e.g. for JVM tests where logcat is unavailable. */
+    public static void setLogcatEnabled(boolean enabled) {
+        logcat = enabled;
+    }
+
+    public static boolean isLoggable(int level) {
+        return level >= minLevel;
+    }
+
+    // ===== Fixed-arity entry points =====
+
+    public static void d(String tag, String msg) {
+        if (DEBUG >= minLevel) emit(DEBUG, tag, msg, null);
+    }
+
+    public static void d(String tag, String fmt, Object a) {
+        if (DEBUG >= minLevel) emit(DEBUG, tag, format(fmt, a, null, null), null);
+    }
+
+    public static void d(String tag, String fmt, long a) {
+        if (DEBUG >= minLevel) emit(DEBUG, tag, format(fmt, a, null, null), null);
+    }
+
+    public static void d(String tag, String fmt, Object a, Object b) {
+        if (DEBUG >= minLevel) emit(DEBUG, tag, format(fmt, a, b, null), null);
+    }
+
+    public static void d(String tag, String fmt, Object a, Object b, Object c) {
+        if (DEBUG >= minLevel) emit(DEBUG, tag, format(fmt, a, b, c), null);
+    }
+
+    public static void i(String tag, String msg) {
+        if (INFO >= minLevel) emit(INFO, tag, msg, null);
+    }
+
+    public static void i(String tag, String fmt, Object a) {
+        if (INFO >= minLevel) emit(INFO, tag, format(fmt, a, null, null), null);
+    }
+
+    public static void i(String tag, String fmt, long a) {
+        if (INFO >= minLevel) emit(INFO, tag, format(fmt, a, null, null), null);
+    }
+
+    public static void w(String tag, String msg) {
+        if (WARN >= minLevel) emit(WARN, tag, msg, null);
+    }
+
+    public static void w(String tag, String msg, Throwable t) {
+        if (WARN >= minLevel) emit(WARN, tag, msg, t);
+    }
+
+    public static void w(String tag, String fmt, Object a, Throwable t) {
+        if (WARN >= minLevel) emit(WARN, tag, format(fmt, a, null, null), t);
+    }
+
+    public static void e(String tag, String msg) {
+        if (ERROR >= minLevel) emit(ERROR, tag, msg, null);
+    }
+
+    public static void e(String tag, String msg, Throwable t) {
+        if (ERROR >= minLevel) emit(ERROR, tag, msg, t);
+    }
+
+    // ===== Internals =====
+
+    private static void emit(int level, String tag, String msg, Throwable t) {
+        long seq = cursor.getAndIncrement();
+        ring.set((int) (seq & (RING_SIZE - 1)), new Record(seq, System.nanoTime() - originNanos, level, tag, msg, t));
+        if (logcat) {
+            Log.println(level, tag, t == null ? msg : msg + '\n' + Log.getStackTraceString(t));
+        }
+    }
+
+    static String format(String fmt, Object a, Object b, Object c) {
+        StringBuilder sb = new StringBuilder(fmt.length() + 16);
+        int arg = 0;
+        int from = 0;
+        int at;
+        while ((at = fmt.indexOf("{}", from)) >= 0) {
+            sb.append(fmt, from, at);
+            Object v = arg == 0 ? a : arg == 1 ? b : arg == 2 ? c : "{}";
+            sb.append(v);
+            arg++;
+            from = at + 2;
+        }
+        return sb.append(fmt, from, fmt.length()).toString();
+    }
+
+    static String format(String fmt, long a, Object b, Object c) {
+        int at = fmt.indexOf("{}");
+        if (at < 0) return fmt;
+        return new StringBuilder(fmt.length() + 16)
+                .append(fmt, 0, at).append(a).append(fmt, at + 2, fmt.length()).toString();
+    }
+
+    /** Number of records ever written; the ring holds the last {@value #RING_SIZE}. */
+    public static long getRecordCount() {
+        return cursor.get();
+    }
+
+    /** Writes the ring, oldest first, to {@code file}. Safe to call while logging continues. */
+    public static int dump(File file) throws IOException {
+        long end = cursor.get();
+        long start = Math.max(0, end - RING_SIZE);
+        int written = 0;
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(file))) {
+            for (long seq = start; seq < end; seq++) {
+                Record r = ring.get((int) (seq & (RING_SIZE - 1)));
+                if (r == null || r.seq != seq) continue; // Not yet written, or already overwritten
+                out.write(String.format(Locale.US, "%12.3f %s/%s: %s",
+                        r.nanos / 1e6, levelName(r.level), r.tag, r.message));
+                out.newLine();
+                if (r.error != null) {
+                    out.write("    " + r.error);
+                    out.newLine();
+                }
+                written++;
+            }
+        }
+        return written;
+    }
+
+    private static String levelName(int level) {
+        return level >= 0 && level < LEVEL_NAMES.length ? LEVEL_NAMES[level] : "?";
+    }
+}
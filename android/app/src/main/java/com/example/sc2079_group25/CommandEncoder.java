@@ -0,0 +1,76 @@
+package com.example.sc2079_group25;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Turns outgoing lines into CRLF-terminated UTF-8 bytes.
+ *
+ * The fixed commands in {@link RobotCommands} are encoded once and looked
+ * up by string; String caches its hash, so a lookup allocates nothing. Other
+ * lines are encoded straight into a buffer owned by the encoder, which grows
+ * if needed and is then reused; callers must finish with it before the next
+ * {@link #encode}.
+ */
+public final class CommandEncoder {
+    private static final Map<String, byte[]> CONSTANTS = new HashMap<>();
+    static {
+        for (String c : new String[] {RobotCommands.FORWARD, RobotCommands.REVERSE, RobotCommands.TURN_LEFT,
+                RobotCommands.TURN_RIGHT, RobotCommands.TASK1_START, RobotCommands.TASK2_START}) {
+            CONSTANTS.put(c, (c + "\r\n").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private byte[] buffer = new byte[256];
+
+    /** The pre-terminated bytes for a fixed command, or null. Do not modify them. */
+    public static byte[] constant(String line) {
+        return CONSTANTS.get(line);
+    }
+
+    /**
+     * Encodes {@code line} into {@link #buffer()} and returns the length. A
+     * trailing "\n" or "\r\n" is replaced, so the result always ends in one CRLF.
+     */
+    public int encode(CharSequence line) {
+        int end = line.length();
+        if (end > 0 && line.charAt(end - 1) == '\n') {
+            end--;
+            if (end > 0 && line.charAt(end - 1) == '\r') end--;
+        }
+        // At most 3 bytes per char; a surrogate pair takes 4 for its 2 chars
+        if (buffer.length < 3 * end + 2) buffer = Arrays.copyOf(buffer, Math.max(3 * end + 2, buffer.length * 2));
+        byte[] b = buffer;
+        int n = 0;
+        for (int i = 0; i < end; i++) {
+            char c = line.charAt(i);
+            if (c < 0x80) {
+                b[n++] = (byte) c;
+            } else if (c < 0x800) {
+                b[n++] = (byte) (0xC0 | c >> 6);
+                b[n++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(line.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, line.charAt(++i));
+                b[n++] = (byte) (0xF0 | cp >> 18);
+                b[n++] = (byte) (0x80 | cp >> 12 & 0x3F);
+                b[n++] = (byte) (0x80 | cp >> 6 & 0x3F);
+                b[n++] = (byte) (0x80 | cp & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                b[n++] = '?'; // Unpaired, as String.getBytes() does
+            } else {
+                b[n++] = (byte) (0xE0 | c >> 12);
+                b[n++] = (byte) (0x80 | c >> 6 & 0x3F);
+                b[n++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        b[n++] = '\r';
+        b[n++] = '\n';
+        return n;
+    }
+
+    public byte[] buffer() {
+        return buffer;
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.sc2079_group25;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends a timed command script on its own thread, e.g. {@code f} every
+ * 150 ms for 3 s and then {@code tr}.
+ *
+ * Send times are offsets from the script start on the monotonic clock, so
+ * a late send does not push back the ones after it. The thread parks until
+ * just before each send and spins for the last stretch. The difference
+ * between planned and actual send time is kept for every command.
+ */
+public class CommandScheduler {
+    public interface Sink {
+        /** Called on the scheduler thread. */
+        void send(String command);
+    }
+
+    public interface Listener {
+        /** Called on the scheduler thread once the script has ended or been aborted. */
+        void onFinished(Report report);
+    }
+
+    // Park until this close to a send, then spin
+    private static final long SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+
+    /** A parsed script: commands and their send times in nanoseconds from the start. */
+    public static final class Script {
+        final String[] commands;
+        final long[] offsets;
+
+        private Script(List<String> commands, List<Long> offsets) {
+            this.commands = commands.toArray(new String[0]);
+            this.offsets = new long[offsets.size()];
+            for (int i = 0; i < this.offsets.length; i++) this.offsets[i] = offsets.get(i);
+        }
+
+        public int size() {
+            return commands.length;
+        }
+
+        public long durationNanos() {
+            return offsets.length == 0 ? 0 : offsets[offsets.length - 1];
+        }
+
+        /**
+         * Parses steps separated by ';' or new lines:
+         * <pre>
+         *   f every 150 for 3000   f at 0, 150, ... up to 3 s, then continue at 3 s
+         *   f x5 every 200         five times, 200 ms apart, then continue 200 ms later
+         *   wait 500               pause 0.5 s
+         *   tr                     send once, right away
+         * </pre>
+         * Times are in milliseconds.
+         */
+        public static Script parse(String text) {
+            List<String> commands = new ArrayList<>();
+            List<Long> offsets = new ArrayList<>();
+            long cursor = 0;
+            for (String raw : text.split("[;\n]")) {
+                String step = raw.trim();
+                if (step.isEmpty()) continue;
+                String[] t = step.split("\\s+");
+                if (t[0].equals("wait")) {
+                    if (t.length != 2) throw new IllegalArgumentException("Expected 'wait <ms>': " + step);
+                    cursor += millis(t[1], step);
+                    continue;
+                }
+                String cmd = t[0];
+                if (t.length == 1) {
+                    commands.add(cmd);
+                    offsets.add(cursor);
+                } else if (t.length == 5 && t[1].equals("every") && t[3].equals("for")) {
+                    long every = positive(millis(t[2], step), step);
+                    long total = millis(t[4], step);
+                    for (long at = 0; at < total; at += every) {
+                        commands.add(cmd);
+                        offsets.add(cursor + at);
+                    }
+                    cursor += total;
+                } else if (t.length == 4 && t[1].startsWith("x") && t[2].equals("every")) {
+                    long every = positive(millis(t[3], step), step);
+                    int count = count(t[1].substring(1), step);
+                    for (int i = 0; i < count; i++) {
+                        commands.add(cmd);
+                        offsets.add(cursor + i * every);
+                    }
+                    cursor += count * every;
+                } else {
+                    throw new IllegalArgumentException("Unrecognised step: " + step);
+                }
+            }
+            return new Script(commands, offsets);
+        }
+
+        private static long millis(String s, String step) {
+            try {
+                long ms = Long.parseLong(s);
+                if (ms < 0) throw new NumberFormatException();
+                return TimeUnit.MILLISECONDS.toNanos(ms);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad number '" + s + "' in: " + step);
+            }
+        }
+
+        private static int count(String s, String step) {
+            try {
+                int n = Integer.parseInt(s);
+                if (n < 0) throw new NumberFormatException();
+                return n;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad count '" + s + "' in: " + step);
+            }
+        }
+
+        private static long positive(long nanos, String step) {
+            if (nanos <= 0) throw new IllegalArgumentException("Interval must be positive: " + step);
+            return nanos;
+        }
+    }
+
+    /** Send-time jitter of one run: actual minus planned send time. */
+    public static final class Report {
+        public final int planned;
+        public final int sent;
+        public final boolean aborted;
+        private final long[] lateNanos; // Sorted, one per sent command
+
+        Report(int planned, long[] late, int sent, boolean aborted) {
+            this.planned = planned;
+            this.sent = sent;
+            this.aborted = aborted;
+            this.lateNanos = Arrays.copyOf(late, sent);
+            Arrays.sort(lateNanos);
+        }
+
+        public long percentileNanos(double p) {
+            if (sent == 0) return 0;
+            int i = (int) Math.ceil(p * sent) - 1;
+            return lateNanos[Math.max(0, Math.min(sent - 1, i))];
+        }
+
+        public long maxNanos() {
+            return sent == 0 ? 0 : lateNanos[sent - 1];
+        }
+
+        public double meanNanos() {
+            if (sent == 0) return 0;
+            long sum = 0;
+            for (long n : lateNanos) sum += n;
+            return (double) sum / sent;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%d/%d sent%s, late by mean %.0f us, p50 %.0f us, p99 %.0f us, max %.0f us",
+                    sent, planned, aborted ? " (aborted)" : "", meanNanos() / 1e3,
+                    percentileNanos(0.5) / 1e3, percentileNanos(0.99) / 1e3, maxNanos() / 1e3);
+        }
+    }
+
+    private final Sink sink;
+    private final Listener listener;
+
+    private Thread thread; // Guarded by this
+    private volatile boolean paused = false;
+    private volatile boolean aborted = false;
+
+    public CommandScheduler(Sink sink, Listener listener) {
+        this.sink = sink;
+        this.listener = listener;
+    }
+
+    /** Starts {@code script}, aborting any script still running. */
+    public void start(Script script) {
+        abort();
+        synchronized (this) {
+            paused = false;
+            aborted = false;
+            Thread t = new Thread(() -> run(script), "CommandScheduler");
+            t.setPriority(Thread.MAX_PRIORITY);
+            thread = t;
+            t.start();
+        }
+    }
+
+    public synchronized boolean isRunning() {
+        return thread != null && thread.isAlive();
+    }
+
+    /** Holds the remaining commands; their gaps are kept on resume. */
+    public void pause() {
+        paused = true;
+    }
+
+    public synchronized void resume() {
+        paused = false;
+        if (thread != null) LockSupport.unpark(thread);
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /** Stops the running script, if any, and waits for its thread to finish. */
+    public void abort() {
+        Thread t;
+        synchronized (this) {
+            t = thread;
+            if (t == null) return;
+            aborted = true;
+            thread = null;
+        }
+        LockSupport.unpark(t);
+        if (t == Thread.currentThread()) return;
+        try {
+            t.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run(Script script) {
+        int n = script.size();
+        long[] late = new long[n];
+        int sent = 0;
+        long base = System.nanoTime();
+        for (int i = 0; i < n && !aborted; i++) {
+            long target = base + script.offsets[i];
+            while (!aborted) {
+                if (paused) {
+                    // Shift the rest of the script by however long the pause lasts
+                    long pausedAt = System.nanoTime();
+                    while (paused && !aborted) LockSupport.park(this);
+                    long pausedFor = System.nanoTime() - pausedAt;
+                    base += pausedFor;
+                    target += pausedFor;
+                    continue;
+                }
+                long wait = target - System.nanoTime();
+                if (wait <= SPIN_NANOS) break;
+                LockSupport.parkNanos(this, wait - SPIN_NANOS);
+            }
+            if (aborted) break;
+            long now;
+            do {
+                now = System.nanoTime();
+            } while (now < target);
+            late[i] = now - target;
+            sink.send(script.commands[i]);
+            sent++;
+        }
+        boolean wasAborted = aborted;
+        synchronized (this) {
+            if (thread == Thread.currentThread()) thread = null;
+        }
+        if (listener != null) listener.onFinished(new Report(n, late, sent, wasAborted));
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.sc2079_group25;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+import java.util.Arrays;
+
+/**
+ * How often the robot's 3x3 footprint has covered each cell.
+ *
+ * Visit counts live in an int array and the heatmap in a bitmap with one
+ * pixel per cell, which is scaled up when drawn. A pose update touches only
+ * the footprint's cells, so its cost does not depend on the arena size.
+ *
+ * Poses may be reported from any thread. The counters are updated right away
+ * and changed cells are queued; the bitmap is only written on the draw thread.
+ */
+class CoverageLayer {
+    private static final int FOOTPRINT_RADIUS = 1; // 3x3
+    private static final int SATURATE_AT = 8;      // Visits for the strongest colour
+
+    private final int cols, rows;
+    private final int[] visits;
+    private final Paint paint = new Paint(); // No filtering: cells stay sharp when scaled
+    private final Rect src;
+    private final RectF dst = new RectF();
+
+    // Guarded by this
+    private int[] dirtyCells = new int[64];
+    private int dirtyCount = 0;
+    private boolean erase = false;
+    private long epoch = 0;
+    private int lastCol = Integer.MIN_VALUE, lastRow = Integer.MIN_VALUE;
+    private int coveredCells = 0;
+
+    private Bitmap bitmap; // Draw thread only
+
+    CoverageLayer(int cols, int rows) {
+        this.cols = cols;
+        this.rows = rows;
+        this.visits = new int[cols * rows];
+        this.src = new Rect(0, 0, cols, rows);
+    }
+
+    /** Follows the published arena state: a new epoch starts over, a new cell counts a visit. */
+    synchronized void track(long epoch, float x, float y) {
+        if (epoch != this.epoch) {
+            this.epoch = epoch;
+            clear();
+        }
+        visit(x, y);
+    }
+
+    /**
+     * Counts a visit for every cell under the footprint centred on (x, y).
+     * Repeated reports of the same cell are not counted again.
+     */
+    synchronized void visit(float x, float y) {
+        int col = Math.round(x);
+        int row = Math.round(y);
+        if (col == lastCol && row == lastRow) return;
+        lastCol = col;
+        lastRow = row;
+
+        for (int r = Math.max(0, row - FOOTPRINT_RADIUS); r <= Math.min(rows - 1, row + FOOTPRINT_RADIUS); r++) {
+            for (int c = Math.max(0, col - FOOTPRINT_RADIUS); c <= Math.min(cols - 1, col + FOOTPRINT_RADIUS); c++) {
+                int i = r * cols + c;
+                int n = ++visits[i];
+                if (n == 1) coveredCells++;
+                if (n <= SATURATE_AT) markDirty(i);
+            }
+        }
+    }
+
+    private void markDirty(int cell) {
+        if (dirtyCount == dirtyCells.length) dirtyCells = Arrays.copyOf(dirtyCells, dirtyCount * 2);
+        dirtyCells[dirtyCount++] = cell;
+    }
+
+    /** Creating the bitmap is the only O(grid) step; it happens once, or after release(). */
+    private void ensureBitmap() {
+        if (bitmap != null) return;
+        bitmap = Bitmap.createBitmap(cols, rows, Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(Color.TRANSPARENT);
+        dirtyCount = 0;
+        erase = false;
+        if (coveredCells == 0) return;
+        for (int i = 0; i < visits.length; i++) {
+            if (visits[i] > 0) setCell(i);
+        }
+    }
+
+    private void setCell(int i) {
+        // Bitmap rows run top-down, grid rows bottom-up
+        bitmap.setPixel(i % cols, rows - 1 - i / cols, colorFor(visits[i]));
+    }
+
+    synchronized int getVisits(int col, int row) {
+        return visits[row * cols + col];
+    }
+
+    /** Fraction of the arena covered at least once. */
+    synchronized float getCoverage() {
+        return (float) coveredCells / visits.length;
+    }
+
+    synchronized void clear() {
+        Arrays.fill(visits, 0);
+        coveredCells = 0;
+        lastCol = Integer.MIN_VALUE;
+        lastRow = Integer.MIN_VALUE;
+        dirtyCount = 0;
+        erase = true;
+    }
+
+    void draw(Canvas canvas, float left, float top, float width, float height) {
+        synchronized (this) {
+            if (bitmap != null && erase) bitmap.eraseColor(Color.TRANSPARENT);
+            erase = false;
+            if (coveredCells == 0) return;
+            if (bitmap == null) {
+                ensureBitmap();
+            } else {
+                for (int k = 0; k < dirtyCount; k++) setCell(dirtyCells[k]);
+                dirtyCount = 0;
+            }
+        }
+        dst.set(left, top, left + width, top + height);
+        canvas.drawBitmap(bitmap, src, dst, paint);
+    }
+
+    private static int colorFor(int n) {
+        int alpha = 40 + (160 * Math.min(n, SATURATE_AT)) / SATURATE_AT;
+        return Color.argb(alpha, 76, 175, 80);
+    }
+
+    synchronized void release() {
+        if (bitmap != null) bitmap.recycle();
+        bitmap = null; // Rebuilt from the counters if drawn again
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.sc2079_group25;
+
+import android.Manifest;
+import android.bluetooth.BluetoothDevice;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.core.app.ActivityCompat;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide cache of device names and bond states keyed by address.
+ *
+ * {@link BluetoothDevice#getName()} and {@link BluetoothDevice#getBondState()}
+ * are binder calls; here they run on a background thread and UI code reads
+ * the cached result. Listeners hear about new results on the main thread.
+ */
+public class DeviceInfoCache {
+
+    public static final class Info {
+        public final String address;
+        public final String name; // null if unknown
+        public final int bondState;
+        public final int rssi;
+
+        Info(String address, String name, int bondState, int rssi) {
+            this.address = address;
+            this.name = name;
+            this.bondState = bondState;
+            this.rssi = rssi;
+        }
+
+        public boolean isBonded() {
+            return bondState == BluetoothDevice.BOND_BONDED;
+        }
+    }
+
+    public interface Listener {
+        void onDeviceInfo(Info info);
+    }
+
+    private static DeviceInfoCache instance;
+
+    public static synchronized DeviceInfoCache getInstance(Context context) {
+        if (instance == null) instance = new DeviceInfoCache(context.getApplicationContext());
+        return instance;
+    }
+
+    private final Context appContext;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService resolver = Executors.newSingleThreadExecutor(BtExecutors.named("DeviceInfo"));
+    private final Map<String, Info> entries = new ConcurrentHashMap<>();
+    // Addresses being resolved; true if invalidated again since the resolve started
+    private final Map<String, Boolean> inFlight = new ConcurrentHashMap<>();
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong resolveCount = new AtomicLong();
+    private final AtomicLong resolveNanos = new AtomicLong();
+
+    private DeviceInfoCache(Context appContext) {
+        this.appContext = appContext;
+    }
+
+    public void addListener(Listener l) {
+        listeners.addIfAbsent(l);
+    }
+
+    public void removeListener(Listener l) {
+        listeners.remove(l);
+    }
+
+    /** Returns the cached entry, scheduling a background lookup on a miss. Never blocks. */
+    public Info lookup(BluetoothDevice device) {
+        String address = device.getAddress();
+        Info info = entries.get(address);
+        if (info != null) {
+            hits.incrementAndGet();
+            return info;
+        }
+        misses.incrementAndGet();
+        if (inFlight.putIfAbsent(address, Boolean.FALSE) == null) resolver.execute(() -> refresh(device));
+        return null;
+    }
+
+    /** Name for display: cached name, or the address while the name is being resolved. */
+    public String displayName(BluetoothDevice device) {
+        if (device == null) return "Unknown device";
+        Info info = lookup(device);
+        return (info != null && info.name != null) ? info.name : device.getAddress();
+    }
+
+    /** Blocking variant for worker threads that need the name right away. */
+    public String resolveName(BluetoothDevice device) {
+        if (device == null) return "Unknown device";
+        Info info = entries.get(device.getAddress());
+        if (info != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            info = resolve(device, DeviceRow.RSSI_UNKNOWN);
+            publish(info);
+        }
+        return info.name != null ? info.name : device.getAddress();
+    }
+
+    /** Seeds or updates an entry from broadcast extras, which cost no binder call. */
+    public void onSighting(BluetoothDevice device, String name, int rssi) {
+        String address = device.getAddress();
+        Info old = entries.get(address);
+        if (old == null && name == null) {
+            lookup(device);
+            return;
+        }
+        String n = name != null ? name : old.name;
+        int bond = old != null ? old.bondState : BluetoothDevice.BOND_NONE;
+        int r = rssi != DeviceRow.RSSI_UNKNOWN ? rssi : (old != null ? old.rssi : rssi);
+        if (old == null) {
+            // Bond state still needs a lookup; the name from the broadcast is shown meanwhile
+            entries.put(address, new Info(address, n, bond, r));
+            invalidate(device);
+        } else {
+            entries.put(address, new Info(address, n, bond, r));
+        }
+    }
+
+    /** Drops an entry, e.g. on ACTION_NAME_CHANGED or ACTION_BOND_STATE_CHANGED, and re-resolves it. */
+    public void invalidate(BluetoothDevice device) {
+        // If a resolve is running it may already have read the old state, so it is marked to go again
+        if (inFlight.merge(device.getAddress(), Boolean.FALSE, (running, ignored) -> Boolean.TRUE)) return;
+        resolver.execute(() -> refresh(device));
+    }
+
+    /** Resolver thread: resolves until no invalidation arrived meanwhile, then publishes. */
+    private void refresh(BluetoothDevice device) {
+        String address = device.getAddress();
+        while (true) {
+            Info old = entries.get(address);
+            Info resolved = resolve(device, old != null ? old.rssi : DeviceRow.RSSI_UNKNOWN);
+            if (resolved.name == null && old != null) {
+                resolved = new Info(address, old.name, resolved.bondState, resolved.rssi);
+            }
+            if (inFlight.remove(address, Boolean.FALSE)) {
+                publish(resolved);
+                return;
+            }
+            // Invalidated while resolving: this result may be stale, so drop it and look again
+            inFlight.put(address, Boolean.FALSE);
+        }
+    }
+
+    private Info resolve(BluetoothDevice device, int rssi) {
+        long start = System.nanoTime();
+        String name = null;
+        int bond = BluetoothDevice.BOND_NONE;
+        if (hasConnectPermission()) {
+            try {
+                name = device.getName();
+                if (name != null && name.isEmpty()) name = null;
+                bond = device.getBondState();
+            } catch (SecurityException ignored) {}
+        }
+        resolveNanos.addAndGet(System.nanoTime() - start);
+        resolveCount.incrementAndGet();
+        return new Info(device.getAddress(), name, bond, rssi);
+    }
+
+    private void publish(Info info) {
+        entries.put(info.address, info);
+        if (listeners.isEmpty()) return;
+        mainHandler.post(() -> {
+            for (Listener l : listeners) l.onDeviceInfo(info);
+        });
+    }
+
+    private boolean hasConnectPermission() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.S) return true;
+        return ActivityCompat.checkSelfPermission(appContext, Manifest.permission.BLUETOOTH_CONNECT)
+                == PackageManager.PERMISSION_GRANTED;
+    }
+
+    // ===== Metrics =====
+
+    public double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    public double getMeanResolveMillis() {
+        long n = resolveCount.get();
+        return n == 0 ? 0 : resolveNanos.get() / 1e6 / n;
+    }
+
+    public String statsSummary() {
+        return String.format(Locale.US, "name cache: %d entries, hit rate %.0f%%, mean resolve %.2f ms",
+                entries.size(), getHitRate() * 100, getMeanResolveMillis());
+    }
+}
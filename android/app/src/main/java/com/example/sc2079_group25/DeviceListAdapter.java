@@ -1,40 +1,80 @@
 package com.example.sc2079_group25;
 
-import android.Manifest;
 import android.bluetooth.BluetoothDevice;
 import android.content.Context;
-import android.content.pm.PackageManager;
-import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
-import androidx.core.app.ActivityCompat;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
-public class DeviceListAdapter extends RecyclerView.Adapter<DeviceListAdapter.VH> {
+public class DeviceListAdapter extends RecyclerView.Adapter<DeviceListAdapter.VH>
+        implements DeviceInfoCache.Listener {
 
     public interface OnDeviceClick {
         void onClick(BluetoothDevice device);
     }
 
-    private final Map<String, BluetoothDevice> unique = new LinkedHashMap<>();
+    // Discovery broadcasts arriving within this window are applied as one update
+    private static final long THROTTLE_MS = 300;
+    private static final ExecutorService DIFF_EXECUTOR =
+            Executors.newSingleThreadExecutor(BtExecutors.named("DeviceDiff"));
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable flushTask = this::flush;
+    private final DeviceListModel model = new DeviceListModel();
+    private final Map<String, BluetoothDevice> devices = new HashMap<>();
     private final OnDeviceClick onDeviceClick;
-    private final Context context;
+    private final DeviceInfoCache infoCache;
+
+    private List<DeviceRow> items = Collections.emptyList();
+    private boolean diffInFlight = false;
+    private int generation = 0;
+    private String knownRobotAddress;
 
     public DeviceListAdapter(Context context, OnDeviceClick onDeviceClick) {
-        this.context = context.getApplicationContext();
         this.onDeviceClick = onDeviceClick;
+        this.infoCache = DeviceInfoCache.getInstance(context);
+        infoCache.addListener(this);
+    }
+
+    /** Unregisters from the shared name cache; call when the owning activity is destroyed. */
+    public void release() {
+        infoCache.removeListener(this);
+        mainHandler.removeCallbacks(flushTask);
+    }
+
+    /** Address of the robot we last connected to; it is listed first. */
+    public void setKnownRobotAddress(String address) {
+        this.knownRobotAddress = address;
     }
 
     public void upsert(BluetoothDevice d) {
+        upsert(d, DeviceRow.RSSI_UNKNOWN);
+    }
+
+    /** For devices from getBondedDevices(), which are paired whether or not the cache knows it yet. */
+    public void upsertBonded(BluetoothDevice d) {
+        upsert(d, DeviceRow.RSSI_UNKNOWN, true);
+    }
+
+    public void upsert(BluetoothDevice d, int rssi) {
+        upsert(d, rssi, false);
+    }
+
+    private void upsert(BluetoothDevice d, int rssi, boolean knownBonded) {
         if (d == null) return;
 
         String address;
@@ -46,17 +86,61 @@ public class DeviceListAdapter extends RecyclerView.Adapter<DeviceListAdapter.VH
         
         if (address == null) return;
 
-        unique.put(address, d);
-        notifyDataSetChanged();
+        devices.put(address, d);
+        // Served from memory; a miss is resolved in the background and arrives via onDeviceInfo
+        DeviceInfoCache.Info info = infoCache.lookup(d);
+        String name = info != null ? info.name : null;
+        // On a miss the bond state is unknown, not unbonded; the row keeps what was known before
+        boolean bonded = knownBonded || (info != null && info.isBonded());
+        offer(new DeviceRow(address, name, rssi, bonded, knownBonded || info != null, address.equals(knownRobotAddress)));
+    }
+
+    @Override
+    public void onDeviceInfo(DeviceInfoCache.Info info) {
+        if (!devices.containsKey(info.address)) return;
+        offer(new DeviceRow(info.address, info.name, DeviceRow.RSSI_UNKNOWN, info.isBonded(),
+                info.address.equals(knownRobotAddress)));
+    }
+
+    private void offer(DeviceRow row) {
+        if (model.offer(row) && !diffInFlight) {
+            mainHandler.postDelayed(flushTask, THROTTLE_MS);
+        }
     }
 
     public void clear() {
-        unique.clear();
+        mainHandler.removeCallbacks(flushTask);
+        generation++;
+        diffInFlight = false;
+        model.clear();
+        devices.clear();
+        items = Collections.emptyList();
         notifyDataSetChanged();
     }
 
-    public List<BluetoothDevice> getItems() {
-        return new ArrayList<>(unique.values());
+    public List<DeviceRow> getItems() {
+        return items;
+    }
+
+    /** Applies batched sightings; the diff runs off the main thread. */
+    private void flush() {
+        if (diffInFlight) return;
+        List<DeviceRow> oldRows = items;
+        List<DeviceRow> newRows = model.drain();
+        if (newRows == oldRows) return;
+
+        int gen = generation;
+        diffInFlight = true;
+        DIFF_EXECUTOR.execute(() -> {
+            DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new DeviceRowDiff(oldRows, newRows), true);
+            mainHandler.post(() -> {
+                if (gen != generation) return; // Cleared meanwhile
+                diffInFlight = false;
+                items = newRows;
+                diff.dispatchUpdatesTo(this);
+                if (model.hasPending()) mainHandler.postDelayed(flushTask, THROTTLE_MS);
+            });
+        });
     }
 
     @NonNull
@@ -64,44 +148,24 @@ public class DeviceListAdapter extends RecyclerView.Adapter<DeviceListAdapter.VH
     public VH onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         TextView tv = (TextView) LayoutInflater.from(parent.getContext())
                 .inflate(android.R.layout.simple_list_item_1, parent, false);
-        return new VH(tv);
+        VH holder = new VH(tv);
+        tv.setOnClickListener(v -> {
+            int pos = holder.getBindingAdapterPosition();
+            if (pos == RecyclerView.NO_POSITION) return;
+            BluetoothDevice d = devices.get(items.get(pos).address);
+            if (d != null) onDeviceClick.onClick(d);
+        });
+        return holder;
     }
 
     @Override
     public void onBindViewHolder(@NonNull VH holder, int position) {
-        BluetoothDevice d = getItems().get(position);
-        holder.bind(d);
-        holder.itemView.setOnClickListener(v -> onDeviceClick.onClick(d));
+        holder.bind(items.get(position));
     }
 
     @Override
     public int getItemCount() {
-        return unique.size();
-    }
-
-    // ===== Permission-safe helpers =====
-
-    private boolean hasConnectPermission() {
-        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.S) return true;
-        return ActivityCompat.checkSelfPermission(
-                context,
-                Manifest.permission.BLUETOOTH_CONNECT
-        ) == PackageManager.PERMISSION_GRANTED;
-    }
-
-    private String getSafeName(BluetoothDevice d) {
-        if (d == null) return "Unknown Device";
-
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S && !hasConnectPermission()) {
-            return "Unknown Device";
-        }
-
-        try {
-            String name = d.getName();
-            return (name != null && !name.isEmpty()) ? name : "Unknown Device";
-        } catch (SecurityException e) {
-            return "Unknown Device";
-        }
+        return items.size();
     }
 
     // ===== ViewHolder =====
@@ -109,21 +173,13 @@ public class DeviceListAdapter extends RecyclerView.Adapter<DeviceListAdapter.VH
     static class VH extends RecyclerView.ViewHolder {
         VH(@NonNull View itemView) { super(itemView); }
 
-        void bind(BluetoothDevice d) {
+        void bind(DeviceRow row) {
             TextView tv = (TextView) itemView;
-            DeviceListAdapter adapter = (DeviceListAdapter) getBindingAdapter();
-
-            String address;
-            try {
-                address = d.getAddress();
-            } catch (SecurityException e) {
-                address = "Unknown Address";
-            }
-
-            String name = (adapter != null) ? adapter.getSafeName(d) : "Unknown Device";
+            String name = row.name != null ? row.name : "Unknown Device";
+            String signal = row.rssi != DeviceRow.RSSI_UNKNOWN ? "  (" + row.rssi + " dBm)" : "";
 
             // Display Name and Address on separate lines
-            tv.setText(name + "\n" + address);
+            tv.setText(name + "\n" + row.address + signal);
         }
     }
 }
@@ -0,0 +1,76 @@
+package com.example.sc2079_group25;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batches discovery sightings and produces sorted, immutable snapshots of the
+ * device list. Repeated sightings of a device between two drains collapse into
+ * one update. Not thread-safe; the adapter calls it from the main thread only.
+ */
+public class DeviceListModel {
+    private final Map<String, DeviceRow> rows = new HashMap<>();
+    private final Map<String, DeviceRow> pending = new LinkedHashMap<>();
+    private List<DeviceRow> snapshot = Collections.emptyList();
+
+    private long offered = 0;
+    private long coalesced = 0;
+
+    /** Returns true if this is the first pending change, i.e. a flush should be scheduled. */
+    public boolean offer(DeviceRow row) {
+        offered++;
+        boolean first = pending.isEmpty();
+        DeviceRow previous = pending.get(row.address);
+        if (previous != null) coalesced++;
+        pending.put(row.address, row.mergeFrom(previous));
+        return first;
+    }
+
+    public boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    /** Applies pending sightings and returns the new sorted list, or the current one if nothing changed. */
+    public List<DeviceRow> drain() {
+        if (pending.isEmpty()) return snapshot;
+        boolean changed = false;
+        for (DeviceRow row : pending.values()) {
+            DeviceRow old = rows.get(row.address);
+            DeviceRow merged = row.mergeFrom(old);
+            if (old == null || !old.sameContent(merged)) {
+                rows.put(row.address, merged);
+                changed = true;
+            }
+        }
+        pending.clear();
+        if (!changed) return snapshot;
+
+        List<DeviceRow> sorted = new ArrayList<>(rows.values());
+        Collections.sort(sorted, DeviceRow.PRIORITY);
+        snapshot = Collections.unmodifiableList(sorted);
+        return snapshot;
+    }
+
+    public List<DeviceRow> getSnapshot() {
+        return snapshot;
+    }
+
+    public void clear() {
+        rows.clear();
+        pending.clear();
+        snapshot = Collections.emptyList();
+    }
+
+    public long getOfferedCount() {
+        return offered;
+    }
+
+    /** Sightings that were folded into an already pending update. */
+    public long getCoalescedCount() {
+        return coalesced;
+    }
+}
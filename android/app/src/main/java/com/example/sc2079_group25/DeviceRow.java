@@ -0,0 +1,56 @@
+package com.example.sc2079_group25;
+
+import java.util.Comparator;
+import java.util.Objects;
+
+/** Immutable snapshot of one discovered device, as shown in the device list. */
+public final class DeviceRow {
+    public static final int RSSI_UNKNOWN = Short.MIN_VALUE;
+
+    public final String address;
+    public final String name;
+    public final int rssi;
+    public final boolean bonded;
+    public final boolean bondKnown; // False until the bond state has been looked up
+    public final boolean knownRobot;
+
+    public DeviceRow(String address, String name, int rssi, boolean bonded, boolean knownRobot) {
+        this(address, name, rssi, bonded, true, knownRobot);
+    }
+
+    public DeviceRow(String address, String name, int rssi, boolean bonded, boolean bondKnown, boolean knownRobot) {
+        this.address = address;
+        this.name = name;
+        this.rssi = rssi;
+        this.bonded = bonded;
+        this.bondKnown = bondKnown;
+        this.knownRobot = knownRobot;
+    }
+
+    /**
+     * Combines a fresh sighting with what we already knew, keeping the last
+     * known name and RSSI, and the last known bond state while the fresh one
+     * is unknown. A known bond state and the robot flag always win, so an
+     * unpaired device drops back down the list.
+     */
+    DeviceRow mergeFrom(DeviceRow older) {
+        if (older == null) return this;
+        int r = rssi != RSSI_UNKNOWN ? rssi : older.rssi;
+        String n = name != null ? name : older.name;
+        if (bondKnown) return new DeviceRow(address, n, r, bonded, true, knownRobot);
+        return new DeviceRow(address, n, r, older.bonded, older.bondKnown, knownRobot);
+    }
+
+    boolean sameContent(DeviceRow other) {
+        return rssi == other.rssi && bonded == other.bonded && bondKnown == other.bondKnown
+                && knownRobot == other.knownRobot && Objects.equals(name, other.name);
+    }
+
+    /** Last connected robot first, then paired devices, then by signal strength. */
+    public static final Comparator<DeviceRow> PRIORITY = (a, b) -> {
+        if (a.knownRobot != b.knownRobot) return a.knownRobot ? -1 : 1;
+        if (a.bonded != b.bonded) return a.bonded ? -1 : 1;
+        if (a.rssi != b.rssi) return Integer.compare(b.rssi, a.rssi);
+        return a.address.compareTo(b.address);
+    };
+}
@@ -0,0 +1,43 @@
+package com.example.sc2079_group25;
+
+import androidx.recyclerview.widget.DiffUtil;
+
+import java.util.List;
+
+/** Row identity is the device address; a changed row only needs its text refreshed. */
+class DeviceRowDiff extends DiffUtil.Callback {
+    static final Object PAYLOAD_TEXT = new Object();
+
+    private final List<DeviceRow> oldRows;
+    private final List<DeviceRow> newRows;
+
+    DeviceRowDiff(List<DeviceRow> oldRows, List<DeviceRow> newRows) {
+        this.oldRows = oldRows;
+        this.newRows = newRows;
+    }
+
+    @Override
+    public int getOldListSize() {
+        return oldRows.size();
+    }
+
+    @Override
+    public int getNewListSize() {
+        return newRows.size();
+    }
+
+    @Override
+    public boolean areItemsTheSame(int oldPos, int newPos) {
+        return oldRows.get(oldPos).address.equals(newRows.get(newPos).address);
+    }
+
+    @Override
+    public boolean areContentsTheSame(int oldPos, int newPos) {
+        return oldRows.get(oldPos).sameContent(newRows.get(newPos));
+    }
+
+    @Override
+    public Object getChangePayload(int oldPos, int newPos) {
+        return PAYLOAD_TEXT;
+    }
+}
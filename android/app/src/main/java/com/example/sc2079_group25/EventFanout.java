@@ -0,0 +1,64 @@
+package com.example.sc2079_group25;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Hands each connection event to every registered listener on that
+ * listener's own executor, so a parser on the reader thread, a recorder on a
+ * {@link SerialExecutor} and a UI listener on the main thread all see the
+ * same events without waiting for each other.
+ *
+ * Each listener sees events in order as long as its executor keeps order:
+ * a direct executor, a main-thread Handler or a SerialExecutor, but not a
+ * bare thread pool.
+ */
+public final class EventFanout implements BluetoothEventListener {
+    private static final class Registration {
+        final BluetoothEventListener listener;
+        final Executor executor;
+
+        Registration(BluetoothEventListener listener, Executor executor) {
+            this.listener = listener;
+            this.executor = executor;
+        }
+    }
+
+    private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+
+    public void add(BluetoothEventListener listener, Executor executor) {
+        registrations.add(new Registration(listener, executor));
+    }
+
+    public void remove(BluetoothEventListener listener) {
+        for (Registration r : registrations) {
+            if (r.listener == listener) registrations.remove(r);
+        }
+    }
+
+    public int size() {
+        return registrations.size();
+    }
+
+    @Override
+    public void onConnectionStateChanged(int state, String detail) {
+        for (Registration r : registrations) {
+            r.executor.execute(() -> r.listener.onConnectionStateChanged(state, detail));
+        }
+    }
+
+    @Override
+    public void onLineReceived(String line) {
+        for (Registration r : registrations) {
+            r.executor.execute(() -> r.listener.onLineReceived(line));
+        }
+    }
+
+    @Override
+    public void onError(String message, Throwable t) {
+        for (Registration r : registrations) {
+            r.executor.execute(() -> r.listener.onError(message, t));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.sc2079_group25;
+
+import java.util.Locale;
+
+/**
+ * Draw-time statistics for an arena renderer, so the UI-thread and
+ * render-thread surfaces can be compared. Safe to read from another thread.
+ */
+public class FrameStats {
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+
+    private long frames = 0;
+    private double meanMillis = 0; // Exponential moving average
+    private long windowStart = 0;
+    private long windowMax = 0;
+    private long lastMax = 0;
+
+    public synchronized void record(long drawNanos) {
+        long now = System.nanoTime();
+        frames++;
+        double ms = drawNanos / 1e6;
+        meanMillis = frames == 1 ? ms : meanMillis * 0.9 + ms * 0.1;
+        if (now - windowStart > WINDOW_NANOS) {
+            lastMax = windowMax;
+            windowMax = 0;
+            windowStart = now;
+        }
+        windowMax = Math.max(windowMax, drawNanos);
+    }
+
+    public synchronized long getFrames() {
+        return frames;
+    }
+
+    public synchronized String summary() {
+        return String.format(Locale.US, "%.2f ms avg, %.2f ms max, %d frames",
+                meanMillis, Math.max(lastMax, windowMax) / 1e6, frames);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.sc2079_group25;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Splits a byte stream into lines on CR or LF. Lines are trimmed and empty
+ * ones dropped. Bytes of an unfinished line carry over to the next chunk.
+ */
+final class LineFramer {
+    interface LineListener {
+        void onLine(String line);
+    }
+
+    private byte[] line = new byte[256];
+    private int length = 0;
+
+    void feed(byte[] data, int n, LineListener out) {
+        for (int i = 0; i < n; i++) {
+            byte b = data[i];
+            if (b == '\n' || b == '\r') {
+                if (length > 0) {
+                    String s = new String(line, 0, length, StandardCharsets.UTF_8).trim();
+                    length = 0;
+                    if (!s.isEmpty()) out.onLine(s);
+                }
+            } else {
+                if (length == line.length) line = Arrays.copyOf(line, length * 2);
+                line[length++] = b;
+            }
+        }
+    }
+
+    /** Bytes of the line still waiting for its terminator. */
+    int pending() {
+        return length;
+    }
+}
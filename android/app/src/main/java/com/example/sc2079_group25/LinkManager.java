@@ -0,0 +1,193 @@
+package com.example.sc2079_group25;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds any number of concurrent {@link RobotLink}s. Links report to the UI
+ * through one shared frame callback: however many links are busy, the main
+ * thread runs at most one frame per {@link #FRAME_MS}, and only the links on
+ * screen are applied to views.
+ */
+public class LinkManager {
+    public interface Listener {
+        /** Main thread; drain the terminal and apply the visible links here. */
+        void onFrame();
+    }
+
+    private static final long FRAME_MS = 16;
+    private static final int MAX_PENDING_LINES = 500;
+
+    private final Context appContext;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<RobotLink> links = new CopyOnWriteArrayList<>();
+    private final ConcurrentLinkedQueue<String> pendingLines = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicInteger droppedLines = new AtomicInteger();
+    private final AtomicBoolean frameScheduled = new AtomicBoolean();
+    private final Runnable frameTask = this::runFrame;
+
+    private Listener listener;
+    private int nextNumber = 1;
+    private int active = 0;
+    private boolean split = false;
+
+    private long rateNanos = System.nanoTime();
+    private long rateLines = 0;
+    private long rateBytes = 0;
+    private double linesPerSecond = 0;
+    private double bytesPerSecond = 0;
+
+    public LinkManager(Context context, Listener listener) {
+        this.appContext = context.getApplicationContext();
+        this.listener = listener;
+    }
+
+    public RobotLink addLink() {
+        RobotLink link = new RobotLink(this, appContext, nextNumber++);
+        // Only the first link waits for incoming connections on the SPP server socket
+        link.getService().setListenOnLinkDown(links.isEmpty());
+        links.add(link);
+        return link;
+    }
+
+    /** The first link owns the server socket and the session recording, so it cannot be removed. */
+    public void removeLink(RobotLink link) {
+        if (links.indexOf(link) <= 0) return;
+        RobotLink current = getActive();
+        link.getService().disconnect();
+        links.remove(link);
+        active = link == current ? 0 : links.indexOf(current);
+    }
+
+    public List<RobotLink> getLinks() {
+        return links;
+    }
+
+    public int size() {
+        return links.size();
+    }
+
+    public RobotLink getActive() {
+        return links.get(active);
+    }
+
+    public void setActive(int index) {
+        if (index >= 0 && index < links.size()) active = index;
+    }
+
+    public boolean isSplit() {
+        return split;
+    }
+
+    public void setSplit(boolean split) {
+        this.split = split;
+    }
+
+    /** The link shown next to the active one in split view, or null. */
+    public RobotLink getSplitPartner() {
+        if (!split || links.size() < 2) return null;
+        return links.get((active + 1) % links.size());
+    }
+
+    /** Queues a terminal line from any thread and schedules a frame. */
+    public void postTerminal(String line) {
+        pendingLines.add(line);
+        // Bound the backlog if the main thread stalls; the oldest lines go first
+        if (pendingCount.incrementAndGet() > MAX_PENDING_LINES && pendingLines.poll() != null) {
+            pendingCount.decrementAndGet();
+            droppedLines.incrementAndGet();
+        }
+        requestFrame();
+    }
+
+    public void requestFrame() {
+        if (frameScheduled.compareAndSet(false, true)) mainHandler.postDelayed(frameTask, FRAME_MS);
+    }
+
+    private void runFrame() {
+        frameScheduled.set(false);
+        Listener l = listener;
+        if (l != null) l.onFrame();
+    }
+
+    /**
+     * Appends every queued terminal line to {@code out} and, if not null,
+     * {@code history}. Returns the number of lines.
+     */
+    public int drainTerminal(StringBuilder out, TerminalHistory history) {
+        int n = 0;
+        String line;
+        while ((line = pendingLines.poll()) != null) {
+            pendingCount.decrementAndGet();
+            out.append(line).append('\n');
+            if (history != null) history.append(line);
+            n++;
+        }
+        int dropped = droppedLines.getAndSet(0);
+        if (dropped > 0) {
+            line = "[Terminal] " + dropped + " lines dropped";
+            out.append(line).append('\n');
+            if (history != null) history.append(line);
+        }
+        return n;
+    }
+
+    // ===== Aggregate metrics =====
+
+    public long getTotalRxLines() {
+        long n = 0;
+        for (RobotLink l : links) n += l.getRxLines();
+        return n;
+    }
+
+    public long getTotalRxBytes() {
+        long n = 0;
+        for (RobotLink l : links) n += l.getRxBytes();
+        return n;
+    }
+
+    public long getTotalTxBytes() {
+        long n = 0;
+        for (RobotLink l : links) n += l.getTxBytes();
+        return n;
+    }
+
+    /** TARGET results that were superseded by a newer or better one before reaching the screen. */
+    public long getCoalescedTargets() {
+        long n = 0;
+        for (RobotLink l : links) n += l.getModel().getTargets().getCoalescedCount();
+        return n;
+    }
+
+    /** Recomputes the receive rates at most once a second. Main thread. */
+    public String throughputSummary() {
+        long now = System.nanoTime();
+        long elapsed = now - rateNanos;
+        if (elapsed >= 1_000_000_000L) {
+            long lines = getTotalRxLines();
+            long bytes = getTotalRxBytes();
+            linesPerSecond = (lines - rateLines) * 1e9 / elapsed;
+            bytesPerSecond = (bytes - rateBytes) * 1e9 / elapsed;
+            rateNanos = now;
+            rateLines = lines;
+            rateBytes = bytes;
+        }
+        return String.format(Locale.US, "%d links, %.1f lines/s, %.0f B/s in, %d B out, %d targets coalesced",
+                links.size(), linesPerSecond, bytesPerSecond, getTotalTxBytes(), getCoalescedTargets());
+    }
+
+    /** Stops frame delivery; links stay connected as the single service did before. */
+    public void release() {
+        listener = null;
+        mainHandler.removeCallbacks(frameTask);
+    }
+}
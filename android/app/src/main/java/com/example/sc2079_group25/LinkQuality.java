@@ -0,0 +1,144 @@
+package com.example.sc2079_group25;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Link health from keepalive probes: "PING,&lt;seq&gt;" out, "PONG,&lt;seq&gt;" back.
+ *
+ * Round-trip time and jitter are smoothed as in TCP and RTP (gains 1/8 and
+ * 1/16). A probe with no reply within the timeout counts as missed, and the
+ * loss rate is smoothed the same way. Any received line counts as a sign of
+ * life, so a link that answers no probes but still talks is not stale.
+ *
+ * All times are System.nanoTime() values passed in by the caller, so the
+ * arithmetic can be tested without a clock.
+ */
+public class LinkQuality {
+    public static final String PING = "PING,";
+    public static final String PONG = "PONG,";
+
+    private static final int WINDOW = 32; // Probes that can be outstanding at once
+    private static final int MAX_SEQ = 1_000_000_000; // Nine digits on the wire
+    private static final long GOOD_RTT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final long timeoutNanos;
+    private final long[] sentAt = new long[WINDOW]; // 0: answered, expired or never sent
+    private final int[] seqAt = new int[WINDOW];
+    private int nextSeq = 0;
+    private boolean haveRtt = false;
+    private double rttNanos, jitterNanos, lossRate;
+    private long lastRtt;
+    private long lastHeardNanos;
+    private int sent, answered, missed;
+
+    public LinkQuality(long timeoutNanos) {
+        this.timeoutNanos = timeoutNanos;
+    }
+
+    /** Starts afresh, e.g. when a link is (re)connected at {@code now}. */
+    public synchronized void reset(long now) {
+        for (int i = 0; i < WINDOW; i++) sentAt[i] = 0;
+        haveRtt = false;
+        rttNanos = jitterNanos = lossRate = 0;
+        lastHeardNanos = now;
+        sent = answered = missed = 0;
+    }
+
+    /** Registers a probe sent at {@code now} and returns its sequence number. */
+    public synchronized int nextProbe(long now) {
+        int seq = nextSeq;
+        nextSeq = (nextSeq + 1) % MAX_SEQ;
+        int slot = seq % WINDOW;
+        if (sentAt[slot] != 0) miss(); // Overwritten before it was answered
+        sentAt[slot] = now;
+        seqAt[slot] = seq;
+        sent++;
+        return seq;
+    }
+
+    /** Any line from the peer. */
+    public synchronized void onHeard(long now) {
+        lastHeardNanos = now;
+    }
+
+    public synchronized void onPong(int seq, long now) {
+        lastHeardNanos = now;
+        if (seq < 0) return;
+        int slot = seq % WINDOW;
+        long at = sentAt[slot];
+        if (at == 0 || seqAt[slot] != seq) return; // Unknown, expired or duplicate
+        sentAt[slot] = 0;
+        long rtt = now - at;
+        if (!haveRtt) {
+            rttNanos = rtt;
+            jitterNanos = rtt / 2.0;
+            haveRtt = true;
+        } else {
+            rttNanos += (rtt - rttNanos) / 8;
+            jitterNanos += (Math.abs(rtt - lastRtt) - jitterNanos) / 16;
+        }
+        lastRtt = rtt;
+        lossRate -= lossRate / 8;
+        answered++;
+    }
+
+    /** Counts probes older than the timeout as missed; returns how many expired. */
+    public synchronized int expire(long now) {
+        int n = 0;
+        for (int i = 0; i < WINDOW; i++) {
+            if (sentAt[i] != 0 && now - sentAt[i] > timeoutNanos) {
+                sentAt[i] = 0;
+                miss();
+                n++;
+            }
+        }
+        return n;
+    }
+
+    private void miss() {
+        missed++;
+        lossRate += (1 - lossRate) / 8;
+    }
+
+    /** Whether nothing at all has been heard for longer than {@code staleNanos}. */
+    public synchronized boolean isStale(long now, long staleNanos) {
+        return now - lastHeardNanos > staleNanos;
+    }
+
+    /**
+     * 1 for a healthy link, towards 0 as loss or delay grow: the delivery
+     * rate times how close RTT plus jitter is to {@link #GOOD_RTT_NANOS}.
+     */
+    public synchronized double score() {
+        double delay = haveRtt ? rttNanos + 4 * jitterNanos : 0;
+        double speed = delay <= GOOD_RTT_NANOS ? 1 : GOOD_RTT_NANOS / delay;
+        return (1 - lossRate) * speed;
+    }
+
+    public synchronized double getRttMillis() { return rttNanos / 1e6; }
+    public synchronized double getJitterMillis() { return jitterNanos / 1e6; }
+    public synchronized int getSent() { return sent; }
+    public synchronized int getAnswered() { return answered; }
+    public synchronized int getMissed() { return missed; }
+
+    public synchronized String summary() {
+        return String.format(Locale.US, "q %.2f, rtt %.0f ms, jitter %.0f ms, missed %d/%d",
+                score(), rttNanos / 1e6, jitterNanos / 1e6, missed, sent);
+    }
+
+    /** The sequence number of a "PONG,&lt;seq&gt;" line, or -1 if it is not one. */
+    public static int parsePong(String line) {
+        if (!line.startsWith(PONG)) return -1;
+        int seq = 0;
+        int end = line.length();
+        while (end > PONG.length() && line.charAt(end - 1) == ' ') end--;
+        if (end == PONG.length() || end - PONG.length() > 9) return -1;
+        for (int i = PONG.length(); i < end; i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            seq = seq * 10 + (c - '0');
+        }
+        return seq;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.sc2079_group25;
+
+/**
+ * Packed one-bit-per-cell grids as sent in MAP messages. Cell (x, y) is bit
+ * {@code y * GRID + x}; word {@code i / 64} holds bit {@code i % 64}.
+ *
+ * On the wire a grid is hex, two digits per byte, byte k holding cells
+ * 8k to 8k + 7 with the lowest cell in the lowest bit.
+ */
+final class MapBits {
+    static final int GRID = RobotSimulator.GRID;
+    static final int CELLS = GRID * GRID;
+    static final int WORDS = (CELLS + 63) / 64;
+    static final int HEX_CHARS = (CELLS + 7) / 8 * 2;
+
+    private MapBits() {}
+
+    /**
+     * Decodes {@code s[from, to)} into {@code out}. Returns false, leaving
+     * {@code out} partly written, if it is not exactly one grid of hex.
+     */
+    static boolean decodeHex(CharSequence s, int from, int to, long[] out) {
+        if (to - from != HEX_CHARS) return false;
+        for (int i = 0; i < WORDS; i++) out[i] = 0;
+        for (int k = 0; k < HEX_CHARS / 2; k++) {
+            int hi = digit(s.charAt(from + 2 * k));
+            int lo = digit(s.charAt(from + 2 * k + 1));
+            if (hi < 0 || lo < 0) return false;
+            out[k >>> 3] |= (long) (hi << 4 | lo) << ((k & 7) * 8);
+        }
+        // Padding bits past the last cell are ignored
+        out[WORDS - 1] &= -1L >>> (WORDS * 64 - CELLS);
+        return true;
+    }
+
+    private static int digit(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+        return -1;
+    }
+
+    static boolean get(long[] bits, int cell) {
+        return (bits[cell >>> 6] & (1L << cell)) != 0;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.sc2079_group25;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+/**
+ * The robot's explored-map telemetry: unexplored cells greyed out, cells it
+ * has found blocked shaded, explored free cells left clear.
+ *
+ * Like {@link CoverageLayer}, the map is a bitmap with one pixel per cell.
+ * Updates carry a mask of the cells whose bits changed; only those pixels
+ * are written, on the draw thread.
+ */
+class MapLayer {
+    private static final int UNEXPLORED = Color.argb(90, 120, 120, 120);
+    private static final int BLOCKED = Color.argb(150, 121, 85, 72);
+
+    private final int cols, rows;
+    private final Paint paint = new Paint(); // No filtering: cells stay sharp when scaled
+    private final Rect src;
+    private final RectF dst = new RectF();
+
+    // Guarded by this
+    private final long[] explored = new long[MapBits.WORDS];
+    private final long[] obstacles = new long[MapBits.WORDS];
+    private final long[] dirty = new long[MapBits.WORDS];
+    private int exploredCells = 0;
+
+    private Bitmap bitmap; // Draw thread only
+
+    MapLayer(int cols, int rows) {
+        this.cols = cols;
+        this.rows = rows;
+        this.src = new Rect(0, 0, cols, rows);
+    }
+
+    /** Copies the latest bits; {@code changed} marks the cells that differ from the last update. */
+    synchronized void update(long[] explored, long[] obstacles, long[] changed) {
+        int n = 0;
+        for (int w = 0; w < MapBits.WORDS; w++) {
+            this.explored[w] = explored[w];
+            this.obstacles[w] = obstacles[w];
+            dirty[w] |= changed[w];
+            n += Long.bitCount(explored[w]);
+        }
+        exploredCells = n;
+    }
+
+    synchronized boolean isExplored(int col, int row) {
+        return MapBits.get(explored, row * cols + col);
+    }
+
+    synchronized boolean isBlocked(int col, int row) {
+        return MapBits.get(obstacles, row * cols + col);
+    }
+
+    /** Fraction of the arena the robot reports as explored. */
+    synchronized float getExplored() {
+        return (float) exploredCells / (cols * rows);
+    }
+
+    void draw(Canvas canvas, float left, float top, float width, float height) {
+        synchronized (this) {
+            // Nothing explored means no map has arrived; do not grey out the arena
+            if (exploredCells == 0) return;
+            if (bitmap == null) {
+                bitmap = Bitmap.createBitmap(cols, rows, Bitmap.Config.ARGB_8888);
+                for (int i = 0; i < cols * rows; i++) setCell(i);
+                for (int w = 0; w < MapBits.WORDS; w++) dirty[w] = 0;
+            } else {
+                for (int w = 0; w < MapBits.WORDS; w++) {
+                    for (long bits = dirty[w]; bits != 0; bits &= bits - 1) {
+                        int i = w * 64 + Long.numberOfTrailingZeros(bits);
+                        if (i < cols * rows) setCell(i);
+                    }
+                    dirty[w] = 0;
+                }
+            }
+        }
+        dst.set(left, top, left + width, top + height);
+        canvas.drawBitmap(bitmap, src, dst, paint);
+    }
+
+    private void setCell(int i) {
+        int color = !MapBits.get(explored, i) ? UNEXPLORED
+                : MapBits.get(obstacles, i) ? BLOCKED : Color.TRANSPARENT;
+        // Bitmap rows run top-down, grid rows bottom-up
+        bitmap.setPixel(i % cols, rows - 1 - i / cols, color);
+    }
+
+    synchronized void release() {
+        if (bitmap != null) bitmap.recycle();
+        bitmap = null; // Rebuilt from the bits if drawn again
+    }
+}
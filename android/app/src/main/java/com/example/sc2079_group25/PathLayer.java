@@ -0,0 +1,140 @@
+package com.example.sc2079_group25;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.PorterDuff;
+
+import java.util.Arrays;
+
+/**
+ * The planner's intended route, drawn over the arena.
+ *
+ * Points are kept in grid coordinates and simplified as they arrive. The
+ * stroked path lives in its own bitmap, which is only re-rendered when the
+ * path or the arena geometry changes; appended points are drawn onto it
+ * incrementally. Every other frame just blits the bitmap.
+ */
+class PathLayer {
+    private static final float EPSILON_CELLS = 0.05f;
+
+    private final Paint pathPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Path path = new Path();
+
+    private float[] pts = new float[256]; // x0, y0, x1, y1, ... in grid cells
+    private int count = 0;
+    private int drawnCount = 0; // Points already rendered into the bitmap
+
+    private Bitmap bitmap;
+    private Canvas bitmapCanvas;
+    private boolean fullRedraw = true;
+    private float startX, startY, cellWidth, cellHeight;
+    private int gridCountY;
+
+    PathLayer() {
+        pathPaint.setColor(Color.rgb(33, 150, 243));
+        pathPaint.setStyle(Paint.Style.STROKE);
+        pathPaint.setStrokeWidth(4f);
+        pathPaint.setStrokeJoin(Paint.Join.ROUND);
+        pathPaint.setStrokeCap(Paint.Cap.ROUND);
+    }
+
+    int getPointCount() {
+        return count;
+    }
+
+    /** The kept points, interleaved x, y; only the first {@link #getPointCount()} are valid. */
+    float[] getPoints() {
+        return pts;
+    }
+
+    /** Replaces the path with the first {@code n} points of {@code src}. */
+    void set(float[] src, int n) {
+        ensureCapacity(n);
+        System.arraycopy(src, 0, pts, 0, 2 * n);
+        count = PolylineSimplifier.simplify(pts, n, EPSILON_CELLS);
+        drawnCount = 0;
+        fullRedraw = true;
+    }
+
+    /** Extends the path; only the new points are simplified, anchored on the current last point. */
+    void append(float[] src, int n) {
+        if (n <= 0) return;
+        if (count == 0) {
+            set(src, n);
+            return;
+        }
+        ensureCapacity(count + n);
+        int anchor = count - 1;
+        System.arraycopy(src, 0, pts, 2 * count, 2 * n);
+        float[] tail = Arrays.copyOfRange(pts, 2 * anchor, 2 * (count + n));
+        int kept = PolylineSimplifier.simplify(tail, n + 1, EPSILON_CELLS);
+        System.arraycopy(tail, 0, pts, 2 * anchor, 2 * kept);
+        count = anchor + kept;
+    }
+
+    void clear() {
+        count = 0;
+        drawnCount = 0;
+        fullRedraw = true;
+    }
+
+    private void ensureCapacity(int points) {
+        if (pts.length < 2 * points) pts = Arrays.copyOf(pts, Math.max(2 * points, pts.length * 2));
+    }
+
+    void draw(Canvas canvas, int width, int height, float startX, float startY,
+              float cellWidth, float cellHeight, int gridCountY) {
+        if (count < 2 || width <= 0 || height <= 0) return;
+
+        if (bitmap == null || bitmap.getWidth() != width || bitmap.getHeight() != height) {
+            if (bitmap != null) bitmap.recycle();
+            bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            bitmapCanvas = new Canvas(bitmap);
+            fullRedraw = true;
+        }
+        if (startX != this.startX || startY != this.startY || cellWidth != this.cellWidth
+                || cellHeight != this.cellHeight || gridCountY != this.gridCountY) {
+            this.startX = startX;
+            this.startY = startY;
+            this.cellWidth = cellWidth;
+            this.cellHeight = cellHeight;
+            this.gridCountY = gridCountY;
+            fullRedraw = true;
+        }
+
+        if (fullRedraw) {
+            bitmapCanvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+            drawnCount = 0;
+            fullRedraw = false;
+        }
+        if (drawnCount < count) {
+            // Rebuilt only for points not yet in the bitmap
+            int from = Math.max(0, drawnCount - 1);
+            path.rewind();
+            path.incReserve(count - from);
+            path.moveTo(toX(pts[2 * from]), toY(pts[2 * from + 1]));
+            for (int i = from + 1; i < count; i++) path.lineTo(toX(pts[2 * i]), toY(pts[2 * i + 1]));
+            bitmapCanvas.drawPath(path, pathPaint);
+            drawnCount = count;
+        }
+        canvas.drawBitmap(bitmap, 0, 0, null);
+    }
+
+    private float toX(float gx) {
+        return startX + (gx + 0.5f) * cellWidth;
+    }
+
+    private float toY(float gy) {
+        return startY + (gridCountY - 1 - gy + 0.5f) * cellHeight;
+    }
+
+    void release() {
+        if (bitmap != null) bitmap.recycle();
+        bitmap = null;
+        bitmapCanvas = null;
+        fullRedraw = true;
+    }
+}
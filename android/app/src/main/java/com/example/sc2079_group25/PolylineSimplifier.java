@@ -0,0 +1,71 @@
+package com.example.sc2079_group25;
+
+/**
+ * Ramer-Douglas-Peucker simplification of polylines stored as interleaved
+ * {@code x0, y0, x1, y1, ...} floats. Iterative, so paths with thousands of
+ * points cannot overflow the stack.
+ */
+public final class PolylineSimplifier {
+    private PolylineSimplifier() {}
+
+    /**
+     * Simplifies the first {@code count} points of {@code pts} in place and
+     * returns the number of points kept. The first and last points always stay.
+     */
+    public static int simplify(float[] pts, int count, float epsilon) {
+        if (count < 3) return count;
+        boolean[] keep = new boolean[count];
+        keep[0] = true;
+        keep[count - 1] = true;
+
+        int[] stack = new int[2 * count];
+        int sp = 0;
+        stack[sp++] = 0;
+        stack[sp++] = count - 1;
+        float eps2 = epsilon * epsilon;
+
+        while (sp > 0) {
+            int last = stack[--sp];
+            int first = stack[--sp];
+            float ax = pts[2 * first], ay = pts[2 * first + 1];
+            float dx = pts[2 * last] - ax, dy = pts[2 * last + 1] - ay;
+            float len2 = dx * dx + dy * dy;
+
+            float maxDist2 = -1;
+            int index = -1;
+            for (int i = first + 1; i < last; i++) {
+                float d2 = distanceSquared(pts[2 * i] - ax, pts[2 * i + 1] - ay, dx, dy, len2);
+                if (d2 > maxDist2) {
+                    maxDist2 = d2;
+                    index = i;
+                }
+            }
+            if (index >= 0 && maxDist2 > eps2) {
+                keep[index] = true;
+                stack[sp++] = first;
+                stack[sp++] = index;
+                stack[sp++] = index;
+                stack[sp++] = last;
+            }
+        }
+
+        int out = 0;
+        for (int i = 0; i < count; i++) {
+            if (!keep[i]) continue;
+            pts[2 * out] = pts[2 * i];
+            pts[2 * out + 1] = pts[2 * i + 1];
+            out++;
+        }
+        return out;
+    }
+
+    /** Squared distance from point (px, py) to the segment from the origin to (dx, dy). */
+    private static float distanceSquared(float px, float py, float dx, float dy, float len2) {
+        if (len2 == 0) return px * px + py * py;
+        float t = (px * dx + py * dy) / len2;
+        if (t < 0) t = 0;
+        else if (t > 1) t = 1;
+        float ex = px - t * dx, ey = py - t * dy;
+        return ex * ex + ey * ey;
+    }
+}
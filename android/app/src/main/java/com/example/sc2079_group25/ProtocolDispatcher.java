@@ -0,0 +1,210 @@
+package com.example.sc2079_group25;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+
+/**
+ * Parses the lines one robot sends into updates on its {@link ArenaModel}.
+ * Runs on the link's reader thread, so it must not touch views.
+ */
+public class ProtocolDispatcher {
+    private final ArenaModel model;
+    private final RunTimeline timeline; // May be null
+    private float[] pathScratch = new float[256]; // Reader thread only
+    private final long[] mapExplored = new long[MapBits.WORDS]; // Reader thread only
+    private final long[] mapObstacles = new long[MapBits.WORDS];
+
+    public ProtocolDispatcher(ArenaModel model) {
+        this(model, null);
+    }
+
+    /** Also stamps poses, targets and status changes into {@code timeline} while a run is going. */
+    public ProtocolDispatcher(ArenaModel model, RunTimeline timeline) {
+        this.model = model;
+        this.timeline = timeline;
+    }
+
+    /** Returns a message for the terminal if the line was malformed, otherwise null. */
+    public String dispatch(String line) {
+        if (line == null) return null;
+
+        // Handle "TARGET, <id>, <Value>[, <confidence>]" protocol
+        if (line.startsWith("TARGET,")) {
+            return dispatchTarget(line);
+        }
+
+        // Handle "PATH, <x>, <y>, <x>, <y>, ..." (replace) and "PATH+, ..." (append) protocol
+        if (line.startsWith("PATH,") || line.startsWith("PATH+,")) {
+            return dispatchPath(line, line.charAt(4) == '+');
+        }
+
+        // Handle "MAP, <explored>, <obstacles>" (replace) and "MAP+, ..." (flip) protocol
+        if (line.startsWith("MAP,") || line.startsWith("MAP+,")) {
+            return dispatchMap(line, line.charAt(3) == '+');
+        }
+
+        // Handle "ROBOT, <x>, <y>, <direction>" protocol
+        if (line.startsWith("ROBOT,")) {
+            try {
+                String[] parts = line.split(",");
+                if (parts.length >= 4) {
+                    float rx = Float.parseFloat(parts[1].trim());
+                    float ry = Float.parseFloat(parts[2].trim());
+                    String dirStr = parts[3].trim().toUpperCase();
+                    float rotation = 0;
+                    if (dirStr.equals("E")) rotation = 90;
+                    else if (dirStr.equals("S")) rotation = 180;
+                    else if (dirStr.equals("W")) rotation = 270;
+
+                    model.setRobot(rx, ry, rotation);
+                    if (timeline != null) timeline.markPose(System.nanoTime(), rx, ry, rotation);
+                }
+            } catch (Exception e) {
+                return "Failed to parse robot update: " + line;
+            }
+            return null;
+        }
+
+        dispatchJson(line);
+        return null;
+    }
+
+    /**
+     * Recognition results arrive in bursts, so this avoids split() and
+     * substring(): the value is parsed straight into the model's aggregator.
+     */
+    private String dispatchTarget(String line) {
+        int idStart = "TARGET,".length();
+        int idEnd = line.indexOf(',', idStart);
+        if (idEnd < 0) return null;
+        int valueEnd = line.indexOf(',', idEnd + 1);
+        if (valueEnd < 0) valueEnd = line.length();
+
+        int id;
+        try {
+            id = Integer.parseInt(line.substring(idStart, idEnd).trim());
+        } catch (NumberFormatException e) {
+            return "Failed to parse target update: " + line;
+        }
+        float confidence = TargetAggregator.NO_CONFIDENCE;
+        if (valueEnd < line.length()) {
+            try {
+                confidence = Float.parseFloat(line.substring(valueEnd + 1).trim());
+            } catch (NumberFormatException ignored) {
+                // Extra fields that are not a confidence are ignored, as before
+            }
+        }
+
+        // Only accept the first two characters, and both must be digits
+        int v = skipSpaces(line, idEnd + 1, valueEnd);
+        int end = valueEnd;
+        while (end > v && line.charAt(end - 1) == ' ') end--;
+        if (end - v < 2) {
+            return "Target value too short (need at least 2 digits): " + line.substring(v, end);
+        }
+        char c0 = line.charAt(v);
+        char c1 = line.charAt(v + 1);
+        if (c0 < '0' || c0 > '9' || c1 < '0' || c1 > '9') {
+            return "First two characters must be digits: " + c0 + c1;
+        }
+        int value = (c0 - '0') * 10 + (c1 - '0');
+        if (!model.offerTarget(id, value, confidence)) {
+            return "Target id out of range: " + id;
+        }
+        if (timeline != null) timeline.markTarget(System.nanoTime(), id, value);
+        return null;
+    }
+
+    private String dispatchPath(String line, boolean append) {
+        int n = 0;
+        int from = line.indexOf(',') + 1;
+        while (from < line.length()) {
+            int to = line.indexOf(',', from);
+            if (to < 0) to = line.length();
+            String token = line.substring(from, to).trim();
+            from = to + 1;
+            if (token.isEmpty()) continue;
+            if (n == pathScratch.length) pathScratch = Arrays.copyOf(pathScratch, n * 2);
+            try {
+                pathScratch[n++] = Float.parseFloat(token);
+            } catch (NumberFormatException e) {
+                return "Failed to parse path: bad coordinate " + token;
+            }
+        }
+        if (n % 2 != 0) return "Failed to parse path: odd number of coordinates";
+        if (append) model.appendPath(pathScratch, n / 2);
+        else model.setPath(pathScratch, n / 2);
+        return null;
+    }
+
+    /**
+     * Both bitsets are hex (see {@link MapBits}) and are decoded in place
+     * from the line, so a map update allocates nothing.
+     */
+    private String dispatchMap(String line, boolean delta) {
+        int from = line.indexOf(',') + 1;
+        int comma = line.indexOf(',', from);
+        if (comma < 0) return "Failed to parse map: expected explored and obstacle bits";
+        if (!MapBits.decodeHex(line, skipSpaces(line, from, comma), trimEnd(line, from, comma), mapExplored)
+                || !MapBits.decodeHex(line, skipSpaces(line, comma + 1, line.length()),
+                        trimEnd(line, comma + 1, line.length()), mapObstacles)) {
+            return "Failed to parse map: each bitset must be " + MapBits.HEX_CHARS + " hex digits";
+        }
+        model.updateMap(mapExplored, mapObstacles, delta);
+        return null;
+    }
+
+    private static int skipSpaces(String s, int from, int end) {
+        while (from < end && s.charAt(from) == ' ') from++;
+        return from;
+    }
+
+    private static int trimEnd(String s, int from, int end) {
+        while (end > from && s.charAt(end - 1) == ' ') end--;
+        return end;
+    }
+
+    private void dispatchJson(String line) {
+        try {
+            // Find start of any JSON object in the line
+            int start = line.indexOf("{");
+            if (start == -1) return;
+            int end = line.lastIndexOf("}");
+            if (end == -1 || end < start) return;
+
+            JSONObject json = new JSONObject(line.substring(start, end + 1));
+
+            if (json.has("status")) {
+                String status = json.getString("status");
+                model.setStatus(status);
+                if (timeline != null) timeline.markStatus(System.nanoTime(), status);
+            }
+
+            // Robot position: {"robot": {"x": 10, "y": 5, "r": 90}}
+            if (json.has("robot")) {
+                JSONObject robot = json.getJSONObject("robot");
+                float rx = (float) robot.getDouble("x");
+                float ry = (float) robot.getDouble("y");
+                float rr = (float) robot.getDouble("r");
+                model.setRobot(rx, ry, rr);
+                if (timeline != null) timeline.markPose(System.nanoTime(), rx, ry, rr);
+            }
+
+            // Obstacle: {"obstacle": {"id": 1, "x": 8, "y": 8}}
+            if (json.has("obstacle")) {
+                JSONObject obs = json.getJSONObject("obstacle");
+                model.addObstacle(obs.getInt("id"), (float) obs.getDouble("x"), (float) obs.getDouble("y"));
+            }
+
+            // Map clear: {"clear": true}
+            if (json.has("clear") && json.getBoolean("clear")) {
+                model.clear();
+            }
+
+        } catch (JSONException ignored) {
+            // Not a valid JSON or doesn't match expected pattern
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.sc2079_group25;
+
+/**
+ * Optional copy of the raw bytes read from the link, for debugging framing.
+ *
+ * The reader thread copies chunks into a fixed ring and does nothing else; no
+ * strings are built and nothing is posted. The UI calls {@link #render()} only
+ * while the raw pane is on screen, and only when {@link #getVersion()} moved.
+ */
+public class RawTap {
+    public static final int MODE_OFF = 0;
+    public static final int MODE_SAMPLED = 1; // At most one chunk per sample interval, shown as text
+    public static final int MODE_HEX = 2;     // Every byte, shown as a hex dump
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private static final int HEX_ROW = 16;
+
+    private final byte[] ring;
+    private final byte[] scratch;
+    private final long sampleIntervalNanos;
+
+    private volatile int mode = MODE_OFF;
+    private volatile long version = 0;
+
+    // Guarded by this
+    private int head = 0; // Next write position
+    private int size = 0;
+    private long lastSampleNanos = 0;
+    private long tappedBytes = 0;
+    private long skippedChunks = 0;
+
+    public RawTap(int capacity, long sampleIntervalNanos) {
+        this.ring = new byte[capacity];
+        this.scratch = new byte[capacity];
+        this.sampleIntervalNanos = sampleIntervalNanos;
+    }
+
+    public int getMode() {
+        return mode;
+    }
+
+    public synchronized void setMode(int mode) {
+        if (this.mode == mode) return;
+        this.mode = mode;
+        head = 0;
+        size = 0;
+        lastSampleNanos = 0;
+        version++;
+    }
+
+    /** Incremented whenever the tapped bytes change; lets the UI skip redundant renders. */
+    public long getVersion() {
+        return version;
+    }
+
+    public synchronized long getTappedBytes() {
+        return tappedBytes;
+    }
+
+    public synchronized long getSkippedChunks() {
+        return skippedChunks;
+    }
+
+    /** Called on the reader thread for every chunk. */
+    public void offer(byte[] buffer, int length) {
+        int m = mode;
+        if (m == MODE_OFF || length <= 0) return;
+        synchronized (this) {
+            if (m == MODE_SAMPLED) {
+                long now = System.nanoTime();
+                if (lastSampleNanos != 0 && now - lastSampleNanos < sampleIntervalNanos) {
+                    skippedChunks++;
+                    return;
+                }
+                lastSampleNanos = now;
+            }
+            // Only the tail of an oversized chunk fits
+            int from = Math.max(0, length - ring.length);
+            int n = length - from;
+            int first = Math.min(n, ring.length - head);
+            System.arraycopy(buffer, from, ring, head, first);
+            System.arraycopy(buffer, from + first, ring, 0, n - first);
+            head = (head + n) % ring.length;
+            size = Math.min(ring.length, size + n);
+            tappedBytes += length;
+            version++;
+        }
+    }
+
+    /** Formats the buffered bytes for display, oldest first. Call from the UI thread. */
+    public String render() {
+        int n;
+        int m;
+        synchronized (this) {
+            m = mode;
+            n = size;
+            int start = (head - n + ring.length) % ring.length;
+            int first = Math.min(n, ring.length - start);
+            System.arraycopy(ring, start, scratch, 0, first);
+            System.arraycopy(ring, 0, scratch, first, n - first);
+        }
+        return m == MODE_HEX ? hexDump(scratch, n) : escaped(scratch, n);
+    }
+
+    static String escaped(byte[] b, int n) {
+        StringBuilder sb = new StringBuilder(n + 16);
+        for (int i = 0; i < n; i++) {
+            int c = b[i] & 0xFF;
+            if (c == '\r') sb.append("[R]");
+            else if (c == '\n') sb.append("[N]");
+            else if (c < 0x20 || c >= 0x7F) sb.append('.');
+            else sb.append((char) c);
+        }
+        return sb.toString();
+    }
+
+    static String hexDump(byte[] b, int n) {
+        StringBuilder sb = new StringBuilder((n / HEX_ROW + 1) * (HEX_ROW * 4 + 2));
+        for (int row = 0; row < n; row += HEX_ROW) {
+            int end = Math.min(n, row + HEX_ROW);
+            for (int i = row; i < row + HEX_ROW; i++) {
+                if (i < end) {
+                    sb.append(HEX[(b[i] >> 4) & 0xF]).append(HEX[b[i] & 0xF]).append(' ');
+                } else {
+                    sb.append("   ");
+                }
+            }
+            sb.append(' ');
+            for (int i = row; i < end; i++) {
+                int c = b[i] & 0xFF;
+                sb.append(c >= 0x20 && c < 0x7F ? (char) c : '.');
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
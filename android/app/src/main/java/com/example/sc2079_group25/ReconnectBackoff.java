@@ -0,0 +1,49 @@
+package com.example.sc2079_group25;
+
+import java.util.Random;
+
+/**
+ * Jittered exponential backoff used when the link to a known device drops.
+ * Delays start short so a brief dropout recovers within a second or two.
+ */
+public class ReconnectBackoff {
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final int maxAttempts;
+    private final Random random;
+
+    private int attempt = 0;
+
+    public ReconnectBackoff(long baseDelayMs, long maxDelayMs, int maxAttempts) {
+        this(baseDelayMs, maxDelayMs, maxAttempts, new Random());
+    }
+
+    ReconnectBackoff(long baseDelayMs, long maxDelayMs, int maxAttempts, Random random) {
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.maxAttempts = maxAttempts;
+        this.random = random;
+    }
+
+    public boolean hasNext() {
+        return attempt < maxAttempts;
+    }
+
+    /** Returns the delay before the next attempt, or -1 once attempts are exhausted. */
+    public long nextDelayMs() {
+        if (!hasNext()) return -1;
+        long cap = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt, 16));
+        attempt++;
+        // "Equal jitter": half fixed, half random, so attempts never bunch at zero
+        long half = cap / 2;
+        return half + (long) (random.nextDouble() * (cap - half));
+    }
+
+    public int getAttempt() {
+        return attempt;
+    }
+
+    public void reset() {
+        attempt = 0;
+    }
+}
@@ -9,4 +9,6 @@ public class RobotCommands {
     public static final String REVERSE = "r";
     public static final String TURN_LEFT = "tl";
     public static final String TURN_RIGHT = "tr";
+    public static final String TASK1_START = "Task1:Start";
+    public static final String TASK2_START = "Task2:Start";
 }
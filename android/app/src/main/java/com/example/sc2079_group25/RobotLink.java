@@ -0,0 +1,125 @@
+package com.example.sc2079_group25;
+
+import android.content.Context;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One robot connection: its serial service, protocol dispatcher and arena
+ * model. Events are handled on the link's own threads; the UI only sees the
+ * result when {@link LinkManager} runs a frame.
+ */
+public class RobotLink implements BluetoothEventListener {
+    private static final int TIMELINE_EVENTS = 8192; // ~10 min of poses at 10 Hz
+
+    private final LinkManager manager;
+    private final int number;
+    private final BluetoothSerialService service;
+    private final ArenaModel model = new ArenaModel();
+    private final RunTimeline timeline = new RunTimeline(TIMELINE_EVENTS);
+    private final ProtocolDispatcher dispatcher = new ProtocolDispatcher(model, timeline);
+
+    private final AtomicLong rxLines = new AtomicLong();
+    private final AtomicLong txBytes = new AtomicLong();
+    private volatile int state = BtConstants.STATE_NONE;
+    private volatile String detail = "";
+
+    private ArenaView view; // Main thread only
+
+    RobotLink(LinkManager manager, Context context, int number) {
+        this.manager = manager;
+        this.number = number;
+        // Direct delivery: parsing happens on the reader thread, not the main thread
+        this.service = new BluetoothSerialService(context, this, Runnable::run);
+    }
+
+    public String getLabel() {
+        return "Link " + number;
+    }
+
+    public BluetoothSerialService getService() {
+        return service;
+    }
+
+    public ArenaModel getModel() {
+        return model;
+    }
+
+    public int getState() {
+        return state;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+
+    public RunTimeline getTimeline() {
+        return timeline;
+    }
+
+    public ArenaView getView() {
+        return view;
+    }
+
+    public void setView(ArenaView view) {
+        this.view = view;
+    }
+
+    public long getRxLines() { return rxLines.get(); }
+    public long getRxBytes() { return service.getRxBytes(); } // Counted as read, not per line
+    public long getTxBytes() { return txBytes.get(); }
+
+    /** Returns false if the link is not connected or the write failed. */
+    public boolean send(String line) {
+        int n = service.writeLine(line);
+        if (n == 0) return false;
+        txBytes.addAndGet(n); // Encoded bytes, not chars
+        return true;
+    }
+
+    /**
+     * Like {@link #send} for traffic that can wait; it may be held back while
+     * the link is degraded, and a held line may be replaced by a newer one.
+     * Bytes are counted, and {@code onSent} called, only once a line is
+     * written. Returns false if the line was held rather than sent now.
+     * See {@link BluetoothSerialService#writeLineDeferrable}.
+     */
+    public boolean sendDeferrable(String line, BluetoothSerialService.SentListener onSent) {
+        return service.writeLineDeferrable(line, (text, bytes) -> {
+            txBytes.addAndGet(bytes);
+            if (onSent != null) onSent.onSent(text, bytes);
+        });
+    }
+
+    /** Tag for terminal lines; empty while there is only one link. */
+    public String prefix() {
+        return manager.size() > 1 ? "[" + getLabel() + "] " : "";
+    }
+
+    public static String stateName(int state) {
+        if (state == BtConstants.STATE_CONNECTED) return "Connected";
+        if (state == BtConstants.STATE_CONNECTING) return "Connecting";
+        if (state == BtConstants.STATE_LISTENING) return "Listening (Waiting for device)";
+        return "Not connected";
+    }
+
+    @Override
+    public void onConnectionStateChanged(int state, String detail) {
+        this.state = state;
+        this.detail = detail;
+        manager.postTerminal(prefix() + "[State] " + stateName(state));
+    }
+
+    @Override
+    public void onLineReceived(String line) {
+        rxLines.incrementAndGet();
+        manager.postTerminal(prefix() + "[RX] " + line);
+        String error = dispatcher.dispatch(line);
+        if (error != null) manager.postTerminal(prefix() + "[Error] " + error);
+    }
+
+    @Override
+    public void onError(String message, Throwable t) {
+        manager.postTerminal(prefix() + "[Error] " + message);
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.sc2079_group25;
+
+/**
+ * The robot's motion model in plain Java, so command sequences can be run
+ * off-device: in unit tests, or thousands of times to check a planned route.
+ *
+ * The static helpers are the model itself and are what {@link ArenaState}
+ * uses for the arena view's local prediction. An instance adds a pose and an
+ * obstacle grid and rejects moves whose 3x3 footprint would hit an obstacle.
+ * Nothing is allocated per command.
+ */
+public final class RobotSimulator {
+    public static final int GRID = 20;
+
+    public static final int OK = 0;
+    public static final int BLOCKED = 1;
+    public static final int UNKNOWN_COMMAND = 2;
+
+    private static final float ROBOT_MIN = 1;
+    private static final float ROBOT_MAX = GRID - 2;
+
+    private final long[] occupied = new long[(GRID * GRID + 63) / 64];
+    private float x = 1, y = 1, rotation = 0;
+    private int commands = 0;
+    private int collisions = 0;
+
+    /** Keeps a robot centre inside the arena. */
+    static float constrain(float v) {
+        return Math.max(ROBOT_MIN, Math.min(ROBOT_MAX, v));
+    }
+
+    /** X after moving one cell forward ({@code step} 1) or backward (-1); 0: N, 90: E, 180: S, 270: W. */
+    static float movedX(float x, float rotation, int step) {
+        if (rotation == 90) return constrain(x + step);
+        if (rotation == 270) return constrain(x - step);
+        return constrain(x);
+    }
+
+    static float movedY(float y, float rotation, int step) {
+        if (rotation == 0) return constrain(y + step);
+        if (rotation == 180) return constrain(y - step);
+        return constrain(y);
+    }
+
+    static float turned(float rotation, int degrees) {
+        return (rotation + degrees + 360) % 360;
+    }
+
+    public RobotSimulator reset(float x, float y, float rotation) {
+        this.x = constrain(x);
+        this.y = constrain(y);
+        this.rotation = rotation;
+        commands = 0;
+        collisions = 0;
+        return this;
+    }
+
+    public void clearObstacles() {
+        for (int i = 0; i < occupied.length; i++) occupied[i] = 0;
+    }
+
+    /** Marks grid cell (gx, gy) as blocked; cells outside the arena are ignored. */
+    public void addObstacle(int gx, int gy) {
+        if (gx < 0 || gy < 0 || gx >= GRID || gy >= GRID) return;
+        int i = gy * GRID + gx;
+        occupied[i >>> 6] |= 1L << i;
+    }
+
+    public boolean isOccupied(int gx, int gy) {
+        if (gx < 0 || gy < 0 || gx >= GRID || gy >= GRID) return false;
+        int i = gy * GRID + gx;
+        return (occupied[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /**
+     * Applies one {@link RobotCommands} command. A blocked move leaves the pose
+     * unchanged; a turn is blocked if either of its two moves would collide.
+     */
+    public int apply(String command) {
+        commands++;
+        switch (command) {
+            case RobotCommands.FORWARD:
+                return move(1);
+            case RobotCommands.REVERSE:
+                return move(-1);
+            case RobotCommands.TURN_LEFT:
+                return turn(-90);
+            case RobotCommands.TURN_RIGHT:
+                return turn(90);
+            default:
+                return UNKNOWN_COMMAND;
+        }
+    }
+
+    /** Runs {@code script} until a command fails; returns how many succeeded. */
+    public int run(String... script) {
+        for (int i = 0; i < script.length; i++) {
+            if (apply(script[i]) != OK) return i;
+        }
+        return script.length;
+    }
+
+    private int move(int step) {
+        float nx = movedX(x, rotation, step);
+        float ny = movedY(y, rotation, step);
+        if (hits(nx, ny)) {
+            collisions++;
+            return BLOCKED;
+        }
+        x = nx;
+        y = ny;
+        return OK;
+    }
+
+    private int turn(int degrees) {
+        float mx = movedX(x, rotation, 1);
+        float my = movedY(y, rotation, 1);
+        float r = turned(rotation, degrees);
+        float nx = movedX(mx, r, 1);
+        float ny = movedY(my, r, 1);
+        if (hits(mx, my) || hits(nx, ny)) {
+            collisions++;
+            return BLOCKED;
+        }
+        x = nx;
+        y = ny;
+        rotation = r;
+        return OK;
+    }
+
+    /** Whether a robot centred on cell (col, row) is inside the arena and clear of obstacles. */
+    public boolean fits(int col, int row) {
+        return col >= ROBOT_MIN && col <= ROBOT_MAX && row >= ROBOT_MIN && row <= ROBOT_MAX
+                && !hits(col, row);
+    }
+
+    /** Whether the 3x3 footprint centred on (cx, cy) covers an obstacle. */
+    private boolean hits(float cx, float cy) {
+        int col = Math.round(cx), row = Math.round(cy);
+        for (int gy = row - 1; gy <= row + 1; gy++) {
+            for (int gx = col - 1; gx <= col + 1; gx++) {
+                if (isOccupied(gx, gy)) return true;
+            }
+        }
+        return false;
+    }
+
+    public float getX() { return x; }
+    public float getY() { return y; }
+    public float getRotation() { return rotation; }
+    public int getCommandCount() { return commands; }
+    public int getCollisions() { return collisions; }
+}
@@ -0,0 +1,65 @@
+package com.example.sc2079_group25;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Trace;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The four robot bitmaps, decoded once per process on a background thread
+ * so that inflating an {@link ArenaView} does not block the main thread.
+ */
+final class RobotSprites {
+    static final int UP = 0, RIGHT = 1, DOWN = 2, LEFT = 3;
+
+    private static final int[] RESOURCES = {
+            R.drawable.car_up, R.drawable.car_right, R.drawable.car_down, R.drawable.car_left
+    };
+
+    private static volatile Bitmap[] bitmaps;
+    private static final List<Runnable> waiters = new ArrayList<>(); // Also guards loading
+    private static boolean loading = false;
+
+    private RobotSprites() {}
+
+    /** Starts decoding if it has not started yet. */
+    static void prefetch(Resources res) {
+        get(res, UP, null);
+    }
+
+    /**
+     * Returns the bitmap facing {@code which}, or null while decoding. In that
+     * case {@code onReady} runs once on the decoding thread when they are done.
+     */
+    static Bitmap get(Resources res, int which, Runnable onReady) {
+        Bitmap[] b = bitmaps;
+        if (b != null) return b[which];
+        synchronized (waiters) {
+            if (bitmaps != null) return bitmaps[which];
+            if (onReady != null && !waiters.contains(onReady)) waiters.add(onReady);
+            if (!loading) {
+                loading = true;
+                BtExecutors.io().execute(() -> decode(res));
+            }
+        }
+        return null;
+    }
+
+    private static void decode(Resources res) {
+        Trace.beginSection("RobotSprites.decode");
+        Bitmap[] b = new Bitmap[RESOURCES.length];
+        for (int i = 0; i < b.length; i++) b[i] = BitmapFactory.decodeResource(res, RESOURCES[i]);
+        Trace.endSection();
+
+        List<Runnable> ready;
+        synchronized (waiters) {
+            bitmaps = b;
+            ready = new ArrayList<>(waiters);
+            waiters.clear();
+        }
+        for (Runnable r : ready) r.run();
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.sc2079_group25;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Timestamps one task run: the start command, robot poses, TARGET results
+ * and status changes, using {@link System#nanoTime()} values.
+ *
+ * Events go into arrays allocated once up front, so marking costs no
+ * allocation on the reader thread. When the arrays are full further events
+ * are counted as dropped; the run's start and stop times are kept regardless.
+ */
+public class RunTimeline {
+    public static final int START = 0;
+    public static final int POSE = 1;
+    public static final int TARGET = 2;
+    public static final int STATUS = 3;
+    public static final int STOP = 4;
+
+    private static final String[] TYPE_NAMES = { "START", "POSE", "TARGET", "STATUS", "STOP" };
+
+    private final long[] times;
+    private final byte[] types;
+    private final float[] arg0, arg1, arg2; // Pose: x, y, rotation; target: id, value
+    private final String[] text;            // Start label or status
+
+    // Guarded by this
+    private int count = 0;
+    private int dropped = 0;
+    private boolean running = false;
+    private long startNanos = 0, stopNanos = 0;
+    private String label = "";
+
+    public RunTimeline(int capacity) {
+        times = new long[capacity];
+        types = new byte[capacity];
+        arg0 = new float[capacity];
+        arg1 = new float[capacity];
+        arg2 = new float[capacity];
+        text = new String[capacity];
+    }
+
+    /** Starts a new run, discarding the previous one. */
+    public synchronized void start(String label, long nanos) {
+        for (int i = 0; i < count; i++) text[i] = null;
+        count = 0;
+        dropped = 0;
+        this.label = label;
+        startNanos = nanos;
+        stopNanos = 0;
+        running = true;
+        add(START, nanos, 0, 0, 0, label);
+    }
+
+    public synchronized void stop(long nanos) {
+        if (!running) return;
+        running = false;
+        stopNanos = nanos;
+        add(STOP, nanos, 0, 0, 0, null);
+    }
+
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    /** Time since the start, or the run's length once it has stopped. */
+    public synchronized long elapsedNanos(long now) {
+        if (startNanos == 0) return 0;
+        return (running ? now : stopNanos) - startNanos;
+    }
+
+    public synchronized void markPose(long nanos, float x, float y, float rotation) {
+        if (running) add(POSE, nanos, x, y, rotation, null);
+    }
+
+    public synchronized void markTarget(long nanos, int id, int value) {
+        if (running) add(TARGET, nanos, id, value, 0, null);
+    }
+
+    public synchronized void markStatus(long nanos, String status) {
+        if (running) add(STATUS, nanos, 0, 0, 0, status);
+    }
+
+    private void add(int type, long nanos, float a0, float a1, float a2, String t) {
+        if (count == times.length) {
+            dropped++;
+            return;
+        }
+        times[count] = nanos;
+        types[count] = (byte) type;
+        arg0[count] = a0;
+        arg1[count] = a1;
+        arg2[count] = a2;
+        text[count] = t;
+        count++;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    public synchronized int getDropped() {
+        return dropped;
+    }
+
+    /**
+     * A readable summary: run length, time to the first target, and for each
+     * obstacle the time from the previous recognition to its first one.
+     */
+    public synchronized String breakdown() {
+        StringBuilder sb = new StringBuilder();
+        long end = running ? (count > 0 ? times[count - 1] : startNanos) : stopNanos;
+        sb.append(String.format(Locale.US, "%s: %.2f s%s, %d events (%d dropped)",
+                label, seconds(end - startNanos), running ? " so far" : "", count, dropped));
+
+        boolean[] seen = new boolean[TargetAggregator.MAX_IDS];
+        long last = startNanos;
+        int poses = 0, statuses = 0, targets = 0;
+        for (int i = 0; i < count; i++) {
+            if (types[i] == POSE) poses++;
+            else if (types[i] == STATUS) statuses++;
+            if (types[i] != TARGET) continue;
+            int id = (int) arg0[i];
+            if (id < 0 || id >= seen.length || seen[id]) continue;
+            seen[id] = true;
+            if (targets++ == 0) {
+                sb.append(String.format(Locale.US, "\nFirst target: %.2f s", seconds(times[i] - startNanos)));
+            }
+            sb.append(String.format(Locale.US, "\n  Obstacle %d = %02d at %.2f s (+%.2f s)",
+                    id, (int) arg1[i], seconds(times[i] - startNanos), seconds(times[i] - last)));
+            last = times[i];
+        }
+        if (targets == 0) sb.append("\nNo targets recognised");
+        sb.append("\nPoses: ").append(poses).append(", status changes: ").append(statuses);
+        return sb.toString();
+    }
+
+    /** A copy of the events, so writing them out does not hold up the reader thread. */
+    public static final class Snapshot {
+        private final long startNanos;
+        private final long[] times;
+        private final byte[] types;
+        private final float[] arg0, arg1, arg2;
+        private final String[] text;
+
+        private Snapshot(RunTimeline t) {
+            startNanos = t.startNanos;
+            times = Arrays.copyOf(t.times, t.count);
+            types = Arrays.copyOf(t.types, t.count);
+            arg0 = Arrays.copyOf(t.arg0, t.count);
+            arg1 = Arrays.copyOf(t.arg1, t.count);
+            arg2 = Arrays.copyOf(t.arg2, t.count);
+            text = Arrays.copyOf(t.text, t.count);
+        }
+
+        public int size() {
+            return times.length;
+        }
+
+        /** Writes every event as CSV, with times in milliseconds from the start. */
+        public void export(File file) throws IOException {
+            try (Writer w = new BufferedWriter(new FileWriter(file))) {
+                w.write("t_ms,type,a,b,c,text\n");
+                for (int i = 0; i < times.length; i++) {
+                    w.write(String.format(Locale.US, "%.3f,%s,%s,%s,%s,%s\n",
+                            (times[i] - startNanos) / 1e6, TYPE_NAMES[types[i]],
+                            num(arg0[i]), num(arg1[i]), num(arg2[i]), csv(text[i])));
+                }
+            }
+        }
+    }
+
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+
+    private static String num(float v) {
+        return v == (int) v ? Integer.toString((int) v) : Float.toString(v);
+    }
+
+    private static String csv(String s) {
+        if (s == null) return "";
+        return "\"" + s.replace("\"", "\"\"") + "\"";
+    }
+}
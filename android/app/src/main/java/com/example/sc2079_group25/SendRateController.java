@@ -0,0 +1,55 @@
+package com.example.sc2079_group25;
+
+/**
+ * Token bucket for non-critical traffic (bulk uploads, polling) whose rate
+ * follows the link quality: full rate on a healthy link, down to
+ * {@link #MIN_FRACTION} of it on a bad one. Movement commands bypass it.
+ */
+public class SendRateController {
+    static final double MIN_FRACTION = 0.1;
+
+    private final double maxPerSecond;
+    private final double burst;
+    private double tokens;
+    private double quality = 1;
+    private long lastNanos;
+
+    public SendRateController(double maxPerSecond, double burst, long now) {
+        this.maxPerSecond = maxPerSecond;
+        this.burst = burst;
+        this.tokens = burst;
+        this.lastNanos = now;
+    }
+
+    /** {@code score} in [0, 1], e.g. from {@link LinkQuality#score()}. */
+    public synchronized void setQuality(double score, long now) {
+        refill(now);
+        quality = Math.max(0, Math.min(1, score));
+    }
+
+    public synchronized double getRatePerSecond() {
+        return maxPerSecond * Math.max(MIN_FRACTION, quality);
+    }
+
+    /** Takes one send if allowed at {@code now}. */
+    public synchronized boolean tryAcquire(long now) {
+        refill(now);
+        if (tokens < 1) return false;
+        tokens -= 1;
+        return true;
+    }
+
+    /** How long until {@link #tryAcquire} would succeed; 0 if it would now. */
+    public synchronized long nanosUntilAvailable(long now) {
+        refill(now);
+        if (tokens >= 1) return 0;
+        return (long) Math.ceil((1 - tokens) / getRatePerSecond() * 1e9);
+    }
+
+    private void refill(long now) {
+        long dt = now - lastNanos;
+        if (dt <= 0) return;
+        lastNanos = now;
+        tokens = Math.min(burst, tokens + dt / 1e9 * getRatePerSecond());
+    }
+}
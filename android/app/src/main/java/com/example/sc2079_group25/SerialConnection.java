@@ -0,0 +1,363 @@
+package com.example.sc2079_group25;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transport-agnostic connection state machine for one serial link.
+ *
+ * All state transitions run on a single-threaded event loop (shared between
+ * connections), blocking connect/accept/read calls run on a shared I/O pool.
+ * Public methods never block: they enqueue work on the loop and return.
+ * A generation counter is bumped on every open/close so that late results
+ * from cancelled attempts are recognised as stale and discarded.
+ */
+public class SerialConnection {
+
+    /** Creates one connection attempt per open, listen or reconnect. */
+    public interface Connector {
+        Attempt newAttempt();
+    }
+
+    public interface Attempt {
+        /** Called on an I/O thread; may block. */
+        Transport connect() throws IOException;
+
+        /** Aborts a blocking {@link #connect()} from another thread. */
+        void cancel();
+    }
+
+    public interface Transport {
+        InputStream getInputStream() throws IOException;
+        OutputStream getOutputStream() throws IOException;
+        String getPeerName();
+        void close() throws IOException;
+    }
+
+    public interface Callback {
+        /** Called on the event loop. */
+        void onStateChanged(int state, String detail);
+
+        /** Called on the reader thread; {@code buffer} is reused after return. */
+        void onRawData(byte[] buffer, int length);
+
+        /** Called on the reader thread with a trimmed, non-empty line. */
+        void onLine(String line);
+
+        void onError(String message, Throwable t);
+
+        /** Called on the event loop once a lost link will not be re-established automatically. */
+        void onLinkDown();
+    }
+
+    private final Callback callback;
+    private final ScheduledExecutorService loop;
+    private final Executor io;
+    private final ReconnectBackoff backoff;
+
+    private final AtomicInteger state = new AtomicInteger(BtConstants.STATE_NONE);
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Link link;
+
+    // Confined to the event loop
+    private Attempt pendingAttempt;
+    private Connector lastOutbound;
+    private volatile boolean reconnecting = false;
+    private ScheduledFuture<?> reconnectFuture;
+    private long linkLostAtNanos;
+
+    private volatile long lastReconnectMs = -1;
+    private volatile int reconnectCount = 0;
+
+    public SerialConnection(Callback callback) {
+        this(callback, BtExecutors.eventLoop(), BtExecutors.io(), new ReconnectBackoff(250, 8000, 8));
+    }
+
+    public SerialConnection(Callback callback, ScheduledExecutorService loop, Executor io, ReconnectBackoff backoff) {
+        this.callback = callback;
+        this.loop = loop;
+        this.io = io;
+        this.backoff = backoff;
+    }
+
+    public int getState() {
+        return state.get();
+    }
+
+    public boolean isReconnecting() {
+        return reconnecting;
+    }
+
+    /** Time from link loss to the restored connection for the last auto-reconnect, or -1. */
+    public long getLastReconnectMillis() {
+        return lastReconnectMs;
+    }
+
+    public int getReconnectCount() {
+        return reconnectCount;
+    }
+
+    /** Connects outwards; the link is re-established automatically if it drops. */
+    public void open(Connector connector, String detail) {
+        long gen = generation.incrementAndGet();
+        loop.execute(() -> {
+            if (generation.get() != gen) return;
+            cancelReconnect();
+            lastOutbound = connector;
+            begin(connector, BtConstants.STATE_CONNECTING, detail);
+        });
+    }
+
+    /** Waits for the peer to connect to us. */
+    public void listen(Connector connector, String detail) {
+        long gen = generation.incrementAndGet();
+        loop.execute(() -> {
+            if (generation.get() != gen) return;
+            cancelReconnect();
+            lastOutbound = null;
+            begin(connector, BtConstants.STATE_LISTENING, detail);
+        });
+    }
+
+    public void close() {
+        long gen = generation.incrementAndGet();
+        // Stop writes immediately; the socket itself is closed off the caller's thread
+        Link l = link;
+        if (l != null) l.closed = true;
+        loop.execute(() -> {
+            if (generation.get() != gen) return;
+            cancelReconnect();
+            lastOutbound = null;
+            teardown();
+            setState(BtConstants.STATE_NONE, "Disconnected");
+        });
+    }
+
+    /**
+     * Treats the current link as dead, e.g. because heartbeats stopped while
+     * the socket still looks open. It is handled like a read failure: closed,
+     * then reconnected if it was an outbound connection.
+     */
+    public void dropLink(String reason) {
+        Link l = link;
+        if (l == null) return;
+        loop.execute(() -> onReadEnded(l, new IOException(reason)));
+    }
+
+    /** Writes on the caller's thread. Returns false if there is no usable link. */
+    public boolean write(byte[] bytes) {
+        return write(bytes, 0, bytes.length);
+    }
+
+    /** As {@link #write(byte[])}; the bytes are written out before this returns, so the array can be reused. */
+    public boolean write(byte[] bytes, int off, int len) {
+        Link l = link;
+        if (l == null || l.closed || state.get() != BtConstants.STATE_CONNECTED) return false;
+        try {
+            l.write(bytes, off, len);
+            return true;
+        } catch (IOException e) {
+            callback.onError("Send failed", e);
+            return false;
+        }
+    }
+
+    // ===== Event loop =====
+
+    private void begin(Connector connector, int pendingState, String detail) {
+        long gen = generation.get();
+        teardown();
+        Attempt attempt = connector.newAttempt();
+        pendingAttempt = attempt;
+        setState(pendingState, detail);
+        io.execute(() -> {
+            try {
+                Transport t = attempt.connect();
+                loop.execute(() -> onOpened(gen, attempt, pendingState, t));
+            } catch (IOException | RuntimeException e) {
+                loop.execute(() -> onOpenFailed(gen, attempt, pendingState, e));
+            }
+        });
+    }
+
+    private void onOpened(long gen, Attempt attempt, int pendingState, Transport t) {
+        if (gen != generation.get() || pendingAttempt != attempt) {
+            io.execute(() -> closeQuietly(t));
+            return;
+        }
+        pendingAttempt = null;
+
+        Link l;
+        try {
+            l = new Link(t);
+        } catch (IOException e) {
+            closeQuietly(t);
+            callback.onError("Failed to start data thread", e);
+            setState(BtConstants.STATE_NONE, "Disconnected");
+            return;
+        }
+
+        // Only the state this attempt set may become connected; anything else means it was superseded
+        if (!transition(pendingState, BtConstants.STATE_CONNECTED)) {
+            io.execute(l::close);
+            return;
+        }
+        link = l;
+
+        String detail;
+        if (reconnecting) {
+            reconnecting = false;
+            backoff.reset();
+            lastReconnectMs = (System.nanoTime() - linkLostAtNanos) / 1_000_000L;
+            reconnectCount++;
+            detail = "Reconnected to " + t.getPeerName() + " in " + lastReconnectMs + " ms";
+        } else {
+            detail = "Connected to " + t.getPeerName();
+        }
+        callback.onStateChanged(BtConstants.STATE_CONNECTED, detail);
+        io.execute(() -> readLoop(l));
+    }
+
+    private void onOpenFailed(long gen, Attempt attempt, int pendingState, Exception e) {
+        // A cancelled attempt is expected to fail; the canceller already moved state on
+        if (gen != generation.get() || pendingAttempt != attempt) return;
+        pendingAttempt = null;
+        if (reconnecting) {
+            scheduleReconnect();
+            return;
+        }
+        if (pendingState == BtConstants.STATE_LISTENING) {
+            callback.onError("Listen failed: " + e.getMessage(), e);
+            setState(BtConstants.STATE_NONE, "Listen failed");
+        } else {
+            callback.onError("Connection failed: " + e.getMessage(), e);
+            setState(BtConstants.STATE_NONE, "Connection failed");
+        }
+    }
+
+    private void onReadEnded(Link l, IOException error) {
+        if (link != l) return; // Replaced or closed on purpose
+        link = null;
+        io.execute(l::close);
+
+        if (!transition(BtConstants.STATE_CONNECTED, BtConstants.STATE_NONE)) return;
+        if (error != null) callback.onError("Connection lost: " + error.getMessage(), error);
+
+        if (lastOutbound != null) {
+            reconnecting = true;
+            linkLostAtNanos = System.nanoTime();
+            backoff.reset();
+            scheduleReconnect();
+        } else {
+            setState(BtConstants.STATE_NONE, "Connection lost");
+            callback.onLinkDown();
+        }
+    }
+
+    private void scheduleReconnect() {
+        long delay = backoff.nextDelayMs();
+        if (delay < 0) {
+            reconnecting = false;
+            callback.onError("Reconnect gave up after " + backoff.getAttempt() + " attempts", null);
+            setState(BtConstants.STATE_NONE, "Connection lost");
+            callback.onLinkDown();
+            return;
+        }
+        setState(BtConstants.STATE_CONNECTING,
+                "Link lost, reconnecting (attempt " + backoff.getAttempt() + ")...");
+        long gen = generation.get();
+        reconnectFuture = loop.schedule(() -> {
+            if (gen != generation.get() || !reconnecting || lastOutbound == null) return;
+            begin(lastOutbound, BtConstants.STATE_CONNECTING, "Reconnecting...");
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelReconnect() {
+        reconnecting = false;
+        if (reconnectFuture != null) {
+            reconnectFuture.cancel(false);
+            reconnectFuture = null;
+        }
+    }
+
+    /** Drops the current link and any in-flight attempt without blocking the loop. */
+    private void teardown() {
+        Attempt a = pendingAttempt;
+        pendingAttempt = null;
+        if (a != null) io.execute(a::cancel);
+
+        Link l = link;
+        link = null;
+        if (l != null) {
+            l.closed = true;
+            io.execute(l::close);
+        }
+    }
+
+    private boolean transition(int from, int to) {
+        return state.compareAndSet(from, to);
+    }
+
+    private void setState(int newState, String detail) {
+        state.set(newState);
+        callback.onStateChanged(newState, detail);
+    }
+
+    // ===== I/O threads =====
+
+    private void readLoop(Link l) {
+        byte[] buffer = new byte[1024];
+        LineFramer framer = new LineFramer();
+        LineFramer.LineListener lines = callback::onLine;
+        IOException error = null;
+        try {
+            while (!l.closed) {
+                int n = l.in.read(buffer);
+                if (n == -1) break;
+
+                callback.onRawData(buffer, n);
+                framer.feed(buffer, n, lines);
+            }
+        } catch (IOException e) {
+            if (!l.closed) error = e;
+        }
+        IOException cause = error;
+        loop.execute(() -> onReadEnded(l, cause));
+    }
+
+    private static void closeQuietly(Transport t) {
+        try { t.close(); } catch (IOException ignored) {}
+    }
+
+    private static final class Link {
+        final Transport transport;
+        final InputStream in;
+        final OutputStream out;
+        volatile boolean closed = false;
+
+        Link(Transport transport) throws IOException {
+            this.transport = transport;
+            this.in = transport.getInputStream();
+            this.out = transport.getOutputStream();
+        }
+
+        void write(byte[] bytes, int off, int len) throws IOException {
+            synchronized (out) {
+                out.write(bytes, off, len);
+                out.flush();
+            }
+        }
+
+        void close() {
+            closed = true;
+            closeQuietly(transport);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.sc2079_group25;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs tasks one at a time, in submission order, on a shared pool. Gives a
+ * listener its own ordered event stream without a thread of its own.
+ */
+public final class SerialExecutor implements Executor {
+    private final Executor pool;
+    private final ArrayDeque<Runnable> queue = new ArrayDeque<>(); // Guarded by this
+    private boolean draining = false;
+
+    public SerialExecutor(Executor pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        synchronized (this) {
+            queue.add(task);
+            if (draining) return;
+            draining = true;
+        }
+        pool.execute(this::drain);
+    }
+
+    private void drain() {
+        while (true) {
+            Runnable task;
+            synchronized (this) {
+                task = queue.poll();
+                if (task == null) {
+                    draining = false;
+                    return;
+                }
+            }
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                BtLog.e("SerialExecutor", "Task failed", e);
+            }
+        }
+    }
+}
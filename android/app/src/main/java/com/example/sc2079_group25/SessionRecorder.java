@@ -0,0 +1,149 @@
+package com.example.sc2079_group25;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only binary log of everything that crosses the Bluetooth link.
+ *
+ * File layout: header {@code MAGIC(int) VERSION(short) startEpochMs(long)},
+ * then records {@code type(byte) tNanos(long) len(short) payload(len)}, where
+ * tNanos is relative to the start of the session. Records are packed into an
+ * in-memory buffer on the caller's thread; full buffers are written to the
+ * FileChannel on a background thread, so the hot path never touches disk.
+ */
+public class SessionRecorder {
+    public static final int MAGIC = 0x53434231; // "SCB1"
+    public static final short VERSION = 1;
+    public static final int HEADER_SIZE = 4 + 2 + 8;
+
+    public static final byte TYPE_RX = 1;
+    public static final byte TYPE_TX = 2;
+    public static final byte TYPE_STATE = 3;
+    public static final byte TYPE_ERROR = 4;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_PAYLOAD = 0x7FFF;
+
+    private final FileChannel channel;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(BtExecutors.named("SessionWriter"));
+    private final long startNanos = System.nanoTime();
+    private final File file;
+
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private ByteBuffer spare = ByteBuffer.allocate(BUFFER_SIZE);
+    private boolean closed = false;
+    private long recordCount = 0;
+
+    public SessionRecorder(File file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        buffer.putInt(MAGIC).putShort(VERSION).putLong(System.currentTimeMillis());
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    public void recordRx(String line) {
+        record(TYPE_RX, 0, false, line);
+    }
+
+    public void recordTx(String line) {
+        record(TYPE_TX, 0, false, line);
+    }
+
+    public void recordState(int state, String detail) {
+        record(TYPE_STATE, state, true, detail);
+    }
+
+    public void recordError(String message) {
+        record(TYPE_ERROR, 0, false, message);
+    }
+
+    private void record(byte type, int state, boolean withState, String text) {
+        long t = System.nanoTime() - startNanos;
+        byte[] payload = text != null ? text.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int prefix = withState ? 1 : 0;
+        int len = Math.min(payload.length, MAX_PAYLOAD - prefix);
+        int size = 1 + 8 + 2 + prefix + len;
+
+        synchronized (this) {
+            if (closed) return;
+            if (buffer.remaining() < size) {
+                flushLocked();
+                if (buffer.remaining() < size) return;
+            }
+            buffer.put(type).putLong(t).putShort((short) (prefix + len));
+            if (withState) buffer.put((byte) state);
+            buffer.put(payload, 0, len);
+            recordCount++;
+        }
+    }
+
+    /** Hands the filled buffer to the writer thread and continues in the spare one. */
+    private void flushLocked() {
+        // Both buffers in flight means the disk is far behind: wait rather than grow
+        while (spare == null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        ByteBuffer full = buffer;
+        full.flip();
+        buffer = spare;
+        spare = null;
+        writer.execute(() -> {
+            try {
+                while (full.hasRemaining()) channel.write(full);
+            } catch (IOException ignored) {
+                // Recording is best effort; a failed write must not disturb the link
+            }
+            full.clear();
+            synchronized (SessionRecorder.this) {
+                spare = full;
+                SessionRecorder.this.notifyAll();
+            }
+        });
+    }
+
+    /** Pushes buffered records to disk, e.g. when the app is backgrounded. */
+    public synchronized void flush() {
+        if (!closed && buffer.position() > 0) flushLocked();
+    }
+
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            if (buffer.position() > 0) flushLocked();
+        }
+        writer.execute(() -> {
+            try {
+                channel.force(false);
+                channel.close();
+            } catch (IOException ignored) {}
+        });
+        writer.shutdown();
+    }
+
+    /** Waits for {@link #close()} to finish writing the file. */
+    boolean awaitClosed(long timeout, TimeUnit unit) throws InterruptedException {
+        return writer.awaitTermination(timeout, unit);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.sc2079_group25;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Feeds a {@link SessionRecorder} file back through a {@link BluetoothEventListener}
+ * with the original timing scaled by {@code speed}, or as fast as possible when
+ * speed is {@link #SPEED_MAX}. Events are handed to {@code deliver} (typically
+ * the main thread) exactly as the live service would post them.
+ */
+public class SessionReplayer {
+    public static final float SPEED_MAX = 0f;
+
+    public interface OnFinished {
+        void onFinished(int events, long elapsedNanos);
+    }
+
+    private final File file;
+    private final BluetoothEventListener listener;
+    private final Executor deliver;
+    private volatile boolean cancelled = false;
+    private Thread thread;
+
+    public SessionReplayer(File file, BluetoothEventListener listener, Executor deliver) {
+        this.file = file;
+        this.listener = listener;
+        this.deliver = deliver;
+    }
+
+    public void start(float speed, OnFinished onFinished) {
+        thread = new Thread(() -> {
+            long begin = System.nanoTime();
+            int events = 0;
+            try {
+                events = replay(speed);
+            } catch (IOException e) {
+                deliver.execute(() -> listener.onError("Replay failed: " + e.getMessage(), e));
+            }
+            int count = events;
+            long elapsed = System.nanoTime() - begin;
+            if (onFinished != null) deliver.execute(() -> onFinished.onFinished(count, elapsed));
+        }, "SessionReplay");
+        thread.start();
+    }
+
+    public void cancel() {
+        cancelled = true;
+        if (thread != null) thread.interrupt();
+    }
+
+    private int replay(float speed) throws IOException {
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (buf.remaining() < SessionRecorder.HEADER_SIZE || buf.getInt() != SessionRecorder.MAGIC) {
+                throw new IOException("Not a session recording");
+            }
+            short version = buf.getShort();
+            if (version != SessionRecorder.VERSION) throw new IOException("Unsupported version " + version);
+            buf.getLong(); // Wall-clock start, informational only
+
+            long origin = System.nanoTime();
+            int events = 0;
+            while (!cancelled && buf.remaining() >= 11) {
+                byte type = buf.get();
+                long t = buf.getLong();
+                int len = buf.getShort() & 0xFFFF;
+                if (buf.remaining() < len) break; // Truncated tail from an unclean shutdown
+
+                int state = 0;
+                if (type == SessionRecorder.TYPE_STATE && len > 0) {
+                    state = buf.get();
+                    len--;
+                }
+                String text = decode(buf, len);
+
+                if (speed > 0) waitUntil(origin + (long) (t / speed));
+                dispatch(type, state, text);
+                events++;
+            }
+            return events;
+        }
+    }
+
+    private void dispatch(byte type, int state, String text) {
+        switch (type) {
+            case SessionRecorder.TYPE_RX:
+                deliver.execute(() -> listener.onLineReceived(text));
+                break;
+            case SessionRecorder.TYPE_STATE:
+                deliver.execute(() -> listener.onConnectionStateChanged(state, text));
+                break;
+            case SessionRecorder.TYPE_ERROR:
+                deliver.execute(() -> listener.onError(text, null));
+                break;
+            case SessionRecorder.TYPE_TX:
+            default:
+                // Outbound traffic is not re-sent; it is kept for post-mortems only
+                break;
+        }
+    }
+
+    private static String decode(ByteBuffer buf, int len) {
+        if (buf.hasArray()) {
+            String s = new String(buf.array(), buf.arrayOffset() + buf.position(), len, StandardCharsets.UTF_8);
+            buf.position(buf.position() + len);
+            return s;
+        }
+        byte[] bytes = new byte[len];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void waitUntil(long deadlineNanos) {
+        long remaining;
+        while (!cancelled && (remaining = deadlineNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.sc2079_group25;
+
+/**
+ * Collects TARGET results from the recognition pipeline between frames.
+ *
+ * Keeps one slot per obstacle id in primitive arrays with a dirty bit mask, so
+ * a burst of results costs no allocation and repeats for the same id collapse
+ * into one. Within a frame the highest-confidence result wins; results
+ * without a confidence simply replace the previous one.
+ */
+public class TargetAggregator {
+    public static final int MAX_IDS = 64; // One bit per id in the dirty mask
+    public static final float NO_CONFIDENCE = -1f;
+
+    // "00".."99", so applying a value never allocates
+    private static final String[] VALUE_STRINGS = new String[100];
+    static {
+        for (int i = 0; i < VALUE_STRINGS.length; i++) {
+            VALUE_STRINGS[i] = String.valueOf((char) ('0' + i / 10)) + (char) ('0' + i % 10);
+        }
+    }
+
+    private final int[] values = new int[MAX_IDS];
+    private final float[] confidences = new float[MAX_IDS];
+    private long dirty = 0;
+
+    private long offered = 0;
+    private long applied = 0;
+
+    /** Records a two-digit result (0-99) for {@code id}. Returns false if the id is out of range. */
+    public synchronized boolean offer(int id, int value, float confidence) {
+        if (id < 0 || id >= MAX_IDS || value < 0 || value >= VALUE_STRINGS.length) return false;
+        offered++;
+        long bit = 1L << id;
+        if ((dirty & bit) != 0 && confidence != NO_CONFIDENCE
+                && confidences[id] != NO_CONFIDENCE && confidence < confidences[id]) {
+            return true; // A better result for this id is already pending
+        }
+        values[id] = value;
+        confidences[id] = confidence;
+        dirty |= bit;
+        return true;
+    }
+
+    /** Drops a pending result, e.g. when the obstacle is re-added. */
+    public synchronized void discard(int id) {
+        if (id >= 0 && id < MAX_IDS) dirty &= ~(1L << id);
+    }
+
+    public synchronized void clear() {
+        dirty = 0;
+    }
+
+    public synchronized boolean hasPending() {
+        return dirty != 0;
+    }
+
+    /**
+     * Copies pending results into {@code out}, indexed by id (null where nothing
+     * is pending), and resets. Returns the number of ids filled in.
+     */
+    public synchronized int drainInto(String[] out) {
+        int n = 0;
+        long bits = dirty;
+        while (bits != 0) {
+            int id = Long.numberOfTrailingZeros(bits);
+            bits &= bits - 1;
+            out[id] = VALUE_STRINGS[values[id]];
+            n++;
+        }
+        dirty = 0;
+        applied += n;
+        return n;
+    }
+
+    public synchronized long getOfferedCount() {
+        return offered;
+    }
+
+    /** Results that were superseded before they reached the screen. */
+    public synchronized long getCoalescedCount() {
+        return offered - applied - Long.bitCount(dirty);
+    }
+}
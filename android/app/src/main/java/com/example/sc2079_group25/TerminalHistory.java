@@ -0,0 +1,325 @@
+package com.example.sc2079_group25;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Every terminal line of the session, indexed as it is appended so a filter
+ * or search does not have to read the TextView back.
+ *
+ * Lines are numbered in order and kept in a ring of {@code capacity}; the
+ * oldest go first. Each line is parsed once on append into a tag (the
+ * bracketed [TX], [RX], [State], [Error] after any link prefix) and a message
+ * type (the first word of the message, e.g. TARGET or ROBOT, or JSON), and
+ * its number goes on a posting list for each. A filter reads only its
+ * posting list.
+ *
+ * Substring search scans the filtered lines off the main thread, a batch at
+ * a time so appends are never held up for long. The hits of the last search
+ * are kept: a query that extends it (typing another character) only rechecks
+ * those hits plus lines appended since.
+ */
+public class TerminalHistory {
+    public static final int TAG_ANY = -1;
+    public static final int TAG_OTHER = 0;
+    public static final int TAG_TX = 1;
+    public static final int TAG_RX = 2;
+    public static final int TAG_STATE = 3;
+    public static final int TAG_ERROR = 4;
+    private static final String[] TAG_NAMES = {"", "TX", "RX", "State", "Error"};
+
+    public static final int DEFAULT_CAPACITY = 500_000;
+    private static final int SCAN_BATCH = 4096; // Lines checked per hold of the lock
+    private static final int MAX_TYPE_LENGTH = 16;
+
+    /** Line numbers in ascending order; entries before {@code start} have been evicted. */
+    private static final class Postings {
+        final String name;
+        int[] seqs = new int[16];
+        int start = 0, end = 0;
+
+        Postings(String name) {
+            this.name = name;
+        }
+
+        void add(int seq) {
+            if (end == seqs.length) {
+                if (start > seqs.length / 2) {
+                    System.arraycopy(seqs, start, seqs, 0, end - start);
+                    end -= start;
+                    start = 0;
+                } else {
+                    seqs = Arrays.copyOf(seqs, seqs.length * 2);
+                }
+            }
+            seqs[end++] = seq;
+        }
+
+        void evictBefore(int first) {
+            while (start < end && seqs[start] < first) start++;
+        }
+
+        int size() {
+            return end - start;
+        }
+    }
+
+    /** Lines matching a query, oldest first. */
+    public static final class Result {
+        public final int total;
+        public final int[] seqs;      // Most recent {@code limit} hits
+        public final String[] lines;
+        public final int scanned;     // Lines checked against the query
+        public final long nanos;
+
+        Result(int total, int[] seqs, String[] lines, int scanned, long nanos) {
+            this.total = total;
+            this.seqs = seqs;
+            this.lines = lines;
+            this.scanned = scanned;
+            this.nanos = nanos;
+        }
+    }
+
+    private final int capacity;
+    private final String[] lines;
+    private final byte[] tags;
+    private final String[] types;
+    private int first = 0, next = 0; // Live line numbers are [first, next)
+    private final Postings[] byTag = new Postings[TAG_NAMES.length];
+    private final Map<String, Postings> byType = new HashMap<>();
+
+    // Last search, for refinement; guarded by searchLock
+    private final Object searchLock = new Object();
+    private int lastTag = TAG_ANY;
+    private String lastType, lastText;
+    private int[] lastHits;
+    private int lastHitCount, lastScannedTo;
+
+    public TerminalHistory() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public TerminalHistory(int capacity) {
+        this.capacity = capacity;
+        this.lines = new String[capacity];
+        this.tags = new byte[capacity];
+        this.types = new String[capacity];
+        for (int i = 0; i < byTag.length; i++) byTag[i] = new Postings(TAG_NAMES[i]);
+    }
+
+    /** Adds a line and returns its number. Main thread in the app, but safe from any thread. */
+    public synchronized int append(String line) {
+        if (next - first == capacity) evictOldest();
+        int seq = next++;
+        int slot = seq % capacity;
+        int at = skipLinkPrefix(line);
+        int tag = tagOf(line, at);
+        String type = typeOf(line, tag == TAG_OTHER ? at : line.indexOf(']', at) + 1);
+        Postings p = byType.get(type);
+        if (p == null) byType.put(type, p = new Postings(type));
+        lines[slot] = line;
+        tags[slot] = (byte) tag;
+        types[slot] = p.name; // One string per type, not per line
+        byTag[tag].add(seq);
+        p.add(seq);
+        return seq;
+    }
+
+    private void evictOldest() {
+        int slot = first % capacity;
+        byTag[tags[slot]].evictBefore(first + 1);
+        Postings p = byType.get(types[slot]);
+        p.evictBefore(first + 1);
+        if (p.size() == 0) byType.remove(types[slot]);
+        lines[slot] = null;
+        types[slot] = null;
+        first++;
+    }
+
+    public synchronized int size() {
+        return next - first;
+    }
+
+    public synchronized int count(int tag, String type) {
+        if (type != null) {
+            Postings p = byType.get(type.toUpperCase(Locale.US));
+            if (p == null) return 0;
+            if (tag == TAG_ANY) return p.size();
+            int n = 0;
+            for (int i = p.start; i < p.end; i++) if (tags[p.seqs[i] % capacity] == tag) n++;
+            return n;
+        }
+        return tag == TAG_ANY ? next - first : byTag[tag].size();
+    }
+
+    /** The line numbered {@code seq}, or null if it has been evicted. */
+    public synchronized String get(int seq) {
+        return seq >= first && seq < next ? lines[seq % capacity] : null;
+    }
+
+    /** Message types seen so far that still have lines, e.g. TARGET or JSON. */
+    public synchronized String[] types() {
+        String[] out = byType.keySet().toArray(new String[0]);
+        Arrays.sort(out);
+        return out;
+    }
+
+    public static int tagNamed(String name) {
+        for (int i = 1; i < TAG_NAMES.length; i++) if (TAG_NAMES[i].equalsIgnoreCase(name)) return i;
+        return TAG_ANY;
+    }
+
+    /**
+     * Lines with {@code tag} (or TAG_ANY), of {@code type} (or null for any),
+     * containing {@code text} ignoring case (null or empty for any). Keeps the
+     * most recent {@code limit} hits. Call off the main thread.
+     */
+    public Result search(int tag, String type, String text, int limit) {
+        long start = System.nanoTime();
+        String t = text == null ? "" : text;
+        String ty = type == null ? null : type.toUpperCase(Locale.US);
+        synchronized (searchLock) {
+            int[] hits = new int[64];
+            int n = 0;
+            int scanned = 0;
+            int from;
+            boolean refine = lastHits != null && tag == lastTag && equal(ty, lastType)
+                    && indexOfIgnoreCase(t, lastText) >= 0;
+            if (refine) {
+                // Only the previous hits and lines appended since can match
+                for (int i = 0; i < lastHitCount; ) {
+                    synchronized (this) {
+                        for (int stop = Math.min(lastHitCount, i + SCAN_BATCH); i < stop; i++) {
+                            int seq = lastHits[i];
+                            if (seq < first) continue;
+                            scanned++;
+                            if (!matches(seq, tag, ty, t)) continue;
+                            if (n == hits.length) hits = Arrays.copyOf(hits, n * 2);
+                            hits[n++] = seq;
+                        }
+                    }
+                }
+                from = lastScannedTo;
+            } else {
+                from = 0;
+            }
+
+            int scannedTo;
+            while (true) {
+                synchronized (this) {
+                    from = Math.max(from, first);
+                    Postings p = ty != null ? byType.get(ty) : tag != TAG_ANY ? byTag[tag] : null;
+                    if (ty != null && p == null) {
+                        scannedTo = next;
+                        break;
+                    }
+                    if (p != null) {
+                        // Posting lists may have been compacted between batches, so find our place again
+                        int cursor = lowerBound(p, from);
+                        int stop = Math.min(p.end, cursor + SCAN_BATCH);
+                        scanned += stop - cursor;
+                        for (; cursor < stop; cursor++) {
+                            int seq = p.seqs[cursor];
+                            if (!matches(seq, tag, ty, t)) continue;
+                            if (n == hits.length) hits = Arrays.copyOf(hits, n * 2);
+                            hits[n++] = seq;
+                        }
+                        from = cursor < p.end ? p.seqs[cursor] : next;
+                    } else {
+                        int stop = Math.min(next, from + SCAN_BATCH);
+                        scanned += stop - from;
+                        for (; from < stop; from++) {
+                            if (!matches(from, tag, ty, t)) continue;
+                            if (n == hits.length) hits = Arrays.copyOf(hits, n * 2);
+                            hits[n++] = from;
+                        }
+                    }
+                    if (from >= next) {
+                        scannedTo = next;
+                        break;
+                    }
+                }
+            }
+
+            lastTag = tag;
+            lastType = ty;
+            lastText = t;
+            lastHits = hits;
+            lastHitCount = n;
+            lastScannedTo = scannedTo;
+
+            int k = Math.min(n, limit);
+            int[] seqs = Arrays.copyOfRange(hits, n - k, n);
+            String[] out = new String[k];
+            synchronized (this) {
+                for (int i = 0; i < k; i++) out[i] = get(seqs[i]);
+            }
+            return new Result(n, seqs, out, scanned, System.nanoTime() - start);
+        }
+    }
+
+    private boolean matches(int seq, int tag, String type, String text) {
+        int slot = seq % capacity;
+        if (tag != TAG_ANY && tags[slot] != tag) return false;
+        if (type != null && !type.equals(types[slot])) return false;
+        return text.isEmpty() || indexOfIgnoreCase(lines[slot], text) >= 0;
+    }
+
+    private static int lowerBound(Postings p, int seq) {
+        int lo = p.start, hi = p.end;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (p.seqs[mid] < seq) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    static int indexOfIgnoreCase(String s, String q) {
+        int max = s.length() - q.length();
+        for (int i = 0; i <= max; i++) {
+            if (s.regionMatches(true, i, q, 0, q.length())) return i;
+        }
+        return -1;
+    }
+
+    /** Skips a "[L2] " link prefix, which is only followed by another bracket. */
+    private static int skipLinkPrefix(String line) {
+        if (!line.startsWith("[")) return 0;
+        int close = line.indexOf("] [");
+        return close > 0 && close < 12 ? close + 2 : 0;
+    }
+
+    private static int tagOf(String line, int at) {
+        if (at >= line.length() || line.charAt(at) != '[') return TAG_OTHER;
+        int close = line.indexOf(']', at);
+        if (close < 0) return TAG_OTHER;
+        for (int i = 1; i < TAG_NAMES.length; i++) {
+            String name = TAG_NAMES[i];
+            if (close - at - 1 == name.length() && line.startsWith(name, at + 1)) return i;
+        }
+        return TAG_OTHER;
+    }
+
+    /** The first word of the message, upper case; a bracketed tag like [Run] for other lines. */
+    private static String typeOf(String line, int at) {
+        while (at < line.length() && line.charAt(at) == ' ') at++;
+        if (at >= line.length()) return "";
+        if (line.charAt(at) == '{') return "JSON";
+        if (line.charAt(at) == '[') {
+            int close = line.indexOf(']', at);
+            if (close > at) return line.substring(at + 1, Math.min(close, at + 1 + MAX_TYPE_LENGTH)).toUpperCase(Locale.US);
+        }
+        int end = at;
+        while (end < line.length() && end - at < MAX_TYPE_LENGTH
+                && Character.isLetterOrDigit(line.charAt(end))) end++;
+        return line.substring(at, end).toUpperCase(Locale.US);
+    }
+}
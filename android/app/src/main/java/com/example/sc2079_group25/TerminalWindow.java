@@ -0,0 +1,46 @@
+package com.example.sc2079_group25;
+
+/**
+ * Keeps the terminal TextView to its most recent lines. The whole session
+ * stays in {@link TerminalHistory} for /find; the view only needs what can be
+ * scrolled through, and a TextView slows down on every append as it grows.
+ *
+ * Lines are trimmed in batches of {@code slack} so most frames only append.
+ */
+final class TerminalWindow {
+    static final int DEFAULT_MAX_LINES = 2000;
+    static final int DEFAULT_SLACK = 500;
+
+    private final int maxLines;
+    private final int slack;
+    private int lines = 0;
+
+    TerminalWindow() {
+        this(DEFAULT_MAX_LINES, DEFAULT_SLACK);
+    }
+
+    TerminalWindow(int maxLines, int slack) {
+        this.maxLines = maxLines;
+        this.slack = slack;
+    }
+
+    /**
+     * Call after {@code appended} has been added to the end of {@code text}.
+     * Returns how many chars to delete from the front of {@code text}, or 0.
+     */
+    int onAppended(CharSequence appended, CharSequence text) {
+        for (int i = 0; i < appended.length(); i++) if (appended.charAt(i) == '\n') lines++;
+        if (lines <= maxLines + slack) return 0;
+        int drop = lines - maxLines;
+        int cut = 0;
+        for (int seen = 0; seen < drop && cut < text.length(); cut++) {
+            if (text.charAt(cut) == '\n') seen++;
+        }
+        lines = maxLines;
+        return cut;
+    }
+
+    int lines() {
+        return lines;
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.sc2079_group25;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Robot poses from which each obstacle's image face can be photographed,
+ * ranked best first and cached per obstacle.
+ *
+ * A pose faces the image side head-on, {@link #MIN_DISTANCE} to
+ * {@link #MAX_DISTANCE} cells out and up to one cell to either side, with
+ * the 3x3 footprint inside the arena and clear of every obstacle, and no
+ * obstacle between the camera and the face.
+ *
+ * {@link #sync} compares the new obstacles with the previous ones and drops
+ * only the cached entries whose search area an edit touched, so candidates
+ * for the rest stay available while an obstacle is dragged around.
+ */
+public class ViewingPoses {
+    public static final int MIN_DISTANCE = 3;   // Robot centre to obstacle, in cells
+    public static final int MAX_DISTANCE = 6;
+    public static final int IDEAL_DISTANCE = 4;
+    private static final int MAX_OFFSET = 1;    // Sideways from the face's centre line
+
+    // Outward normal of each face; 0: N, 1: E, 2: S, 3: W
+    private static final int[] NORMAL_X = {0, 1, 0, -1};
+    private static final int[] NORMAL_Y = {1, 0, -1, 0};
+    private static final float[] FACING = {180, 270, 0, 90}; // Robot rotation looking back at the face
+
+    public static final class Pose {
+        public final int x, y;          // Robot centre cell
+        public final float rotation;
+        public final int distance, offset;
+        public final int cost;          // Lower is better
+
+        Pose(int x, int y, float rotation, int distance, int offset) {
+            this.x = x;
+            this.y = y;
+            this.rotation = rotation;
+            this.distance = distance;
+            this.offset = offset;
+            this.cost = 2 * Math.abs(distance - IDEAL_DISTANCE) + Math.abs(offset);
+        }
+    }
+
+    private static final class Entry {
+        final List<Pose> poses;
+        final int minX, minY, maxX, maxY; // Every cell the search looked at
+
+        Entry(List<Pose> poses, int minX, int minY, int maxX, int maxY) {
+            this.poses = poses;
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+        }
+
+        boolean covers(int gx, int gy) {
+            return gx >= minX && gx <= maxX && gy >= minY && gy <= maxY;
+        }
+    }
+
+    // Guarded by this
+    private final RobotSimulator occupancy = new RobotSimulator();
+    private final Map<Integer, Entry> cache = new HashMap<>();
+    private List<ArenaView.Obstacle> obstacles = Collections.emptyList();
+    private int computeCount = 0;
+
+    /** Brings the cache up to date with {@code state}; cheap when its obstacles did not change. */
+    public synchronized void sync(ArenaState state) {
+        List<ArenaView.Obstacle> next = state.obstacles;
+        if (next == obstacles) return;
+
+        Map<Integer, ArenaView.Obstacle> prev = new HashMap<>();
+        for (ArenaView.Obstacle o : obstacles) prev.put(o.id, o);
+        for (ArenaView.Obstacle o : next) {
+            ArenaView.Obstacle old = prev.remove(o.id);
+            if (old == o) continue;
+            if (old == null) {
+                blocked((int) o.x, (int) o.y);
+            } else if ((int) old.x != (int) o.x || (int) old.y != (int) o.y) {
+                cache.remove(o.id);
+                blocked((int) old.x, (int) old.y);
+                blocked((int) o.x, (int) o.y);
+            } else if (old.direction != o.direction) {
+                cache.remove(o.id); // Only its own face moved; nobody else is affected
+            }
+            // A new value alone changes nothing here
+        }
+        for (ArenaView.Obstacle gone : prev.values()) {
+            cache.remove(gone.id);
+            blocked((int) gone.x, (int) gone.y);
+        }
+
+        obstacles = next;
+        occupancy.clearObstacles();
+        for (ArenaView.Obstacle o : next) occupancy.addObstacle((int) o.x, (int) o.y);
+    }
+
+    /** A cell became or stopped being blocked: drop the entries that looked at it. */
+    private void blocked(int gx, int gy) {
+        cache.values().removeIf(e -> e.covers(gx, gy));
+    }
+
+    /** Ranked candidates for obstacle {@code id}; empty if it is unknown or cannot be seen. */
+    public synchronized List<Pose> candidates(int id) {
+        Entry e = cache.get(id);
+        if (e == null) {
+            ArenaView.Obstacle o = find(id);
+            if (o == null) return Collections.emptyList();
+            e = compute(o);
+            cache.put(id, e);
+        }
+        return e.poses;
+    }
+
+    /** The best candidate, or null if there is none. */
+    public Pose best(int id) {
+        List<Pose> poses = candidates(id);
+        return poses.isEmpty() ? null : poses.get(0);
+    }
+
+    synchronized int getComputeCount() {
+        return computeCount;
+    }
+
+    private ArenaView.Obstacle find(int id) {
+        for (ArenaView.Obstacle o : obstacles) if (o.id == id) return o;
+        return null;
+    }
+
+    private Entry compute(ArenaView.Obstacle o) {
+        computeCount++;
+        int ox = (int) o.x, oy = (int) o.y;
+        int face = o.direction & 3;
+        int nx = NORMAL_X[face], ny = NORMAL_Y[face];
+        int tx = -ny, ty = nx; // Along the face
+
+        List<Pose> poses = new ArrayList<>();
+        for (int d = MIN_DISTANCE; d <= MAX_DISTANCE; d++) {
+            for (int off = -MAX_OFFSET; off <= MAX_OFFSET; off++) {
+                int cx = ox + nx * d + tx * off;
+                int cy = oy + ny * d + ty * off;
+                if (occupancy.fits(cx, cy) && clearSight(ox, oy, nx, ny, d)) {
+                    poses.add(new Pose(cx, cy, FACING[face], d, off));
+                }
+            }
+        }
+        poses.sort((a, b) -> a.cost != b.cost ? Integer.compare(a.cost, b.cost)
+                : Integer.compare(a.distance, b.distance));
+
+        // Footprints reach one cell past the farthest centres
+        int reach = MAX_DISTANCE + 1, side = MAX_OFFSET + 1;
+        int ax = ox + nx * reach, ay = oy + ny * reach;
+        int minX = Math.min(ox, ax) - (nx == 0 ? side : 0);
+        int maxX = Math.max(ox, ax) + (nx == 0 ? side : 0);
+        int minY = Math.min(oy, ay) - (ny == 0 ? side : 0);
+        int maxY = Math.max(oy, ay) + (ny == 0 ? side : 0);
+        return new Entry(Collections.unmodifiableList(poses), minX, minY, maxX, maxY);
+    }
+
+    /** No obstacle on the face's centre line between the face and the robot's front edge. */
+    private boolean clearSight(int ox, int oy, int nx, int ny, int distance) {
+        for (int k = 1; k < distance - 1; k++) {
+            if (occupancy.isOccupied(ox + nx * k, oy + ny * k)) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.sc2079_group25;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ArenaLayoutStoreTest {
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("layouts").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) for (File f : files) f.delete();
+        dir.delete();
+    }
+
+    private static ArenaView.Obstacle obstacle(int id, int x, int y, int direction, String value) {
+        ArenaView.Obstacle o = new ArenaView.Obstacle(id, x, y);
+        o.direction = direction;
+        o.value = value;
+        return o;
+    }
+
+    private static ArenaLayoutStore.Layout layout(String name, ArenaView.Obstacle... obstacles) {
+        return new ArenaLayoutStore.Layout(name, 2, 3, 270, Arrays.asList(obstacles));
+    }
+
+    @Test
+    public void savedLayoutsListNewestFirstAndLoadBack() throws IOException {
+        ArenaLayoutStore store = new ArenaLayoutStore(dir);
+        ArenaLayoutStore.Entry first = store.save(layout("first", obstacle(1, 5, 6, 2, "11")));
+        ArenaLayoutStore.Entry second = store.save(layout("second",
+                obstacle(0, 0, 0, 0, "none"), obstacle(9, 19, 19, 3, "caf\u00e9")));
+
+        // A fresh store reads the index written by the first one
+        List<ArenaLayoutStore.Entry> entries = new ArenaLayoutStore(dir).list();
+        assertEquals(2, entries.size());
+        assertEquals(second.id, entries.get(0).id);
+        assertEquals("second", entries.get(0).name);
+        assertEquals(2, entries.get(0).obstacleCount);
+        assertEquals(first.id, entries.get(1).id);
+
+        ArenaLayoutStore.Layout l = store.load(second.id);
+        assertEquals("second", l.name);
+        assertEquals(2, l.robotX, 0);
+        assertEquals(3, l.robotY, 0);
+        assertEquals(270, l.robotRotation, 0);
+        assertEquals(2, l.obstacles.size());
+        ArenaView.Obstacle o = l.obstacles.get(1);
+        assertEquals(9, o.id);
+        assertEquals(19, o.x, 0);
+        assertEquals(19, o.y, 0);
+        assertEquals(3, o.direction);
+        assertEquals("caf\u00e9", o.value);
+
+        store.delete(first.id);
+        assertEquals(1, new ArenaLayoutStore(dir).list().size());
+    }
+
+    @Test
+    public void rejectsValuesTheFormatWouldTruncate() throws IOException {
+        ArenaLayoutStore store = new ArenaLayoutStore(dir);
+        for (ArenaView.Obstacle bad : new ArenaView.Obstacle[] {
+                obstacle(256, 1, 1, 0, "none"), obstacle(1, 300, 1, 0, "none"),
+                obstacle(1, 1, -1, 0, "none"), obstacle(1, 1, 1, 256, "none"), obstacle(1, 1, 1, 0, null)}) {
+            try {
+                store.save(layout("bad", bad));
+                fail("Saved an out-of-range obstacle");
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+        List<ArenaView.Obstacle> tooMany = new ArrayList<>();
+        for (int i = 0; i < 0x10000; i++) tooMany.add(obstacle(1, 1, 1, 0, "none"));
+        try {
+            store.save(new ArenaLayoutStore.Layout("many", 1, 1, 0, tooMany));
+            fail("Saved more obstacles than the count field holds");
+        } catch (IllegalArgumentException expected) {
+        }
+        assertTrue(store.list().isEmpty());
+        assertEquals("nothing was written", 0, dir.listFiles((d, name) -> name.endsWith(".layout")).length);
+    }
+
+    @Test
+    public void corruptFilesAreSkippedWhenTheIndexIsRebuilt() throws IOException {
+        ArenaLayoutStore store = new ArenaLayoutStore(dir);
+        ArenaLayoutStore.Entry good = store.save(layout("good", obstacle(1, 5, 6, 2, "11")));
+        ArenaLayoutStore.Entry bad = store.save(layout("bad", obstacle(2, 7, 8, 1, "12")));
+
+        // Truncate one layout and garble the index, as a crash mid-write might
+        File badFile = new File(dir, bad.id + ".layout");
+        byte[] bytes = Files.readAllBytes(badFile.toPath());
+        try (FileOutputStream out = new FileOutputStream(badFile)) {
+            out.write(bytes, 0, bytes.length / 2);
+        }
+        try (FileOutputStream out = new FileOutputStream(new File(dir, "index.bin"))) {
+            out.write(new byte[] {1, 2, 3});
+        }
+
+        ArenaLayoutStore reopened = new ArenaLayoutStore(dir);
+        List<ArenaLayoutStore.Entry> entries = reopened.list();
+        assertEquals(1, entries.size());
+        assertEquals(good.id, entries.get(0).id);
+        assertEquals("good", reopened.load(good.id).name);
+        try {
+            reopened.load(bad.id);
+            fail("Loaded a truncated layout");
+        } catch (IOException expected) {
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.sc2079_group25;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ArenaStoreTest {
+
+    @Test
+    public void concurrentProducersNeverDeliverAnOlderSnapshot() throws Exception {
+        final int producers = 4;
+        final int updates = 20_000;
+        ArenaStore store = new ArenaStore();
+        long[] last = {-1};
+        AtomicInteger outOfOrder = new AtomicInteger();
+        AtomicInteger delivered = new AtomicInteger();
+        store.addListener(state -> {
+            if (state.version <= last[0]) outOfOrder.incrementAndGet();
+            last[0] = state.version;
+            delivered.incrementAndGet();
+        });
+
+        CountDownLatch go = new CountDownLatch(1);
+        Thread[] threads = new Thread[producers];
+        for (int t = 0; t < producers; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < updates; i++) store.update(s -> s.withRobot(s.robotX, s.robotY, (s.robotRotation + 90) % 360));
+            });
+            threads[t].start();
+        }
+        go.countDown();
+        for (Thread t : threads) t.join();
+
+        assertEquals(0, outOfOrder.get());
+        assertEquals(producers * updates, store.get().version);
+        assertEquals("the latest state always reaches listeners", store.get().version, last[0]);
+        assertTrue(delivered.get() <= producers * updates);
+    }
+
+    @Test
+    public void undoAndRedoNotifyInOrder() {
+        ArenaStore store = new ArenaStore();
+        StringBuilder seen = new StringBuilder();
+        store.addListener(state -> seen.append(state.obstacles.size()));
+
+        store.edit(s -> s.withObstacle(new ArenaView.Obstacle(1, 5, 5)));
+        store.edit(s -> s.withObstacle(new ArenaView.Obstacle(2, 8, 8)));
+        assertTrue(store.undo());
+        assertTrue(store.redo());
+        assertEquals("1212", seen.toString());
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.sc2079_group25;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link BtLog} does no formatting when its level is disabled,
+ * and that the ring buffer dumps records in order.
+ */
+public class BtLogBenchmarkTest {
+    private static final String TAG = "BtLogBenchmarkTest";
+    private static final int ITERATIONS = 2_000_000;
+
+    @Before
+    public void setUp() {
+        BtLog.setLogcatEnabled(false);
+    }
+
+    @After
+    public void tearDown() {
+        BtLog.setLevel(BtLog.INFO);
+    }
+
+    @Test
+    public void disabledCallsNeverFormat() {
+        BtLog.setLevel(BtLog.INFO);
+        long before = BtLog.getRecordCount();
+        int[] formatted = {0};
+        Object arg = new Object() {
+            @Override
+            public String toString() {
+                formatted[0]++;
+                return "x";
+            }
+        };
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            BtLog.d(TAG, "Read {} bytes from device", i);
+            BtLog.d(TAG, "Argument {}", arg);
+        }
+        assertEquals("disabled calls must not touch their arguments", 0, formatted[0]);
+        assertEquals(before, BtLog.getRecordCount());
+
+        BtLog.setLevel(BtLog.DEBUG);
+        BtLog.d(TAG, "Argument {}", arg);
+        assertEquals(1, formatted[0]);
+    }
+
+    @Test
+    public void ringDumpsRecordsOldestFirst() throws Exception {
+        BtLog.setLevel(BtLog.DEBUG);
+        for (int i = 0; i < 10; i++) BtLog.d(TAG, "line {}", i);
+
+        File out = File.createTempFile("btlog", ".txt");
+        try {
+            assertTrue(BtLog.dump(out) >= 10);
+            List<String> lines = Files.readAllLines(out.toPath(), StandardCharsets.UTF_8);
+            int last = -1;
+            for (String l : lines) {
+                int at = l.indexOf(TAG + ": line ");
+                if (at < 0) continue;
+                int n = Integer.parseInt(l.substring(at + TAG.length() + 7).trim());
+                assertTrue(n > last);
+                last = n;
+            }
+            assertEquals(9, last);
+        } finally {
+            out.delete();
+        }
+    }
+
+    @Test
+    public void formatFillsPlaceholdersInOrder() {
+        assertEquals("a=1 b=x", BtLog.format("a={} b={}", "1", "x", null));
+        assertEquals("no args", BtLog.format("no args", "unused", null, null));
+        assertEquals("n=42", BtLog.format("n={}", 42L, null, null));
+        assertEquals("1 2 3 {}", BtLog.format("{} {} {} {}", "1", "2", "3"));
+    }
+}
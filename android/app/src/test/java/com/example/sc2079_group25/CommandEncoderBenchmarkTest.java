@@ -0,0 +1,102 @@
+package com.example.sc2079_group25;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link CommandEncoder} produces the same bytes as the old
+ * String path, and compares the cost of the two for fixed and variable commands.
+ */
+public class CommandEncoderBenchmarkTest {
+    private static final int ITERATIONS = 2_000_000;
+    private static final String[] FIXED = {RobotCommands.FORWARD, RobotCommands.TURN_LEFT,
+            RobotCommands.REVERSE, RobotCommands.TURN_RIGHT};
+
+    // Written so the JIT cannot drop the loops
+    private static volatile int sink;
+
+    /** What writeLine() used to do before writing. */
+    private static byte[] oldEncode(String text) {
+        if (!text.endsWith("\r\n")) {
+            if (text.endsWith("\n")) text = text.substring(0, text.length() - 1) + "\r\n";
+            else text = text + "\r\n";
+        }
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] newEncode(CommandEncoder e, String text) {
+        byte[] fixed = CommandEncoder.constant(text);
+        if (fixed != null) return fixed;
+        int n = e.encode(text); // May replace the buffer, so fetch it after
+        return Arrays.copyOf(e.buffer(), n);
+    }
+
+    @Test
+    public void matchesTheStringPath() {
+        CommandEncoder e = new CommandEncoder();
+        for (String s : new String[] {"f", "Task1:Start", "", "hello\n", "hello\r\n", "\r\n",
+                "{\"obstacles\":[]}", "caf\u00e9 \u20ac \ud83d\ude00", "bad \ud83d end"}) {
+            assertArrayEquals(s, oldEncode(s), newEncode(e, s));
+        }
+        StringBuilder longLine = new StringBuilder();
+        for (int i = 0; i < 1000; i++) longLine.append("\u00e9x");
+        assertArrayEquals(oldEncode(longLine.toString()), newEncode(e, longLine.toString()));
+    }
+
+    @Test
+    public void fixedCommandsSkipEncoding() {
+        CommandEncoder e = new CommandEncoder();
+        String variable = "{\"cmd\":\"move\",\"dist\":10}";
+
+        // Warm up both paths before timing
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink = oldEncode(FIXED[i & 3]).length + oldEncode(variable).length;
+            sink = CommandEncoder.constant(FIXED[i & 3]).length + e.encode(variable);
+        }
+
+        long t0 = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) sink = oldEncode(FIXED[i & 3]).length;
+        long oldFixed = System.nanoTime() - t0;
+
+        long allocBefore = allocatedBytes();
+        t0 = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) sink = CommandEncoder.constant(FIXED[i & 3]).length;
+        long newFixed = System.nanoTime() - t0;
+        long fixedAlloc = allocatedBytes() - allocBefore;
+
+        t0 = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) sink = oldEncode(variable).length;
+        long oldVariable = System.nanoTime() - t0;
+
+        allocBefore = allocatedBytes();
+        t0 = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) sink = e.encode(variable);
+        long newVariable = System.nanoTime() - t0;
+        long variableAlloc = allocatedBytes() - allocBefore;
+
+        // The gain is reported, not asserted: it varies with the JIT and the machine
+        System.out.printf("fixed: old %.1f ns, cached %.1f ns; variable: old %.1f ns, buffer %.1f ns%n",
+                (double) oldFixed / ITERATIONS, (double) newFixed / ITERATIONS,
+                (double) oldVariable / ITERATIONS, (double) newVariable / ITERATIONS);
+        if (fixedAlloc >= 0) {
+            // A few KB of slack for the measurement itself
+            assertTrue("Fixed commands allocated " + fixedAlloc + " bytes", fixedAlloc < 64 * 1024);
+            assertTrue("Variable commands allocated " + variableAlloc + " bytes", variableAlloc < 64 * 1024);
+        }
+    }
+
+    /** Bytes allocated by this thread, or -1 if the JVM cannot tell. */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.sc2079_group25;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks {@link CommandScheduler} script parsing, send order, pause and abort.
+ */
+public class CommandSchedulerTest {
+    private final List<Long> sendTimes = new CopyOnWriteArrayList<>();
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    private final AtomicReference<CommandScheduler.Report> report = new AtomicReference<>();
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private final CountDownLatch paused = new CountDownLatch(1);
+    private volatile int pauseAfter = -1; // Sends after which the sink pauses the script
+
+    private final CommandScheduler scheduler = new CommandScheduler(
+            cmd -> {
+                sendTimes.add(System.nanoTime());
+                sent.add(cmd);
+                if (sent.size() == pauseAfter) {
+                    // On the scheduler thread, so the next send is held for certain
+                    this.scheduler.pause();
+                    paused.countDown();
+                }
+            },
+            r -> {
+                report.set(r);
+                finished.countDown();
+            });
+
+    @Test
+    public void parsesRepeatsWaitsAndSingleCommands() {
+        CommandScheduler.Script s = CommandScheduler.Script.parse("f every 150 for 600; tr\nwait 100; r x2 every 50");
+        assertArrayEquals(new String[] {"f", "f", "f", "f", "tr", "r", "r"}, s.commands);
+        long ms = TimeUnit.MILLISECONDS.toNanos(1);
+        assertArrayEquals(new long[] {0, 150 * ms, 300 * ms, 450 * ms, 600 * ms, 700 * ms, 750 * ms}, s.offsets);
+    }
+
+    @Test
+    public void rejectsUnknownSteps() {
+        try {
+            CommandScheduler.Script.parse("f every 150");
+            fail("Parsed an incomplete step");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("f every 150"));
+        }
+    }
+
+    @Test
+    public void sendsOnScheduleAndReportsJitter() throws Exception {
+        CommandScheduler.Script script = CommandScheduler.Script.parse("f every 20 for 200; tr");
+        long start = System.nanoTime();
+        scheduler.start(script);
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+
+        CommandScheduler.Report r = report.get();
+        assertEquals(11, r.planned);
+        assertEquals(11, r.sent);
+        assertFalse(r.aborted);
+        assertEquals("tr", sent.get(10));
+        // Gaps come from the script start, and a command is never sent early
+        for (int i = 0; i < r.sent; i++) {
+            assertTrue("Send " + i + " early", sendTimes.get(i) - start >= script.offsets[i]);
+        }
+        assertTrue(r.toString(), r.maxNanos() >= 0 && r.percentileNanos(0.5) <= r.maxNanos());
+    }
+
+    @Test
+    public void pauseHoldsTheRestUntilResumed() throws Exception {
+        pauseAfter = 2;
+        scheduler.start(CommandScheduler.Script.parse("f x5 every 10"));
+        assertTrue(paused.await(5, TimeUnit.SECONDS));
+        assertTrue(scheduler.isPaused());
+        Thread.sleep(50);
+        assertEquals(2, sent.size());
+        assertEquals(1, finished.getCount());
+
+        scheduler.resume();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(5, report.get().sent);
+        assertFalse(report.get().aborted);
+    }
+
+    @Test
+    public void abortStopsAPausedScript() throws Exception {
+        pauseAfter = 3;
+        scheduler.start(CommandScheduler.Script.parse("f every 20 for 1000"));
+        assertTrue(paused.await(5, TimeUnit.SECONDS));
+        scheduler.abort();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertTrue(report.get().aborted);
+        assertEquals(50, report.get().planned);
+        assertEquals(3, report.get().sent);
+        assertEquals(3, sent.size());
+        assertFalse(scheduler.isRunning());
+    }
+}
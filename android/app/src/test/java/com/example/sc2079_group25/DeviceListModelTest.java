@@ -0,0 +1,108 @@
+package com.example.sc2079_group25;
+
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListUpdateCallback;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DeviceListModelTest {
+
+    private static final int DEVICES = 250;
+
+    private static String address(int i) {
+        return String.format("00:11:22:33:%02X:%02X", i / 256, i % 256);
+    }
+
+    @Test
+    public void burstOfSightingsCoalescesIntoOneSortedSnapshot() {
+        DeviceListModel model = new DeviceListModel();
+        int scheduled = 0;
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < DEVICES; i++) {
+                if (model.offer(new DeviceRow(address(i), "dev" + i, -40 - (i % 60) - round, false, i == 7))) {
+                    scheduled++;
+                }
+            }
+        }
+
+        assertEquals("one flush per batch", 1, scheduled);
+        assertEquals(DEVICES * 9, model.getCoalescedCount());
+
+        List<DeviceRow> rows = model.drain();
+        assertEquals(DEVICES, rows.size());
+        assertEquals(address(7), rows.get(0).address);
+        for (int i = 2; i < rows.size(); i++) {
+            assertTrue(rows.get(i - 1).rssi >= rows.get(i).rssi);
+        }
+        assertSame(rows, model.drain());
+    }
+
+    @Test
+    public void unchangedSightingsDoNotProduceANewSnapshot() {
+        DeviceListModel model = new DeviceListModel();
+        for (int i = 0; i < DEVICES; i++) model.offer(new DeviceRow(address(i), "dev" + i, -50, false, false));
+        List<DeviceRow> first = model.drain();
+
+        for (int i = 0; i < DEVICES; i++) model.offer(new DeviceRow(address(i), null, DeviceRow.RSSI_UNKNOWN, false, false));
+        assertSame(first, model.drain());
+    }
+
+    @Test
+    public void unbondingMovesADeviceBackDownTheList() {
+        DeviceListModel model = new DeviceListModel();
+        model.offer(new DeviceRow(address(0), "robot", -80, true, true));
+        model.offer(new DeviceRow(address(1), "phone", -40, false, false));
+        assertEquals(address(0), model.drain().get(0).address);
+
+        model.offer(new DeviceRow(address(0), null, DeviceRow.RSSI_UNKNOWN, false, false));
+        List<DeviceRow> rows = model.drain();
+        assertEquals(address(1), rows.get(0).address);
+        DeviceRow unbonded = rows.get(1);
+        assertFalse(unbonded.bonded);
+        assertFalse(unbonded.knownRobot);
+        assertEquals("robot", unbonded.name);
+        assertEquals(-80, unbonded.rssi);
+    }
+
+    @Test
+    public void sightingWithUnknownBondStateKeepsThePairedFlag() {
+        DeviceListModel model = new DeviceListModel();
+        model.offer(new DeviceRow(address(0), "robot", -80, true, false));
+        model.offer(new DeviceRow(address(1), "phone", -40, false, false));
+        model.drain();
+
+        // A cache miss: bond state not looked up yet
+        model.offer(new DeviceRow(address(0), null, -70, false, false, false));
+        List<DeviceRow> rows = model.drain();
+        assertEquals(address(0), rows.get(0).address);
+        assertTrue(rows.get(0).bonded);
+        assertTrue(rows.get(0).bondKnown);
+        assertEquals(-70, rows.get(0).rssi);
+    }
+
+    @Test
+    public void renamesDispatchTargetedChangesOnly() {
+        DeviceListModel model = new DeviceListModel();
+        for (int i = 0; i < DEVICES; i++) model.offer(new DeviceRow(address(i), null, -50, false, false));
+        List<DeviceRow> before = model.drain();
+
+        for (int i = 0; i < 10; i++) model.offer(new DeviceRow(address(i), "robot" + i, -50, false, false));
+        List<DeviceRow> after = model.drain();
+
+        int[] ops = new int[4]; // inserted, removed, moved, changed
+        DiffUtil.calculateDiff(new DeviceRowDiff(before, after), true).dispatchUpdatesTo(new ListUpdateCallback() {
+            @Override public void onInserted(int position, int count) { ops[0] += count; }
+            @Override public void onRemoved(int position, int count) { ops[1] += count; }
+            @Override public void onMoved(int fromPosition, int toPosition) { ops[2]++; }
+            @Override public void onChanged(int position, int count, Object payload) {
+                assertSame(DeviceRowDiff.PAYLOAD_TEXT, payload);
+                ops[3] += count;
+            }
+        });
+        assertArrayEquals(new int[] {0, 0, 0, 10}, ops);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.sc2079_group25;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link EventFanout} listeners get every event in order on their
+ * own executors, and that a slow listener does not hold up the others.
+ */
+public class EventFanoutTest {
+    private static final int LINES = 2000;
+
+    private static class Recorder implements BluetoothEventListener {
+        final List<String> lines = new CopyOnWriteArrayList<>();
+        final List<String> threads = new CopyOnWriteArrayList<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        final long delayNanos;
+
+        Recorder(long delayNanos) {
+            this.delayNanos = delayNanos;
+        }
+
+        @Override public void onConnectionStateChanged(int state, String detail) {
+            if (state == BtConstants.STATE_NONE) done.countDown();
+        }
+
+        @Override public void onLineReceived(String line) {
+            long until = System.nanoTime() + delayNanos;
+            while (System.nanoTime() < until) {
+                // Busy, like a slow consumer
+            }
+            lines.add(line);
+            threads.add(Thread.currentThread().getName());
+        }
+
+        @Override public void onError(String message, Throwable t) {}
+    }
+
+    @Test
+    public void eachListenerGetsAllEventsInOrderOnItsExecutor() throws Exception {
+        ExecutorService pool = Executors.newCachedThreadPool(BtExecutors.named("FanoutTest"));
+        try {
+            EventFanout fanout = new EventFanout();
+            Recorder direct = new Recorder(0);
+            Recorder slow = new Recorder(TimeUnit.MICROSECONDS.toNanos(200));
+            Recorder worker = new Recorder(0);
+            fanout.add(direct, Runnable::run);
+            fanout.add(slow, new SerialExecutor(pool));
+            fanout.add(worker, new SerialExecutor(pool));
+
+            long start = System.nanoTime();
+            for (int i = 0; i < LINES; i++) fanout.onLineReceived("ROBOT," + i);
+            long readerNanos = System.nanoTime() - start;
+            fanout.onConnectionStateChanged(BtConstants.STATE_NONE, "Disconnected");
+
+            // The reader thread only paid for the direct listener, not the slow one
+            assertTrue("Reader took " + readerNanos / 1e6 + " ms",
+                    readerNanos < LINES * TimeUnit.MICROSECONDS.toNanos(200) / 2);
+            for (Recorder r : new Recorder[] {direct, slow, worker}) {
+                assertTrue(r.done.await(10, TimeUnit.SECONDS));
+                assertEquals(LINES, r.lines.size());
+                for (int i = 0; i < LINES; i++) assertEquals("ROBOT," + i, r.lines.get(i));
+            }
+            assertEquals(Thread.currentThread().getName(), direct.threads.get(0));
+            assertTrue(slow.threads.get(0).startsWith("FanoutTest"));
+
+            fanout.remove(slow);
+            assertEquals(2, fanout.size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.sc2079_group25;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks MAP decoding and that only changed cells are passed on for repainting.
+ */
+public class ExploredMapTest {
+    private final ArenaModel model = new ArenaModel();
+    private final ProtocolDispatcher dispatcher = new ProtocolDispatcher(model);
+    private final RecordingSink sink = new RecordingSink();
+
+    private static final class RecordingSink implements ArenaModel.Sink {
+        final long[] explored = new long[MapBits.WORDS];
+        final long[] obstacles = new long[MapBits.WORDS];
+        final long[] changed = new long[MapBits.WORDS];
+        int updates;
+
+        @Override public void updateExploredMap(long[] e, long[] o, long[] c) {
+            System.arraycopy(e, 0, explored, 0, MapBits.WORDS);
+            System.arraycopy(o, 0, obstacles, 0, MapBits.WORDS);
+            System.arraycopy(c, 0, changed, 0, MapBits.WORDS);
+            updates++;
+        }
+
+        @Override public void clearMap() {}
+        @Override public void addObstacle(int id, float x, float y) {}
+        @Override public void updateObstacleValues(String[] valuesById) {}
+        @Override public void setPlannedPath(float[] pts, int n) {}
+        @Override public void appendPlannedPath(float[] pts, int n) {}
+        @Override public void updateRobot(float x, float y, float r) {}
+
+        int changedCells() {
+            int n = 0;
+            for (long w : changed) n += Long.bitCount(w);
+            return n;
+        }
+    }
+
+    /** Hex for a grid with only the given cells set. */
+    private static String hex(int... cells) {
+        int[] bytes = new int[MapBits.HEX_CHARS / 2];
+        for (int c : cells) bytes[c / 8] |= 1 << (c % 8);
+        StringBuilder sb = new StringBuilder();
+        for (int b : bytes) sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+
+    private static int cell(int x, int y) {
+        return y * MapBits.GRID + x;
+    }
+
+    @Test
+    public void decodesCellsInWireOrder() {
+        long[] out = new long[MapBits.WORDS];
+        assertTrue(MapBits.decodeHex(hex(0, 9, 64, 399), 0, MapBits.HEX_CHARS, out));
+        assertEquals(1L | 1L << 9, out[0]);
+        assertEquals(1L, out[1]);
+        assertTrue(MapBits.get(out, 399));
+
+        assertFalse(MapBits.decodeHex("00", 0, 2, out));
+        String bad = "g" + hex().substring(1);
+        assertFalse(MapBits.decodeHex(bad, 0, bad.length(), out));
+    }
+
+    @Test
+    public void fullMapThenDeltaRepaintsOnlyChangedCells() {
+        assertNull(dispatcher.dispatch("MAP," + hex(cell(1, 1), cell(2, 1), cell(3, 1)) + "," + hex(cell(3, 1))));
+        model.applyTo(sink);
+        assertEquals(1, sink.updates);
+        assertEquals(3, sink.changedCells());
+        assertTrue(MapBits.get(sink.obstacles, cell(3, 1)));
+
+        // Explore (4, 1) and drop the obstacle at (3, 1): two cells change
+        assertNull(dispatcher.dispatch("MAP+, " + hex(cell(4, 1)) + " , " + hex(cell(3, 1))));
+        model.applyTo(sink);
+        assertEquals(2, sink.changedCells());
+        assertTrue(MapBits.get(sink.changed, cell(4, 1)));
+        assertTrue(MapBits.get(sink.changed, cell(3, 1)));
+        assertTrue(MapBits.get(sink.explored, cell(4, 1)));
+        assertFalse(MapBits.get(sink.obstacles, cell(3, 1)));
+
+        // Resending the same map changes nothing
+        dispatcher.dispatch("MAP," + hex(cell(1, 1), cell(2, 1), cell(3, 1), cell(4, 1)) + "," + hex());
+        model.applyTo(sink);
+        assertEquals(0, sink.changedCells());
+
+        // Nothing pending, nothing applied
+        int updates = sink.updates;
+        model.applyTo(sink);
+        assertEquals(updates, sink.updates);
+    }
+
+    @Test
+    public void rejectsMalformedMaps() {
+        assertNotNull(dispatcher.dispatch("MAP," + hex()));
+        assertNotNull(dispatcher.dispatch("MAP,abc," + hex()));
+        model.applyTo(sink);
+        assertEquals(0, sink.updates);
+    }
+}
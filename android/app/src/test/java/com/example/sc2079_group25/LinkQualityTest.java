@@ -0,0 +1,101 @@
+package com.example.sc2079_group25;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks {@link LinkQuality} RTT, loss and staleness tracking, and that
+ * {@link SendRateController} slows down as the score drops.
+ */
+public class LinkQualityTest {
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long T0 = 1_000_000 * MS;
+
+    @Test
+    public void healthyLinkScoresOne() {
+        LinkQuality q = new LinkQuality(2000 * MS);
+        q.reset(T0);
+        long t = T0;
+        for (int i = 0; i < 20; i++, t += 1000 * MS) {
+            int seq = q.nextProbe(t);
+            q.onPong(seq, t + 20 * MS);
+        }
+        assertEquals(20, q.getAnswered());
+        assertEquals(0, q.getMissed());
+        assertEquals(20, q.getRttMillis(), 0.5);
+        assertEquals(1, q.score(), 1e-9);
+    }
+
+    @Test
+    public void slowAndLossyLinksScoreLower() {
+        LinkQuality slow = new LinkQuality(2000 * MS);
+        slow.reset(T0);
+        long t = T0;
+        for (int i = 0; i < 20; i++, t += 1000 * MS) {
+            int seq = slow.nextProbe(t);
+            slow.onPong(seq, t + (i % 2 == 0 ? 300 : 500) * MS);
+        }
+        assertTrue(slow.getJitterMillis() > 50);
+        assertTrue(slow.summary(), slow.score() < 0.2);
+
+        LinkQuality lossy = new LinkQuality(2000 * MS);
+        lossy.reset(T0);
+        t = T0;
+        for (int i = 0; i < 20; i++, t += 1000 * MS) {
+            int seq = lossy.nextProbe(t);
+            if (i % 2 == 0) lossy.onPong(seq, t + 20 * MS);
+            lossy.expire(t + 500 * MS);
+            lossy.expire(t + 2500 * MS);
+        }
+        assertEquals(10, lossy.getMissed());
+        assertTrue(lossy.summary(), lossy.score() < 0.7 && lossy.score() > 0.3);
+
+        // A reply after the probe expired is ignored
+        int seq = lossy.nextProbe(t);
+        lossy.expire(t + 3000 * MS);
+        int answered = lossy.getAnswered();
+        lossy.onPong(seq, t + 3100 * MS);
+        assertEquals(answered, lossy.getAnswered());
+    }
+
+    @Test
+    public void staleOnlyWhenNothingIsHeard() {
+        LinkQuality q = new LinkQuality(2000 * MS);
+        q.reset(T0);
+        assertFalse(q.isStale(T0 + 2900 * MS, 3000 * MS));
+        assertTrue(q.isStale(T0 + 3100 * MS, 3000 * MS));
+        q.onHeard(T0 + 3000 * MS); // Any line will do, not just a PONG
+        assertFalse(q.isStale(T0 + 3100 * MS, 3000 * MS));
+    }
+
+    @Test
+    public void parsesPongs() {
+        assertEquals(42, LinkQuality.parsePong("PONG,42"));
+        assertEquals(7, LinkQuality.parsePong("PONG,7 "));
+        assertEquals(-1, LinkQuality.parsePong("PONG,"));
+        assertEquals(-1, LinkQuality.parsePong("PONG,4x"));
+        assertEquals(-1, LinkQuality.parsePong("PING,4"));
+        assertEquals(-1, LinkQuality.parsePong("PONG,12345678901"));
+    }
+
+    @Test
+    public void rateFollowsQuality() {
+        SendRateController rate = new SendRateController(10, 2, T0);
+        assertTrue(rate.tryAcquire(T0));
+        assertTrue(rate.tryAcquire(T0));
+        assertFalse(rate.tryAcquire(T0)); // Burst used up
+        assertEquals(100 * MS, rate.nanosUntilAvailable(T0), MS);
+        assertTrue(rate.tryAcquire(T0 + 100 * MS));
+
+        rate.setQuality(0.2, T0 + 100 * MS);
+        assertEquals(2, rate.getRatePerSecond(), 1e-9);
+        assertFalse(rate.tryAcquire(T0 + 200 * MS));
+        assertEquals(400 * MS, rate.nanosUntilAvailable(T0 + 200 * MS), MS); // 0.2 of a send refilled so far
+
+        rate.setQuality(0, T0 + 100 * MS);
+        assertEquals(10 * SendRateController.MIN_FRACTION, rate.getRatePerSecond(), 1e-9);
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.sc2079_group25;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class PolylineSimplifierTest {
+    private static final float EPSILON = 0.05f;
+    private static final int POINTS = 5000;
+
+    /** An L across the arena, east then north, sampled densely with jitter below {@code EPSILON}. */
+    private static float[] noisyL(int n) {
+        float[] pts = new float[2 * n];
+        int corner = n / 2;
+        for (int i = 0; i < n; i++) {
+            float jitter = (i % 3 - 1) * 0.01f;
+            if (i <= corner) {
+                pts[2 * i] = 19f * i / corner;
+                pts[2 * i + 1] = i == 0 || i == corner ? 0 : jitter;
+            } else {
+                pts[2 * i] = 19f + (i == n - 1 ? 0 : jitter);
+                pts[2 * i + 1] = 19f * (i - corner) / (n - 1 - corner);
+            }
+        }
+        return pts;
+    }
+
+    /** Largest distance from any input point to the simplified polyline. */
+    private static float maxDeviation(float[] input, int n, float[] kept, int count) {
+        float worst = 0;
+        for (int i = 0; i < n; i++) {
+            float best = Float.MAX_VALUE;
+            for (int s = 0; s + 1 < count; s++) {
+                best = Math.min(best, distance(input[2 * i], input[2 * i + 1],
+                        kept[2 * s], kept[2 * s + 1], kept[2 * s + 2], kept[2 * s + 3]));
+            }
+            worst = Math.max(worst, best);
+        }
+        return worst;
+    }
+
+    private static float distance(float px, float py, float ax, float ay, float bx, float by) {
+        float dx = bx - ax, dy = by - ay;
+        float len2 = dx * dx + dy * dy;
+        float t = len2 == 0 ? 0 : Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / len2));
+        return (float) Math.hypot(px - ax - t * dx, py - ay - t * dy);
+    }
+
+    @Test
+    public void thousandsOfPointsReduceToTheCorners() {
+        float[] input = noisyL(POINTS);
+        float[] pts = input.clone();
+        int kept = PolylineSimplifier.simplify(pts, POINTS, EPSILON);
+
+        assertEquals(3, kept);
+        assertEquals(0, pts[0], 0);
+        assertEquals(0, pts[1], 0);
+        assertEquals(19, pts[2], EPSILON); // The corner, or a jittered sample next to it
+        assertEquals(0, pts[3], EPSILON);
+        assertEquals(input[2 * POINTS - 2], pts[4], 0);
+        assertEquals(input[2 * POINTS - 1], pts[5], 0);
+        assertTrue(maxDeviation(input, POINTS, pts, kept) <= EPSILON);
+    }
+
+    @Test
+    public void deviationsAboveEpsilonAreKept() {
+        // A square wave of unit height: every corner matters
+        int n = 2000;
+        float[] pts = new float[2 * n];
+        for (int i = 0; i < n; i++) {
+            pts[2 * i] = (i + 1) / 2;
+            pts[2 * i + 1] = (i / 2) % 2;
+        }
+        float[] input = pts.clone();
+        assertEquals(n, PolylineSimplifier.simplify(pts, n, EPSILON));
+        assertTrue(Arrays.equals(input, pts));
+    }
+
+    @Test
+    public void shortPathsAreLeftAlone() {
+        float[] pts = {1, 1, 2, 2};
+        assertEquals(2, PolylineSimplifier.simplify(pts, 2, EPSILON));
+        assertEquals(0, PolylineSimplifier.simplify(pts, 0, EPSILON));
+        assertTrue(Arrays.equals(new float[] {1, 1, 2, 2}, pts));
+    }
+
+    @Test
+    public void appendAcrossChunksStaysWithinEpsilonOfTheInput() {
+        float[] input = noisyL(POINTS);
+        int chunk = 237; // Not a divisor, so the last chunk is short and one straddles the corner
+        PathLayer layer = new PathLayer();
+        int chunks = 0;
+        for (int from = 0; from < POINTS; from += chunk) {
+            int n = Math.min(chunk, POINTS - from);
+            layer.append(Arrays.copyOfRange(input, 2 * from, 2 * (from + n)), n);
+            chunks++;
+        }
+
+        int count = layer.getPointCount();
+        float[] pts = layer.getPoints();
+        // Each chunk keeps the point it was anchored on, plus the corner
+        assertTrue("kept " + count, count <= chunks + 2);
+        assertEquals(input[0], pts[0], 0);
+        assertEquals(input[1], pts[1], 0);
+        assertEquals(input[2 * POINTS - 2], pts[2 * count - 2], 0);
+        assertEquals(input[2 * POINTS - 1], pts[2 * count - 1], 0);
+        assertTrue(maxDeviation(input, POINTS, pts, count) <= EPSILON);
+
+        // The points kept so far are never revisited by a later chunk
+        float[] before = Arrays.copyOf(pts, 2 * count);
+        layer.append(new float[] {19, 25, 19, 30}, 2);
+        assertTrue(Arrays.equals(before, Arrays.copyOf(layer.getPoints(), 2 * count)));
+        assertEquals(count + 1, layer.getPointCount()); // The collinear middle point goes
+    }
+
+    @Test
+    public void appendToAnEmptyLayerReplaces() {
+        PathLayer layer = new PathLayer();
+        layer.append(new float[] {0, 0, 1, 0, 2, 0}, 3);
+        assertEquals(2, layer.getPointCount());
+        layer.clear();
+        layer.append(new float[] {5, 5}, 1);
+        assertEquals(1, layer.getPointCount());
+        assertEquals(5, layer.getPoints()[0], 0);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.sc2079_group25;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs {@link SoakHarness} over a two-hour simulated session by default,
+ * checking only what does not depend on the machine. Pass -Dsoak.hours=N to
+ * the test JVM for a longer soak that also checks heap growth and latency.
+ */
+public class ProtocolSoakTest {
+
+    @Test
+    public void longSessionStaysFlat() {
+        SoakHarness.Config c = new SoakHarness.Config();
+        String hours = System.getProperty("soak.hours");
+        if (hours != null) {
+            c.simulatedSeconds = (long) (Double.parseDouble(hours) * 3600);
+            c.wallClockChecks = true;
+        }
+        SoakHarness.Result r = new SoakHarness().run(c);
+        assertTrue(r.report(), r.failures.isEmpty());
+        assertEquals(0, r.errors);
+    }
+
+    @Test
+    public void detectsTailLatencyOverThreshold() {
+        SoakHarness.Config c = new SoakHarness.Config();
+        c.simulatedSeconds = 120;
+        c.wallClockChecks = true;
+        c.maxP99Nanos = -1; // Nothing can meet this
+        SoakHarness.Result r = new SoakHarness().run(c);
+        assertFalse(r.failures.isEmpty());
+    }
+
+    @Test
+    public void detectsRetainedSizeOverLimit() {
+        SoakHarness.Config c = new SoakHarness.Config();
+        c.simulatedSeconds = 120;
+        c.maxObstacles = 4; // Eight ids are re-added
+        SoakHarness.Result r = new SoakHarness().run(c);
+        assertFalse(r.failures.isEmpty());
+        assertTrue(r.failures.get(0), r.failures.get(0).startsWith("obstacles"));
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.sc2079_group25;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs command scripts through {@link RobotSimulator} without a device.
+ */
+public class RobotSimulatorTest {
+    private static final String F = RobotCommands.FORWARD;
+    private static final String R = RobotCommands.REVERSE;
+    private static final String TL = RobotCommands.TURN_LEFT;
+    private static final String TR = RobotCommands.TURN_RIGHT;
+
+    @Test
+    public void movesAndTurnsLikeTheArenaView() {
+        RobotSimulator sim = new RobotSimulator().reset(1, 1, 0);
+        assertEquals(3, sim.run(F, F, TR));
+        // Two forward, then forward/turn/forward: (2, 4) facing east
+        assertEquals(2, sim.getX(), 0);
+        assertEquals(4, sim.getY(), 0);
+        assertEquals(90, sim.getRotation(), 0);
+
+        assertEquals(RobotSimulator.OK, sim.apply(TL));
+        assertEquals(0, sim.getRotation(), 0);
+        assertEquals(RobotSimulator.OK, sim.apply(R));
+        assertEquals(4, sim.getY(), 0);
+    }
+
+    @Test
+    public void wallsClampWithoutCollision() {
+        RobotSimulator sim = new RobotSimulator().reset(1, 1, 180);
+        assertEquals(2, sim.run(F, F));
+        assertEquals(1, sim.getY(), 0);
+        assertEquals(0, sim.getCollisions());
+    }
+
+    @Test
+    public void blockedMoveKeepsPose() {
+        RobotSimulator sim = new RobotSimulator().reset(5, 5, 0);
+        sim.addObstacle(5, 8);
+        assertEquals(1, sim.run(F, F, F));
+        assertEquals(6, sim.getY(), 0);
+        assertEquals(1, sim.getCollisions());
+
+        // A turn is blocked by either of its two moves
+        assertEquals(RobotSimulator.BLOCKED, sim.apply(TR));
+        assertEquals(0, sim.getRotation(), 0);
+        assertEquals(RobotSimulator.UNKNOWN_COMMAND, sim.apply("jump"));
+    }
+
+    @Test
+    public void reusedSimulatorMatchesAFreshOne() {
+        String[] script = { F, F, F, TR, F, F, TL, F, R, TR, F, F, F, TL, F, F };
+        RobotSimulator sim = new RobotSimulator();
+        // Reset and clearObstacles leave nothing behind from earlier runs
+        for (int i = 0; i < 4 * RobotSimulator.GRID; i++) {
+            sim.reset(1, 1, 0);
+            sim.clearObstacles();
+            sim.addObstacle(i % RobotSimulator.GRID, 12);
+            int moves = sim.run(script);
+
+            RobotSimulator fresh = new RobotSimulator().reset(1, 1, 0);
+            fresh.addObstacle(i % RobotSimulator.GRID, 12);
+            assertEquals(fresh.run(script), moves);
+            assertEquals(fresh.getX(), sim.getX(), 0);
+            assertEquals(fresh.getY(), sim.getY(), 0);
+            assertEquals(fresh.getRotation(), sim.getRotation(), 0);
+            assertEquals(fresh.getCollisions(), sim.getCollisions());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.sc2079_group25;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RunTimelineTest {
+    private static final long MS = 1_000_000L;
+    private static final long T0 = 5_000 * MS; // nanoTime values are arbitrary; only differences count
+
+    @Test
+    public void breakdownTimesFirstRecognitionOfEachObstacle() {
+        RunTimeline t = new RunTimeline(64);
+        t.start("Task1", T0);
+        t.markPose(T0 + 100 * MS, 1, 1, 0);
+        t.markTarget(T0 + 1_500 * MS, 3, 11);
+        t.markTarget(T0 + 1_600 * MS, 3, 11); // Repeats do not start a new segment
+        t.markStatus(T0 + 2_000 * MS, "Moving");
+        t.markTarget(T0 + 4_000 * MS, 1, 20);
+        t.stop(T0 + 5_250 * MS);
+
+        String[] lines = t.breakdown().split("\n");
+        assertEquals("Task1: 5.25 s, 7 events (0 dropped)", lines[0]);
+        assertEquals("First target: 1.50 s", lines[1]);
+        assertEquals("  Obstacle 3 = 11 at 1.50 s (+1.50 s)", lines[2]);
+        assertEquals("  Obstacle 1 = 20 at 4.00 s (+2.50 s)", lines[3]);
+        assertEquals("Poses: 1, status changes: 1", lines[4]);
+        assertEquals(5, lines.length);
+    }
+
+    @Test
+    public void fullTimelineCountsDroppedEventsButKeepsTheStop() {
+        RunTimeline t = new RunTimeline(4);
+        t.start("Task2", T0);
+        for (int i = 1; i <= 5; i++) t.markPose(T0 + i * MS, i, i, 0);
+        t.stop(T0 + 1_000 * MS);
+
+        assertEquals(4, t.size());
+        assertEquals(3, t.getDropped()); // Two poses and the stop marker found no room
+        assertEquals(1_000 * MS, t.elapsedNanos(0));
+        String[] lines = t.breakdown().split("\n");
+        assertEquals("Task2: 1.00 s, 4 events (3 dropped)", lines[0]);
+        assertEquals("No targets recognised", lines[1]);
+    }
+
+    @Test
+    public void snapshotExportIsUnaffectedByANewRun() throws IOException {
+        RunTimeline t = new RunTimeline(16);
+        t.start("Task1", T0);
+        t.markTarget(T0 + 250 * MS, 2, 15);
+        t.markStatus(T0 + 500 * MS, "say \"hi\"");
+        t.stop(T0 + 750 * MS);
+        RunTimeline.Snapshot s = t.snapshot();
+        t.start("Next", T0 + 10_000 * MS); // The reader thread carries on meanwhile
+
+        File f = File.createTempFile("run", ".csv");
+        try {
+            s.export(f);
+            List<String> rows = Files.readAllLines(f.toPath(), StandardCharsets.UTF_8);
+            assertEquals(5, rows.size());
+            assertEquals("t_ms,type,a,b,c,text", rows.get(0));
+            assertEquals("0.000,START,0,0,0,\"Task1\"", rows.get(1));
+            assertEquals("250.000,TARGET,2,15,0,", rows.get(2));
+            assertEquals("500.000,STATUS,0,0,0,\"say \"\"hi\"\"\"", rows.get(3));
+            assertEquals("750.000,STOP,0,0,0,", rows.get(4));
+        } finally {
+            f.delete();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.sc2079_group25;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Hammers {@link SerialConnection} with concurrent connect/disconnect/write
+ * calls over in-memory pipes and checks that it settles without leaking links.
+ */
+public class SerialConnectionStressTest {
+
+    private ScheduledExecutorService loop;
+    private ExecutorService io;
+
+    private final AtomicInteger openTransports = new AtomicInteger();
+    private final AtomicInteger badStates = new AtomicInteger();
+    private final AtomicInteger connectedEvents = new AtomicInteger();
+    private final AtomicInteger linkDownEvents = new AtomicInteger();
+    private final AtomicReference<FakeTransport> lastTransport = new AtomicReference<>();
+
+    @Before
+    public void setUp() {
+        loop = Executors.newSingleThreadScheduledExecutor();
+        io = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        // Readers hand their exit back to the loop, so stop them first
+        io.shutdownNow();
+        io.awaitTermination(5, TimeUnit.SECONDS);
+        loop.shutdownNow();
+    }
+
+    @Test
+    public void rapidConnectDisconnectWriteSettlesCleanly() throws Exception {
+        SerialConnection conn = newConnection(new ReconnectBackoff(1, 4, 3));
+        int threads = 8;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            new Thread(() -> {
+                Random r = new Random(seed);
+                byte[] payload = "f\r\n".getBytes();
+                while (System.nanoTime() < deadline) {
+                    switch (r.nextInt(4)) {
+                        case 0: conn.open(FakeAttempt::new, "open"); break;
+                        case 1: conn.listen(FakeAttempt::new, "listen"); break;
+                        case 2: conn.close(); break;
+                        default: conn.write(payload); break;
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        conn.close();
+        drainLoop();
+        awaitNoOpenTransports();
+
+        assertEquals(BtConstants.STATE_NONE, conn.getState());
+        assertEquals(0, badStates.get());
+
+        // Still usable after the churn
+        conn.open(FakeAttempt::new, "open");
+        awaitState(conn, BtConstants.STATE_CONNECTED);
+        assertTrue(conn.write("f\r\n".getBytes()));
+        conn.close();
+        drainLoop();
+        awaitNoOpenTransports();
+        assertTrue(connectedEvents.get() > 0);
+    }
+
+    @Test
+    public void lostLinkIsReconnectedAutomatically() throws Exception {
+        SerialConnection conn = newConnection(new ReconnectBackoff(1, 8, 5));
+        conn.open(FakeAttempt::new, "open");
+        awaitState(conn, BtConstants.STATE_CONNECTED);
+        FakeTransport first = lastTransport.get();
+
+        first.peerHangUp();
+        long start = System.nanoTime();
+        while (lastTransport.get() == first || conn.getState() != BtConstants.STATE_CONNECTED) {
+            assertTrue("reconnect timed out", System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+            Thread.sleep(1);
+        }
+
+        assertEquals(1, conn.getReconnectCount());
+        assertTrue(conn.getLastReconnectMillis() >= 0);
+        assertEquals(0, linkDownEvents.get());
+        conn.close();
+        drainLoop();
+        awaitNoOpenTransports();
+    }
+
+    @Test
+    public void droppedStaleLinkIsClosedAndReconnected() throws Exception {
+        SerialConnection conn = newConnection(new ReconnectBackoff(1, 8, 5));
+        conn.open(FakeAttempt::new, "open");
+        awaitState(conn, BtConstants.STATE_CONNECTED);
+        FakeTransport first = lastTransport.get();
+
+        // The peer went quiet but the socket never failed
+        conn.dropLink("No heartbeat");
+        long start = System.nanoTime();
+        while (lastTransport.get() == first || conn.getState() != BtConstants.STATE_CONNECTED) {
+            assertTrue("reconnect timed out", System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+            Thread.sleep(1);
+        }
+
+        assertEquals(1, conn.getReconnectCount());
+        conn.close();
+        drainLoop();
+        awaitNoOpenTransports();
+    }
+
+    private SerialConnection newConnection(ReconnectBackoff backoff) {
+        return new SerialConnection(new SerialConnection.Callback() {
+            @Override public void onStateChanged(int state, String detail) {
+                if (state < BtConstants.STATE_NONE || state > BtConstants.STATE_LISTENING) badStates.incrementAndGet();
+                if (state == BtConstants.STATE_CONNECTED) connectedEvents.incrementAndGet();
+            }
+            @Override public void onRawData(byte[] buffer, int length) {}
+            @Override public void onLine(String line) {}
+            @Override public void onError(String message, Throwable t) {}
+            @Override public void onLinkDown() { linkDownEvents.incrementAndGet(); }
+        }, loop, io, backoff);
+    }
+
+    private void drainLoop() throws Exception {
+        // Twice: tasks queued by the first pass (e.g. onOpened) must also run
+        for (int i = 0; i < 2; i++) loop.submit(() -> {}).get(5, TimeUnit.SECONDS);
+    }
+
+    private void awaitNoOpenTransports() throws InterruptedException {
+        long start = System.nanoTime();
+        while (openTransports.get() != 0) {
+            assertTrue("leaked transports: " + openTransports.get(),
+                    System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+            Thread.sleep(1);
+        }
+    }
+
+    private static void awaitState(SerialConnection conn, int state) throws InterruptedException {
+        long start = System.nanoTime();
+        while (conn.getState() != state) {
+            assertTrue("timed out waiting for state " + state,
+                    System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+            Thread.sleep(1);
+        }
+    }
+
+    private class FakeAttempt implements SerialConnection.Attempt {
+        private volatile boolean cancelled = false;
+
+        @Override
+        public SerialConnection.Transport connect() throws IOException {
+            try {
+                Thread.sleep(ThreadLocalRandom.current().nextInt(2));
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            if (cancelled) throw new IOException("cancelled");
+            FakeTransport t = new FakeTransport();
+            lastTransport.set(t);
+            return t;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    private class FakeTransport implements SerialConnection.Transport {
+        private final PipedOutputStream peer = new PipedOutputStream();
+        private final PipedInputStream in;
+        private final AtomicInteger closed = new AtomicInteger();
+
+        FakeTransport() throws IOException {
+            in = new PipedInputStream(peer);
+            openTransports.incrementAndGet();
+        }
+
+        void peerHangUp() throws IOException {
+            peer.close();
+        }
+
+        @Override public InputStream getInputStream() { return in; }
+        @Override public OutputStream getOutputStream() { return OutputStream.nullOutputStream(); }
+        @Override public String getPeerName() { return "fake"; }
+
+        @Override
+        public void close() throws IOException {
+            if (closed.getAndIncrement() == 0) openTransports.decrementAndGet();
+            in.close();
+        }
+    }
+}
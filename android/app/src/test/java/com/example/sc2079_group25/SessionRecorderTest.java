@@ -0,0 +1,120 @@
+package com.example.sc2079_group25;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SessionRecorderTest {
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("session", ".scb");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    /** Keeps each event as a line of text, in arrival order. */
+    private static final class Recording implements BluetoothEventListener {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onConnectionStateChanged(int state, String detail) {
+            events.add("state " + state + " " + detail);
+        }
+
+        @Override
+        public void onLineReceived(String line) {
+            events.add("rx " + line);
+        }
+
+        @Override
+        public void onError(String message, Throwable t) {
+            events.add("error " + message);
+        }
+    }
+
+    private void record() throws InterruptedException, IOException {
+        SessionRecorder recorder = new SessionRecorder(file);
+        recorder.recordState(2, "Connected to HC-05");
+        recorder.recordRx("ROBOT,5,6,90");
+        recorder.recordTx("f010"); // Kept in the file, never replayed
+        recorder.recordRx("TARGET,3,caf\u00e9");
+        recorder.recordError("Connection lost");
+        recorder.recordState(0, "");
+        assertEquals(6, recorder.getRecordCount());
+        recorder.close();
+        assertTrue(recorder.awaitClosed(5, TimeUnit.SECONDS));
+    }
+
+    private int replay(Recording into) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        int[] count = {-1};
+        new SessionReplayer(file, into, Runnable::run).start(SessionReplayer.SPEED_MAX, (events, elapsed) -> {
+            count[0] = events;
+            done.countDown();
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        return count[0];
+    }
+
+    @Test
+    public void replayDeliversWhatWasRecorded() throws Exception {
+        record();
+        Recording replayed = new Recording();
+        assertEquals(6, replay(replayed)); // The TX record is counted, not delivered
+        assertEquals(Arrays.asList(
+                "state 2 Connected to HC-05",
+                "rx ROBOT,5,6,90",
+                "rx TARGET,3,caf\u00e9",
+                "error Connection lost",
+                "state 0 "), replayed.events);
+    }
+
+    @Test
+    public void truncatedTailIsDropped() throws Exception {
+        record();
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        // The last record is a state change with an empty detail: 11 header bytes and the state byte
+        int[] cuts = {bytes.length - 1, bytes.length - 5, bytes.length - 12};
+        List<String> expected = Arrays.asList(
+                "state 2 Connected to HC-05",
+                "rx ROBOT,5,6,90",
+                "rx TARGET,3,caf\u00e9",
+                "error Connection lost");
+        for (int cut : cuts) {
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                out.write(bytes, 0, cut);
+            }
+            Recording replayed = new Recording();
+            assertEquals("cut at " + cut, 5, replay(replayed));
+            assertEquals("cut at " + cut, expected, replayed.events);
+        }
+    }
+
+    @Test
+    public void rejectsFilesThatAreNotRecordings() throws Exception {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[SessionRecorder.HEADER_SIZE]);
+        }
+        Recording replayed = new Recording();
+        assertEquals(0, replay(replayed));
+        assertEquals(1, replayed.events.size());
+        assertTrue(replayed.events.get(0).startsWith("error Replay failed"));
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.sc2079_group25;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Drives the receive path (LineFramer, ProtocolDispatcher, ArenaModel, then
+ * an ArenaStore once per frame) with synthetic robot traffic over a long
+ * simulated session, as fast as the machine allows.
+ *
+ * Every simulated minute it records heap in use, GC count, dispatch latency
+ * percentiles, undo depth and how much the model and store hold. Traffic is
+ * made up front and fed in split chunks, so the harness itself allocates
+ * nothing per line while it runs.
+ *
+ * Retained sizes and dispatch errors are always checked. Heap growth and
+ * latency depend on the machine, so they are only checked with
+ * {@link Config#wallClockChecks}.
+ */
+final class SoakHarness {
+    static final class Config {
+        long simulatedSeconds = 2 * 3600;
+        double robotHz = 20;
+        double targetHz = 2;
+        double pathHz = 1;           // PATH+ lines; every 32nd replaces the route
+        double obstacleHz = 0.2;     // Re-adds, each an undoable edit
+        int frameMillis = 16;
+        int sampleSeconds = 60;
+
+        // Thresholds, checked against the samples taken after the warm-up
+        double warmupFraction = 0.1;
+        int maxUndoDepth = ArenaStore.MAX_UNDO;
+        int maxObstacles = 8;        // Re-adds cycle through eight ids
+        int maxPathPoints = 64;      // A route is at most 32 lines of two points
+        int maxPathCapacity = 256;   // Pending points buffered by the model
+
+        boolean wallClockChecks = false;
+        long maxHeapGrowthBytes = 8L << 20;
+        long maxP99Nanos = 2_000_000;
+    }
+
+    static final class Sample {
+        long simSeconds;
+        long heapBytes;
+        long gcCount;
+        long lines;
+        long p50Nanos, p99Nanos, p999Nanos, maxNanos;
+        int undoDepth;
+        int obstacles;
+        long pathPoints;
+        int pathCapacity;
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "t=%6ds heap=%7.2f MB gc=%4d lines=%7d p50=%6.1f us p99=%6.1f us p99.9=%7.1f us max=%8.1f us"
+                            + " undo=%d obstacles=%d path=%d/%d",
+                    simSeconds, heapBytes / 1048576.0, gcCount, lines,
+                    p50Nanos / 1e3, p99Nanos / 1e3, p999Nanos / 1e3, maxNanos / 1e3,
+                    undoDepth, obstacles, pathPoints, pathCapacity);
+        }
+    }
+
+    static final class Result {
+        final List<Sample> samples = new ArrayList<>();
+        final List<String> failures = new ArrayList<>();
+        long totalLines;
+        long errors;
+        double wallSeconds;
+
+        String report() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format(Locale.US, "%d lines in %.1f s wall, %d dispatch errors%n",
+                    totalLines, wallSeconds, errors));
+            for (Sample s : samples) sb.append(s).append('\n');
+            for (String f : failures) sb.append("FAIL: ").append(f).append('\n');
+            return sb.toString();
+        }
+    }
+
+    /** Mirrors what ArenaView does with each change, minus the drawing. */
+    static final class StoreSink implements ArenaModel.Sink {
+        final ArenaStore store = new ArenaStore();
+        long pathPoints;
+
+        @Override public void clearMap() {
+            store.edit(ArenaState::cleared);
+        }
+
+        @Override public void addObstacle(int id, float x, float y) {
+            store.edit(st -> st.withObstacle(new ArenaView.Obstacle(id, x, y)));
+        }
+
+        @Override public void updateObstacleValues(String[] valuesById) {
+            store.update(st -> st.withValues(valuesById));
+            Arrays.fill(valuesById, null);
+        }
+
+        @Override public void setPlannedPath(float[] pts, int n) {
+            pathPoints = n;
+        }
+
+        @Override public void appendPlannedPath(float[] pts, int n) {
+            pathPoints += n;
+        }
+
+        @Override public void updateRobot(float x, float y, float r) {
+            store.update(st -> st.withRobot(x, y, r));
+        }
+
+        @Override public void updateExploredMap(long[] explored, long[] obstacles, long[] changed) {
+        }
+    }
+
+    // Latency histogram with 1 us buckets up to 20 ms; slower lines land in the last one
+    private static final int BUCKETS = 20_001;
+
+    private final long[] histogram = new long[BUCKETS];
+    private final byte[] tail = new byte[512];
+    private long windowLines, windowMax;
+    private long errors;
+
+    Result run(Config c) {
+        byte[][] robot = lines(256, i -> "ROBOT," + (1 + i % 18) + "," + (1 + (i / 18) % 18) + "," + "NESW".charAt(i % 4));
+        byte[][] target = lines(64, i -> "TARGET," + (i % 8) + "," + String.format(Locale.US, "%02d", 11 + i % 30));
+        byte[][] path = lines(32, i -> (i == 0 ? "PATH," : "PATH+,") + (i % 18) + "," + (i % 7) + "," + (i % 18 + 1) + "," + (i % 7 + 1));
+
+        ArenaModel model = new ArenaModel();
+        ProtocolDispatcher dispatcher = new ProtocolDispatcher(model);
+        LineFramer framer = new LineFramer();
+        StoreSink sink = new StoreSink();
+        LineFramer.LineListener onLine = line -> {
+            if (dispatcher.dispatch(line) != null) errors++;
+        };
+
+        Result result = new Result();
+        long wallStart = System.nanoTime();
+        double frameSec = c.frameMillis / 1000.0;
+        double robotDue = 0, targetDue = 0, pathDue = 0, obstacleDue = 0;
+        int robotNext = 0, targetNext = 0, pathNext = 0, obstacleNext = 0, split = 0;
+        long frames = c.simulatedSeconds * 1000 / c.frameMillis;
+        long framesPerSample = c.sampleSeconds * 1000L / c.frameMillis;
+        long gcBase = gcCount();
+
+        for (long f = 1; f <= frames; f++) {
+            robotDue += c.robotHz * frameSec;
+            targetDue += c.targetHz * frameSec;
+            pathDue += c.pathHz * frameSec;
+            obstacleDue += c.obstacleHz * frameSec;
+            for (; robotDue >= 1; robotDue--) feed(framer, robot[robotNext++ % robot.length], split++, onLine);
+            for (; targetDue >= 1; targetDue--) feed(framer, target[targetNext++ % target.length], split++, onLine);
+            for (; pathDue >= 1; pathDue--) feed(framer, path[pathNext++ % path.length], split++, onLine);
+            // Obstacles arrive as JSON, and org.json is only stubbed in local unit tests,
+            // so these go straight to the model as the dispatcher would send them
+            for (; obstacleDue >= 1; obstacleDue--, obstacleNext++) {
+                model.addObstacle(obstacleNext % 8, 2 + 2 * (obstacleNext % 8), 10);
+            }
+            model.applyTo(sink);
+
+            if (f % framesPerSample == 0) {
+                Sample s = new Sample();
+                s.simSeconds = f * c.frameMillis / 1000;
+                s.gcCount = gcCount() - gcBase;
+                if (c.wallClockChecks) {
+                    s.heapBytes = usedHeapAfterGc();
+                    gcBase = gcCount(); // Leave the GC requested above out of the next window
+                } else {
+                    Runtime rt = Runtime.getRuntime();
+                    s.heapBytes = rt.totalMemory() - rt.freeMemory();
+                }
+                s.undoDepth = sink.store.getUndoDepth();
+                s.obstacles = sink.store.get().obstacles.size();
+                s.pathPoints = sink.pathPoints;
+                s.pathCapacity = model.getPathCapacity();
+                takeWindow(s);
+                result.totalLines += s.lines;
+                result.samples.add(s);
+            }
+        }
+        result.wallSeconds = (System.nanoTime() - wallStart) / 1e9;
+        result.errors = errors;
+        check(c, result);
+        return result;
+    }
+
+    private interface LineMaker {
+        String make(int i);
+    }
+
+    private static byte[][] lines(int n, LineMaker maker) {
+        byte[][] out = new byte[n][];
+        for (int i = 0; i < n; i++) out[i] = (maker.make(i) + "\r\n").getBytes(StandardCharsets.UTF_8);
+        return out;
+    }
+
+    /** Feeds one line in two chunks split at a moving point, timing the whole receive path. */
+    private void feed(LineFramer framer, byte[] line, int split, LineFramer.LineListener onLine) {
+        int cut = 1 + split % (line.length - 1);
+        long start = System.nanoTime();
+        framer.feed(line, cut, onLine);
+        framer.feed(tail, 0, onLine); // Empty reads happen too
+        feedTail(framer, line, cut, onLine);
+        long nanos = System.nanoTime() - start;
+        histogram[(int) Math.min(BUCKETS - 1, nanos / 1000)]++;
+        windowLines++;
+        if (nanos > windowMax) windowMax = nanos;
+    }
+
+    private void feedTail(LineFramer framer, byte[] line, int cut, LineFramer.LineListener onLine) {
+        int n = line.length - cut;
+        System.arraycopy(line, cut, tail, 0, n);
+        framer.feed(tail, n, onLine);
+    }
+
+    private void takeWindow(Sample s) {
+        s.lines = windowLines;
+        s.maxNanos = windowMax;
+        s.p50Nanos = percentile(0.50);
+        s.p99Nanos = percentile(0.99);
+        s.p999Nanos = percentile(0.999);
+        Arrays.fill(histogram, 0);
+        windowLines = 0;
+        windowMax = 0;
+    }
+
+    private long percentile(double p) {
+        long rank = (long) Math.ceil(p * windowLines);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += histogram[i];
+            if (seen >= rank && seen > 0) return i * 1000L;
+        }
+        return 0;
+    }
+
+    private static void check(Config c, Result r) {
+        if (r.samples.isEmpty()) {
+            r.failures.add("no samples; simulated duration shorter than one sample");
+            return;
+        }
+        int base = (int) Math.min(r.samples.size() - 1, Math.floor(r.samples.size() * c.warmupFraction));
+        for (Sample s : r.samples) {
+            limit(r, "undo depth", s.undoDepth, c.maxUndoDepth, s);
+            limit(r, "obstacles", s.obstacles, c.maxObstacles, s);
+            limit(r, "planned path points", s.pathPoints, c.maxPathPoints, s);
+            limit(r, "pending path capacity", s.pathCapacity, c.maxPathCapacity, s);
+        }
+        if (c.wallClockChecks) {
+            Sample first = r.samples.get(base);
+            Sample last = r.samples.get(r.samples.size() - 1);
+            long growth = last.heapBytes - first.heapBytes;
+            if (growth > c.maxHeapGrowthBytes) {
+                r.failures.add(String.format(Locale.US, "heap grew %.2f MB after warm-up (limit %.2f MB)",
+                        growth / 1048576.0, c.maxHeapGrowthBytes / 1048576.0));
+            }
+            for (int i = base; i < r.samples.size(); i++) {
+                Sample s = r.samples.get(i);
+                if (s.p99Nanos > c.maxP99Nanos) {
+                    r.failures.add(String.format(Locale.US, "p99 %.1f us at t=%ds (limit %.1f us)",
+                            s.p99Nanos / 1e3, s.simSeconds, c.maxP99Nanos / 1e3));
+                }
+            }
+        }
+        if (r.errors > 0) r.failures.add(r.errors + " lines were rejected by the dispatcher");
+    }
+
+    private static void limit(Result r, String what, long value, long max, Sample s) {
+        if (value > max) r.failures.add(what + " " + value + " at t=" + s.simSeconds + "s (limit " + max + ")");
+    }
+
+    private static long gcCount() {
+        long n = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            n += Math.max(0, gc.getCollectionCount());
+        }
+        return n;
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime rt = Runtime.getRuntime();
+        System.gc();
+        System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
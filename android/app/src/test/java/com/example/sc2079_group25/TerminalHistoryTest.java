@@ -0,0 +1,86 @@
+package com.example.sc2079_group25;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the {@link TerminalHistory} tag and type indexes, search refinement
+ * and eviction, and how much of a long session a search has to read.
+ */
+public class TerminalHistoryTest {
+
+    @Test
+    public void indexesTagsAndTypesBehindLinkPrefixes() {
+        TerminalHistory h = new TerminalHistory(100);
+        h.append("[RX] TARGET,1,11");
+        h.append("[L2] [RX] ROBOT,5,5,N");
+        h.append("[L2] [TX] f");
+        h.append("[Error] Target id out of range: 99");
+        h.append("[State] Connected");
+        h.append("[RX] {\"status\": \"ready\"}");
+        h.append("[Run] 12 poses");
+
+        assertEquals(3, h.count(TerminalHistory.TAG_RX, null));
+        assertEquals(1, h.count(TerminalHistory.TAG_RX, "target"));
+        assertEquals(2, h.count(TerminalHistory.TAG_ANY, "TARGET")); // The error message starts with Target too
+        assertEquals(1, h.count(TerminalHistory.TAG_RX, "ROBOT"));
+        assertEquals(1, h.count(TerminalHistory.TAG_ANY, "JSON"));
+        assertEquals(1, h.count(TerminalHistory.TAG_OTHER, "RUN"));
+        assertEquals(TerminalHistory.TAG_ERROR, TerminalHistory.tagNamed("error"));
+
+        TerminalHistory.Result r = h.search(TerminalHistory.TAG_ERROR, null, "TARGET", 10);
+        assertEquals(1, r.total);
+        assertEquals("[Error] Target id out of range: 99", r.lines[0]);
+    }
+
+    @Test
+    public void refinedSearchSeesNewLines() {
+        TerminalHistory h = new TerminalHistory(100);
+        for (int i = 0; i < 20; i++) h.append("[RX] TARGET," + i + "," + (10 + i));
+        assertEquals(20, h.search(TerminalHistory.TAG_RX, "TARGET", "", 100).total);
+        assertEquals(20, h.search(TerminalHistory.TAG_RX, "TARGET", ",1", 100).total);
+        assertEquals(1, h.search(TerminalHistory.TAG_RX, "TARGET", ",1,", 100).total);
+
+        h.append("[RX] TARGET,1,42");
+        TerminalHistory.Result r = h.search(TerminalHistory.TAG_RX, "TARGET", ",1,", 1);
+        assertEquals(2, r.total);
+        assertEquals("[RX] TARGET,1,42", r.lines[0]); // Only the latest is kept
+    }
+
+    @Test
+    public void evictsOldestLinesFromTheIndexes() {
+        TerminalHistory h = new TerminalHistory(10);
+        for (int i = 0; i < 25; i++) h.append(i % 2 == 0 ? "[RX] ROBOT," + i : "[TX] f");
+        assertEquals(10, h.size());
+        assertNull(h.get(14));
+        assertEquals("[RX] ROBOT,24", h.get(24));
+        assertEquals(5, h.count(TerminalHistory.TAG_RX, null));
+        assertEquals(5, h.search(TerminalHistory.TAG_ANY, "robot", "", 100).total);
+        assertArrayEquals(new int[] {16, 18, 20, 22, 24}, h.search(TerminalHistory.TAG_RX, null, "", 100).seqs);
+    }
+
+    @Test
+    public void filtersReadOnlyTheirPostingList() {
+        TerminalHistory h = new TerminalHistory();
+        for (int i = 0; i < 400_000; i++) {
+            switch (i % 4) {
+                case 0: h.append("[RX] ROBOT," + (i % 18) + "," + (i % 17) + ",N"); break;
+                case 1: h.append("[RX] TARGET," + (i % 8) + "," + (11 + i % 30)); break;
+                case 2: h.append("[TX] f"); break;
+                default: h.append(i % 1000 == 3 ? "[Error] Failed to parse path: odd number" : "[State] Connected");
+            }
+        }
+        TerminalHistory.Result errors = h.search(TerminalHistory.TAG_ERROR, null, "", 10);
+        assertEquals(400, errors.total);
+        assertEquals("a tag filter reads only its own lines", 400, errors.scanned);
+        assertEquals(100_000, h.search(TerminalHistory.TAG_ANY, "TARGET", "", 10).scanned);
+
+        TerminalHistory.Result odd = h.search(TerminalHistory.TAG_ANY, null, "ODD NUMBER", 10);
+        assertEquals(400, odd.total);
+        assertEquals(400_000, odd.scanned);
+        TerminalHistory.Result refined = h.search(TerminalHistory.TAG_ANY, null, "odd number", 10);
+        assertEquals(400, refined.total);
+        assertEquals("a refined search rechecks only the previous hits", 400, refined.scanned);
+    }
+}
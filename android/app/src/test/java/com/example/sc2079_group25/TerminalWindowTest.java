@@ -0,0 +1,57 @@
+package com.example.sc2079_group25;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TerminalWindowTest {
+
+    /** Appends like the activity does, deleting whatever the window says to. */
+    private static void append(TerminalWindow w, StringBuilder view, String chunk) {
+        view.append(chunk);
+        int cut = w.onAppended(chunk, view);
+        view.delete(0, cut);
+    }
+
+    @Test
+    public void longSessionKeepsOnlyTheLatestLines() {
+        TerminalWindow w = new TerminalWindow(100, 20);
+        StringBuilder view = new StringBuilder();
+        StringBuilder frame = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            frame.append("[RX] ROBOT,").append(i).append('\n');
+            if (i % 7 == 6) { // Several lines per frame, as drainTerminal hands them over
+                append(w, view, frame.toString());
+                frame.setLength(0);
+            }
+            int lines = count(view);
+            assertTrue("view holds " + lines + " lines", lines <= 120);
+        }
+        append(w, view, frame.toString());
+
+        String[] kept = view.toString().split("\n");
+        assertTrue(kept.length >= 100 && kept.length <= 120);
+        assertEquals(kept.length, w.lines());
+        assertEquals("[RX] ROBOT,99999", kept[kept.length - 1]);
+        for (int i = 1; i < kept.length; i++) {
+            assertEquals(Integer.parseInt(kept[i - 1].substring(11)) + 1, Integer.parseInt(kept[i].substring(11)));
+        }
+    }
+
+    @Test
+    public void trimsOnlyOnceTheSlackIsUsed() {
+        TerminalWindow w = new TerminalWindow(10, 5);
+        StringBuilder view = new StringBuilder();
+        for (int i = 0; i < 15; i++) append(w, view, "line " + i + "\n");
+        assertEquals(15, count(view));
+        append(w, view, "line 15\n");
+        assertEquals(10, count(view));
+        assertTrue(view.toString().startsWith("line 6\n"));
+    }
+
+    private static int count(CharSequence s) {
+        int n = 0;
+        for (int i = 0; i < s.length(); i++) if (s.charAt(i) == '\n') n++;
+        return n;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.sc2079_group25;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the candidates {@link ViewingPoses} ranks and that edits only
+ * invalidate the obstacles they can affect.
+ */
+public class ViewingPosesTest {
+
+    private static ArenaView.Obstacle obstacle(int id, int x, int y, int direction) {
+        ArenaView.Obstacle o = new ArenaView.Obstacle(id, x, y);
+        o.direction = direction;
+        return o;
+    }
+
+    @Test
+    public void bestPoseFacesTheImageHeadOn() {
+        ViewingPoses poses = new ViewingPoses();
+        poses.sync(ArenaState.INITIAL.withObstacle(obstacle(1, 10, 10, 2))); // Face S
+
+        ViewingPoses.Pose best = poses.best(1);
+        assertEquals(10, best.x);
+        assertEquals(10 - ViewingPoses.IDEAL_DISTANCE, best.y);
+        assertEquals(0, best.rotation, 0); // Looking north at the face
+        for (ViewingPoses.Pose p : poses.candidates(1)) assertTrue(p.cost >= best.cost);
+    }
+
+    @Test
+    public void skipsPosesOutsideTheArenaOrBlocked() {
+        ViewingPoses poses = new ViewingPoses();
+        // Face W next to the wall: no room for the robot
+        poses.sync(ArenaState.INITIAL.withObstacle(obstacle(1, 2, 10, 3)));
+        assertTrue(poses.candidates(1).isEmpty());
+
+        // Face N with an obstacle right in front of it blocks the line of sight
+        ArenaState st = ArenaState.INITIAL
+                .withObstacle(obstacle(2, 10, 5, 0))
+                .withObstacle(obstacle(3, 10, 6, 0));
+        poses.sync(st);
+        for (ViewingPoses.Pose p : poses.candidates(2)) fail("Pose at " + p.x + "," + p.y + " cannot see the face");
+    }
+
+    @Test
+    public void editsOnlyInvalidateNearbyObstacles() {
+        ViewingPoses poses = new ViewingPoses();
+        ArenaState st = ArenaState.INITIAL
+                .withObstacle(obstacle(1, 3, 3, 0))
+                .withObstacle(obstacle(2, 16, 16, 2));
+        poses.sync(st);
+        poses.candidates(1);
+        poses.candidates(2);
+        assertEquals(2, poses.getComputeCount());
+
+        // A new value and robot moves change nothing here
+        st = st.withValue(1, "11").withRobot(5, 5, 90);
+        poses.sync(st);
+        poses.candidates(1);
+        poses.candidates(2);
+        assertEquals(2, poses.getComputeCount());
+
+        // Dragging obstacle 2 around its corner leaves obstacle 1's entry alone
+        ArenaView.Obstacle moved = st.find(2).copy();
+        moved.x = 15;
+        st = st.withObstacle(moved);
+        poses.sync(st);
+        poses.candidates(1);
+        poses.candidates(2);
+        assertEquals(3, poses.getComputeCount());
+
+        // An obstacle dropped in front of obstacle 1, off its centre line, invalidates it
+        // and rules out the poses whose footprint it lands in; the rest survive
+        st = st.withObstacle(obstacle(3, 5, 8, 0));
+        poses.sync(st);
+        List<ViewingPoses.Pose> front = poses.candidates(1);
+        assertEquals(4, poses.getComputeCount());
+        assertEquals(9, front.size()); // 12 candidates less the three at x=4 beyond distance 3
+        for (ViewingPoses.Pose p : front) assertTrue(Math.abs(p.x - 5) > 1 || Math.abs(p.y - 8) > 1);
+    }
+}